@@ -35,8 +35,9 @@ public class RenameFeedDialog {
                 .setView(content)
                 .setTitle(de.danoeh.antennapod.core.R.string.rename_feed_label)
                 .setPositiveButton(android.R.string.ok, (d, input) -> {
-                    feed.setCustomTitle(alertViewBinding.urlEditText.getText().toString());
-                    DBWriter.setFeedCustomTitle(feed);
+                    // The feed can be shared with the feed cache, so it is not modified here
+                    String title = alertViewBinding.urlEditText.getText().toString();
+                    DBWriter.setFeedCustomTitle(feed.getId(), title.equals(feed.getFeedTitle()) ? null : title);
                 })
                 .setNeutralButton(de.danoeh.antennapod.core.R.string.reset, null)
                 .setNegativeButton(de.danoeh.antennapod.core.R.string.cancel_label, null)
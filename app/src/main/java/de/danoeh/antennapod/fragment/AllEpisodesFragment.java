@@ -13,6 +13,7 @@ import de.danoeh.antennapod.R;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedItemFilter;
 import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.PageToken;
 import de.danoeh.antennapod.dialog.FilterDialog;
 import org.apache.commons.lang3.StringUtils;
 
@@ -89,6 +90,11 @@ public class AllEpisodesFragment extends EpisodesListFragment {
         filterDialog.openDialog();
     }
 
+    @Override
+    protected boolean isFiltered() {
+        return feedItemFilter.getValues().length > 0;
+    }
+
     @Override
     protected boolean shouldUpdatedItemRemainInList(FeedItem item) {
         SharedPreferences prefs = getActivity().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
@@ -109,7 +115,7 @@ public class AllEpisodesFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData() {
-        return DBReader.getRecentlyPublishedEpisodes((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE, feedItemFilter);
+    protected List<FeedItem> loadMoreData(@Nullable PageToken after) {
+        return DBReader.getRecentlyPublishedEpisodes(after, EPISODES_PER_PAGE, feedItemFilter);
     }
 }
@@ -28,6 +28,7 @@ import de.danoeh.antennapod.core.event.DownloadEvent;
 import de.danoeh.antennapod.core.event.DownloadLogEvent;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.preferences.UsageStatistics;
 import de.danoeh.antennapod.core.service.download.DownloadService;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.storage.DBReader;
@@ -53,6 +54,7 @@ public class DownloadLogFragment extends ListFragment {
 
     private List<DownloadStatus> downloadLog = new ArrayList<>();
     private DownloadLogAdapter adapter;
+    private TextView txtvNotModifiedRatio;
     private Disposable disposable;
 
     private boolean isUpdatingFeeds = false;
@@ -86,6 +88,10 @@ public class DownloadLogFragment extends ListFragment {
         emptyView.setMessage(R.string.no_log_downloads_label);
         emptyView.attachToListView(getListView());
 
+        View header = getLayoutInflater().inflate(R.layout.downloadlog_header, lv, false);
+        txtvNotModifiedRatio = header.findViewById(R.id.txtvNotModifiedRatio);
+        lv.addHeaderView(header, null, false);
+
         adapter = new DownloadLogAdapter(getActivity(), itemAccess);
         setListAdapter(adapter);
         EventBus.getDefault().register(this);
@@ -100,14 +106,26 @@ public class DownloadLogFragment extends ListFragment {
     private void onFragmentLoaded() {
         setListShown(true);
         adapter.notifyDataSetChanged();
+        updateNotModifiedRatio();
         ((PagedToolbarFragment) getParentFragment()).invalidateOptionsMenuIfActive(this);
     }
 
+    private void updateNotModifiedRatio() {
+        int refreshes = UsageStatistics.getFeedRefreshes();
+        if (refreshes == 0) {
+            txtvNotModifiedRatio.setVisibility(View.GONE);
+            return;
+        }
+        int percent = 100 * UsageStatistics.getFeedRefreshesNotModified() / refreshes;
+        txtvNotModifiedRatio.setText(getString(R.string.download_log_not_modified_ratio, percent, refreshes));
+        txtvNotModifiedRatio.setVisibility(View.VISIBLE);
+    }
+
     @Override
     public void onListItemClick(@NonNull ListView l, @NonNull View v, int position, long id) {
         super.onListItemClick(l, v, position, id);
 
-        DownloadStatus status = adapter.getItem(position);
+        DownloadStatus status = (DownloadStatus) l.getItemAtPosition(position);
         String url = "unknown";
         String message = getString(R.string.download_successful);
         if (status.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
@@ -176,6 +194,7 @@ public class DownloadLogFragment extends ListFragment {
             switch (item.getItemId()) {
                 case R.id.clear_logs_item:
                     DBWriter.clearDownloadLog();
+                    UsageStatistics.resetFeedRefreshes();
                     return true;
                 case R.id.refresh_item:
                     AutoUpdateManager.runImmediate(requireContext());
@@ -3,6 +3,7 @@ package de.danoeh.antennapod.fragment;
 import android.content.DialogInterface;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.SimpleItemAnimator;
@@ -44,7 +45,9 @@ import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.service.download.DownloadService;
 import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
+import de.danoeh.antennapod.core.storage.PageToken;
 import de.danoeh.antennapod.core.util.FeedItemUtil;
+import de.danoeh.antennapod.core.util.LongHashSet;
 import de.danoeh.antennapod.core.util.download.AutoUpdateManager;
 import de.danoeh.antennapod.menuhandler.FeedItemMenuHandler;
 import de.danoeh.antennapod.menuhandler.MenuItemUtils;
@@ -247,7 +250,8 @@ public abstract class EpisodesListFragment extends Fragment {
         }
         isLoadingMore = true;
         loadingMoreView.setVisibility(View.VISIBLE);
-        disposable = Observable.fromCallable(this::loadMoreData)
+        final PageToken after = episodes.isEmpty() ? null : PageToken.after(episodes.get(episodes.size() - 1));
+        disposable = Observable.fromCallable(() -> loadMoreData(after))
                 .subscribeOn(Schedulers.io())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(data -> {
@@ -354,9 +358,39 @@ public abstract class EpisodesListFragment extends Fragment {
         updateUi();
     }
 
+    /**
+     * @return true if the list does not show all episodes, so that a changed episode can enter or leave the list
+     */
+    protected boolean isFiltered() {
+        return false;
+    }
+
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onUnreadItemsChanged(UnreadItemsUpdateEvent event) {
-        updateUi();
+        if (!event.hasChangedItems() || listAdapter == null || isFiltered() || !containsAll(event.itemIds)) {
+            updateUi();
+            return;
+        }
+        for (int pos = 0; pos < episodes.size(); pos++) {
+            FeedItem item = episodes.get(pos);
+            if (event.contains(item)) {
+                event.applyTo(item);
+                listAdapter.notifyItemChangedCompat(pos);
+            }
+        }
+    }
+
+    private boolean containsAll(long[] itemIds) {
+        LongHashSet shownIds = new LongHashSet(episodes.size());
+        for (FeedItem item : episodes) {
+            shownIds.add(item.getId());
+        }
+        for (long id : itemIds) {
+            if (!shownIds.contains(id)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Subscribe(threadMode = ThreadMode.MAIN)
@@ -384,13 +418,14 @@ public abstract class EpisodesListFragment extends Fragment {
     protected abstract List<FeedItem> loadData();
 
     /**
-     * Load a new page of data as defined by {@link #page} and {@link #EPISODES_PER_PAGE}.
+     * Load a new page of {@link #EPISODES_PER_PAGE} items that follow the given position.
      * If the number of items returned is less than {@link #EPISODES_PER_PAGE},
      * it will be assumed that the underlying data is exhausted
      * and this method will not be called again.
      *
+     * @param after The last item that is currently displayed, null if the list is empty
      * @return The items from the next page of data
      */
     @NonNull
-    protected abstract List<FeedItem> loadMoreData();
+    protected abstract List<FeedItem> loadMoreData(@Nullable PageToken after);
 }
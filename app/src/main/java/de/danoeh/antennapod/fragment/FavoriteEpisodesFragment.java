@@ -3,6 +3,7 @@ package de.danoeh.antennapod.fragment;
 import android.os.Bundle;
 import android.view.Menu;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.google.android.material.snackbar.Snackbar;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.ItemTouchHelper;
@@ -21,6 +22,7 @@ import de.danoeh.antennapod.R;
 import de.danoeh.antennapod.core.event.FavoritesEvent;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.PageToken;
 import de.danoeh.antennapod.core.storage.DBWriter;
 
 /**
@@ -99,7 +101,7 @@ public class FavoriteEpisodesFragment extends EpisodesListFragment {
 
     @NonNull
     @Override
-    protected List<FeedItem> loadMoreData() {
-        return DBReader.getFavoriteItemsList((page - 1) * EPISODES_PER_PAGE, EPISODES_PER_PAGE);
+    protected List<FeedItem> loadMoreData(@Nullable PageToken after) {
+        return DBReader.getFavoriteItemsList(after, EPISODES_PER_PAGE);
     }
 }
@@ -404,7 +404,19 @@ public class FeedItemlistFragment extends Fragment implements AdapterView.OnItem
 
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onUnreadItemsChanged(UnreadItemsUpdateEvent event) {
-        updateUi();
+        if (!event.hasChangedItems() || feed == null || feed.getItems() == null || adapter == null
+                || (feed.getItemFilter() != null && feed.getItemFilter().getValues().length > 0)) {
+            // A filtered list might need to show or hide the changed episodes
+            updateUi();
+            return;
+        }
+        List<FeedItem> items = feed.getItems();
+        for (int pos = 0; pos < items.size(); pos++) {
+            if (event.contains(items.get(pos))) {
+                event.applyTo(items.get(pos));
+                adapter.notifyItemChangedCompat(pos);
+            }
+        }
     }
 
     @Subscribe(threadMode = ThreadMode.MAIN)
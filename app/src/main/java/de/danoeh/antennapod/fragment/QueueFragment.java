@@ -219,8 +219,17 @@ public class QueueFragment extends Fragment implements Toolbar.OnMenuItemClickLi
 
     @Subscribe(threadMode = ThreadMode.MAIN)
     public void onUnreadItemsChanged(UnreadItemsUpdateEvent event) {
-        // Sent when playback position is reset
-        loadItems(false);
+        if (event.hasChangedItems() && queue != null && recyclerAdapter != null) {
+            for (int pos = 0; pos < queue.size(); pos++) {
+                if (event.contains(queue.get(pos))) {
+                    event.applyTo(queue.get(pos));
+                    recyclerAdapter.notifyItemChangedCompat(pos);
+                }
+            }
+        } else {
+            // Sent when playback position is reset
+            loadItems(false);
+        }
         if (isUpdatingFeeds != updateRefreshMenuItemChecker.isRefreshing()) {
             refreshToolbarState();
         }
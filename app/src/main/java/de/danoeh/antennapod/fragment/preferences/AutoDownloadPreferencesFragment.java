@@ -76,6 +76,7 @@ public class AutoDownloadPreferencesFragment extends PreferenceFragmentCompat {
 
     private void checkAutodownloadItemVisibility(boolean autoDownload) {
         findPreference(UserPreferences.PREF_EPISODE_CACHE_SIZE).setEnabled(autoDownload);
+        findPreference(UserPreferences.PREF_EPISODE_CACHE_STORAGE).setEnabled(autoDownload);
         findPreference(UserPreferences.PREF_ENABLE_AUTODL_ON_BATTERY).setEnabled(autoDownload);
         findPreference(UserPreferences.PREF_ENABLE_AUTODL_WIFI_FILTER).setEnabled(autoDownload);
         findPreference(UserPreferences.PREF_EPISODE_CLEANUP).setEnabled(autoDownload);
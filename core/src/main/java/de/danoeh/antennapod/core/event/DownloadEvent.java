@@ -11,14 +11,30 @@ public class DownloadEvent {
 
     public final DownloaderUpdate update;
 
-    private DownloadEvent(DownloaderUpdate downloader) {
+    /**
+     * Number of downloads that wait for being started, by lane of the download scheduler.
+     */
+    public final int queuedUserDownloads;
+    public final int queuedFeedRefreshes;
+    public final int queuedAutoDownloads;
+
+    private DownloadEvent(DownloaderUpdate downloader, int queuedUserDownloads, int queuedFeedRefreshes,
+                          int queuedAutoDownloads) {
         this.update = downloader;
+        this.queuedUserDownloads = queuedUserDownloads;
+        this.queuedFeedRefreshes = queuedFeedRefreshes;
+        this.queuedAutoDownloads = queuedAutoDownloads;
     }
 
     public static DownloadEvent refresh(List<Downloader> list) {
+        return refresh(list, 0, 0, 0);
+    }
+
+    public static DownloadEvent refresh(List<Downloader> list, int queuedUserDownloads, int queuedFeedRefreshes,
+                                        int queuedAutoDownloads) {
         list = new ArrayList<>(list);
         DownloaderUpdate update = new DownloaderUpdate(list);
-        return new DownloadEvent(update);
+        return new DownloadEvent(update, queuedUserDownloads, queuedFeedRefreshes, queuedAutoDownloads);
     }
 
     @NonNull
@@ -26,6 +42,9 @@ public class DownloadEvent {
     public String toString() {
         return "DownloadEvent{" +
                 "update=" + update +
+                ", queuedUserDownloads=" + queuedUserDownloads +
+                ", queuedFeedRefreshes=" + queuedFeedRefreshes +
+                ", queuedAutoDownloads=" + queuedAutoDownloads +
                 '}';
     }
 
@@ -1,6 +1,65 @@
 package de.danoeh.antennapod.core.event;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.util.LongHashSet;
+
 public class UnreadItemsUpdateEvent {
+    /**
+     * IDs of the episodes whose played state was set, or null if it is not known which episodes changed.
+     */
+    @Nullable
+    public final long[] itemIds;
+    /**
+     * The played state of the episodes, one of FeedItem.NEW, FeedItem.UNPLAYED and FeedItem.PLAYED.
+     */
+    public final int played;
+    @Nullable
+    private final LongHashSet itemIdSet;
+
     public UnreadItemsUpdateEvent() {
+        this(FeedItem.UNPLAYED, null);
+    }
+
+    private UnreadItemsUpdateEvent(int played, @Nullable long[] itemIds) {
+        this.played = played;
+        this.itemIds = itemIds;
+        if (itemIds != null) {
+            itemIdSet = new LongHashSet(itemIds.length);
+            for (long id : itemIds) {
+                itemIdSet.add(id);
+            }
+        } else {
+            itemIdSet = null;
+        }
+    }
+
+    /**
+     * Only the played state of the given episodes was changed, so lists can update these episodes
+     * instead of loading all episodes again.
+     */
+    public static UnreadItemsUpdateEvent playedStateChanged(int played, @NonNull long... itemIds) {
+        return new UnreadItemsUpdateEvent(played, itemIds);
+    }
+
+    public boolean hasChangedItems() {
+        return itemIdSet != null;
+    }
+
+    public boolean contains(FeedItem item) {
+        return itemIdSet != null && itemIdSet.contains(item.getId());
+    }
+
+    /**
+     * Sets the played state of this event on the given episode.
+     */
+    public void applyTo(FeedItem item) {
+        if (played == FeedItem.NEW) {
+            item.setNew();
+        } else {
+            item.setPlayed(played == FeedItem.PLAYED);
+        }
     }
 }
@@ -18,6 +18,7 @@ import de.danoeh.antennapod.core.export.ExportWriter;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.PageToken;
 
 /** Writes saved favorites to file. */
 public class FavoritesWriter implements ExportWriter {
@@ -67,14 +68,16 @@ public class FavoritesWriter implements ExportWriter {
     }
 
     private List<FeedItem> getFavorites() {
-        int page = 0;
+        PageToken after = null;
 
         List<FeedItem> favoritesList = new ArrayList<>();
         List<FeedItem> favoritesPage;
         do {
-            favoritesPage = DBReader.getFavoriteItemsList(page * PAGE_LIMIT, PAGE_LIMIT);
+            favoritesPage = DBReader.getFavoriteItemsList(after, PAGE_LIMIT);
             favoritesList.addAll(favoritesPage);
-            ++page;
+            if (!favoritesPage.isEmpty()) {
+                after = PageToken.after(favoritesPage.get(favoritesPage.size() - 1));
+            }
         } while (!favoritesPage.isEmpty() && favoritesPage.size() == PAGE_LIMIT);
 
         // sort in descending order
@@ -50,10 +50,21 @@ public class Feed extends FeedFile {
     private List<FeedItem> items;
 
     /**
-     * String that identifies the last update (adopted from Last-Modified or ETag header).
+     * String that identifies the last update (adopted from Last-Modified header).
      */
     private String lastUpdate;
 
+    /**
+     * Value of the ETag header of the last update.
+     */
+    private String etag;
+
+    /**
+     * Digest of the feed file that was last parsed successfully. Used for skipping the parsing
+     * of unchanged feeds if the server does not support conditional requests.
+     */
+    private String contentHash;
+
     private String paymentLink;
     /**
      * Feed type, for example RSS 2 or Atom.
@@ -176,6 +187,26 @@ public class Feed extends FeedFile {
         preferences = new FeedPreferences(0, true, FeedPreferences.AutoDeleteAction.GLOBAL, VolumeAdaptionSetting.OFF, username, password);
     }
 
+    /**
+     * Creates a copy of the feed and its preferences without its items, e.g. to modify a feed that is
+     * shared with other callers.
+     */
+    public Feed copy() {
+        Feed copy = new Feed(id, lastUpdate, feedTitle, customTitle, link, description, paymentLink, author,
+                language, type, feedIdentifier, imageUrl, getFile_url(), getDownload_url(), isDownloaded(), paged,
+                nextPageLink, null, sortOrder, lastUpdateFailed);
+        if (itemfilter != null) {
+            copy.setItemFilter(itemfilter.getValues());
+        }
+        copy.setEtag(etag);
+        copy.setContentHash(contentHash);
+        copy.setPageNr(pageNr);
+        if (preferences != null) {
+            copy.setPreferences(preferences.copy());
+        }
+        return copy;
+    }
+
     /**
      * Returns the item at the specified index.
      *
@@ -382,6 +413,22 @@ public class Feed extends FeedFile {
         this.lastUpdate = lastModified;
     }
 
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getFeedIdentifier() {
         return feedIdentifier;
     }
@@ -8,6 +8,8 @@ import androidx.annotation.Nullable;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.HashSet;
@@ -38,6 +40,11 @@ public class FeedItem extends FeedComponent implements Serializable {
      * The description of a feeditem.
      */
     private String description;
+    /**
+     * Hash of the description that is stored in the database, or 0 if it is not known.
+     * Descriptions are not loaded with the item, so the hash tells whether a refresh changed the description.
+     */
+    private long descriptionHash;
 
     private String link;
     private Date pubDate;
@@ -81,6 +88,23 @@ public class FeedItem extends FeedComponent implements Serializable {
      */
     private final Set<String> tags = new HashSet<>();
 
+    /**
+     * Flags for {@link #isChanged(int)}.
+     */
+    public static final int CHANGED_ATTRIBUTES = 1;
+    public static final int CHANGED_DESCRIPTION = 1 << 1;
+    public static final int CHANGED_MEDIA = 1 << 2;
+    public static final int CHANGED_CHAPTERS = 1 << 3;
+    private static final int CHANGED_ALL = CHANGED_ATTRIBUTES | CHANGED_DESCRIPTION
+            | CHANGED_MEDIA | CHANGED_CHAPTERS;
+
+    /**
+     * Parts of this item that were modified by {@link #updateFromOther(FeedItem)} since
+     * {@link #startChangeTracking()} was called. If change tracking is not active,
+     * everything is considered to be changed.
+     */
+    private transient int changedFields = CHANGED_ALL;
+
     public FeedItem() {
         this.state = UNPLAYED;
         this.hasChapters = false;
@@ -145,6 +169,7 @@ public class FeedItem extends FeedComponent implements Serializable {
         int indexItemIdentifier = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_ITEM_IDENTIFIER);
         int indexAutoDownload = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_AUTO_DOWNLOAD);
         int indexImageUrl = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_IMAGE_URL);
+        int indexDescriptionHash = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_DESCRIPTION_HASH);
 
         long id = cursor.getInt(indexId);
         String title = cursor.getString(indexTitle);
@@ -158,46 +183,89 @@ public class FeedItem extends FeedComponent implements Serializable {
         long autoDownload = cursor.getLong(indexAutoDownload);
         String imageUrl = cursor.getString(indexImageUrl);
 
-        return new FeedItem(id, title, link, pubDate, paymentLink, feedId,
+        FeedItem item = new FeedItem(id, title, link, pubDate, paymentLink, feedId,
                 hasChapters, imageUrl, state, itemIdentifier, autoDownload);
+        item.setDescriptionHash(cursor.getLong(indexDescriptionHash));
+        return item;
     }
 
     public void updateFromOther(FeedItem other) {
         super.updateFromOther(other);
-        if (other.imageUrl != null) {
+        if (other.imageUrl != null && !other.imageUrl.equals(imageUrl)) {
             this.imageUrl = other.imageUrl;
+            changedFields |= CHANGED_ATTRIBUTES;
         }
-        if (other.title != null) {
+        if (other.title != null && !other.title.equals(title)) {
             title = other.title;
+            changedFields |= CHANGED_ATTRIBUTES;
         }
-        if (other.getDescription() != null) {
+        if (other.getDescription() != null && !other.getDescription().equals(description)
+                && (description != null || descriptionHash != hashDescription(other.getDescription()))) {
+            // If the description was not loaded and its hash is not known,
+            // it is compared by the database when saving
             description = other.getDescription();
+            changedFields |= CHANGED_DESCRIPTION;
         }
-        if (other.link != null) {
+        if (other.link != null && !other.link.equals(link)) {
             link = other.link;
+            changedFields |= CHANGED_ATTRIBUTES;
         }
         if (other.pubDate != null && !other.pubDate.equals(pubDate)) {
             pubDate = other.pubDate;
+            changedFields |= CHANGED_ATTRIBUTES;
         }
         if (other.media != null) {
             if (media == null) {
                 setMedia(other.media);
                 // reset to new if feed item did link to a file before
                 setNew();
+                changedFields |= CHANGED_ATTRIBUTES | CHANGED_MEDIA;
             } else if (media.compareWithOther(other.media)) {
                 media.updateFromOther(other.media);
+                changedFields |= CHANGED_MEDIA;
             }
         }
-        if (other.paymentLink != null) {
+        if (other.paymentLink != null && !other.paymentLink.equals(paymentLink)) {
             paymentLink = other.paymentLink;
+            changedFields |= CHANGED_ATTRIBUTES;
         }
         if (other.chapters != null) {
             if (!hasChapters) {
                 chapters = other.chapters;
+                changedFields |= CHANGED_ATTRIBUTES | CHANGED_CHAPTERS;
             }
         }
     }
 
+    /**
+     * Starts recording which parts of this item are changed by {@link #updateFromOther(FeedItem)}.
+     * Must only be called on items that are in sync with the database.
+     */
+    public void startChangeTracking() {
+        changedFields = 0;
+    }
+
+    /**
+     * Stops change tracking. Afterwards, all parts of the item are considered to be changed.
+     */
+    public void stopChangeTracking() {
+        changedFields = CHANGED_ALL;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Deserialization does not run field initializers, and a copy is not known to be in sync
+        changedFields = CHANGED_ALL;
+    }
+
+    /**
+     * @param fields Combination of the CHANGED_* flags.
+     * @return true if any of the given parts might differ from the database.
+     */
+    public boolean isChanged(int fields) {
+        return (changedFields & fields) != 0;
+    }
+
     /**
      * Returns the value that uniquely identifies this FeedItem. If the
      * itemIdentifier attribute is not null, it will be returned. Else it will
@@ -302,6 +370,30 @@ public class FeedItem extends FeedComponent implements Serializable {
         return (media != null && media.isInProgress());
     }
 
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public long getDescriptionHash() {
+        return descriptionHash;
+    }
+
+    public void setDescriptionHash(long descriptionHash) {
+        this.descriptionHash = descriptionHash;
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of a description. The result is never 0, which marks an unknown hash.
+     */
+    public static long hashDescription(@NonNull String description) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < description.length(); i++) {
+            hash ^= description.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
     /**
      * Updates this item's description property if the given argument is longer than the already stored description
      * @param newDescription The new item description, content:encoded, itunes:description, etc.
@@ -49,6 +49,7 @@ public class FeedMedia extends FeedFile implements Playable {
     private long lastPlayedTime; // Last time this media was played (in ms)
     private int played_duration; // How many ms of this file have been played
     private long size; // File size in Byte
+    private long downloadedSize; // Size of the downloaded file in Byte
     private String mime_type;
     @Nullable private volatile FeedItem item;
     private Date playbackCompletionDate;
@@ -108,6 +109,7 @@ public class FeedMedia extends FeedFile implements Playable {
         int indexDownloaded = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_DOWNLOADED);
         int indexPlayedDuration = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_PLAYED_DURATION);
         int indexLastPlayedTime = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_LAST_PLAYED_TIME);
+        int indexDownloadedSize = cursor.getColumnIndexOrThrow(PodDBAdapter.KEY_DOWNLOADED_SIZE);
 
         long mediaId = cursor.getLong(indexId);
         Date playbackCompletionDate = null;
@@ -129,7 +131,7 @@ public class FeedMedia extends FeedFile implements Playable {
                 break;
         }
 
-        return new FeedMedia(
+        FeedMedia media = new FeedMedia(
                 mediaId,
                 null,
                 cursor.getInt(indexDuration),
@@ -144,6 +146,8 @@ public class FeedMedia extends FeedFile implements Playable {
                 hasEmbeddedPicture,
                 cursor.getLong(indexLastPlayedTime)
         );
+        media.downloadedSize = cursor.getLong(indexDownloadedSize);
+        return media;
     }
 
 
@@ -291,6 +295,18 @@ public class FeedMedia extends FeedFile implements Playable {
         return null;
     }
 
+    /**
+     * Size of the downloaded file. Unlike {@link #getSize()}, this is not overwritten by the
+     * enclosure length that the feed announces. Only valid if the media is downloaded.
+     */
+    public long getDownloadedSize() {
+        return downloadedSize;
+    }
+
+    public void setDownloadedSize(long downloadedSize) {
+        this.downloadedSize = downloadedSize;
+    }
+
     /**
      * Indicates we asked the service what the size was, but didn't
      * get a valid answer and we shoudln't check using the network again.
@@ -369,6 +385,7 @@ public class FeedMedia extends FeedFile implements Playable {
         dest.writeLong((playbackCompletionDate != null) ? playbackCompletionDate.getTime() : 0);
         dest.writeInt(played_duration);
         dest.writeLong(lastPlayedTime);
+        dest.writeLong(downloadedSize);
     }
 
     @Override
@@ -521,6 +538,7 @@ public class FeedMedia extends FeedFile implements Playable {
             FeedMedia result = new FeedMedia(id, null, in.readInt(), in.readInt(), in.readLong(), in.readString(), in.readString(),
                     in.readString(), in.readByte() != 0, new Date(in.readLong()), in.readInt(), in.readLong());
             result.itemID = itemID;
+            result.downloadedSize = in.readLong();
             return result;
         }
 
@@ -550,6 +568,9 @@ public class FeedMedia extends FeedFile implements Playable {
         if(item != null && downloaded && item.isNew()) {
             item.setPlayed(false);
         }
+        if (!downloaded) {
+            downloadedSize = 0;
+        }
     }
 
     @Override
@@ -68,6 +68,12 @@ public class FeedPreferences implements Serializable {
         this.tags.addAll(tags);
     }
 
+    public FeedPreferences copy() {
+        return new FeedPreferences(feedID, autoDownload, keepUpdated, autoDeleteAction, volumeAdaptionSetting,
+                username, password, filter, feedPlaybackSpeed, feedSkipIntro, feedSkipEnding,
+                showEpisodeNotification, tags);
+    }
+
     public static FeedPreferences fromCursor(Cursor cursor) {
         int indexId = cursor.getColumnIndex(PodDBAdapter.KEY_ID);
         int indexAutoDownload = cursor.getColumnIndex(PodDBAdapter.KEY_AUTO_DOWNLOAD);
@@ -24,6 +24,8 @@ public class UsageStatistics {
     private static final float MOVING_AVERAGE_BIAS_THRESHOLD = 0.1f;
     private static final long ASK_AGAIN_LATER_DELAY = 1000 * 3600 * 24 * 10; // 10 days
     private static final String SUFFIX_HIDDEN_UNTIL = "_hiddenUntil";
+    private static final String PREF_FEED_REFRESHES = "feedRefreshes";
+    private static final String PREF_FEED_REFRESHES_NOT_MODIFIED = "feedRefreshesNotModified";
     private static SharedPreferences prefs;
 
     public static final StatsAction ACTION_STREAM = new StatsAction("downloadVsStream", 0);
@@ -61,6 +63,35 @@ public class UsageStatistics {
                 .apply();
     }
 
+    /**
+     * Counts a completed feed refresh.
+     *
+     * @param notModified true if the server answered with "304 Not Modified" or the feed content did not change
+     */
+    public static synchronized void logFeedRefresh(boolean notModified) {
+        SharedPreferences.Editor editor = prefs.edit()
+                .putInt(PREF_FEED_REFRESHES, getFeedRefreshes() + 1);
+        if (notModified) {
+            editor.putInt(PREF_FEED_REFRESHES_NOT_MODIFIED, getFeedRefreshesNotModified() + 1);
+        }
+        editor.apply();
+    }
+
+    public static int getFeedRefreshes() {
+        return prefs.getInt(PREF_FEED_REFRESHES, 0);
+    }
+
+    public static int getFeedRefreshesNotModified() {
+        return prefs.getInt(PREF_FEED_REFRESHES_NOT_MODIFIED, 0);
+    }
+
+    public static void resetFeedRefreshes() {
+        prefs.edit()
+                .remove(PREF_FEED_REFRESHES)
+                .remove(PREF_FEED_REFRESHES_NOT_MODIFIED)
+                .apply();
+    }
+
     public static final class StatsAction {
         public final String type;
         public final int value;
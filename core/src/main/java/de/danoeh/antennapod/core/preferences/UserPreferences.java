@@ -101,6 +101,7 @@ public class UserPreferences {
     public static final String PREF_EPISODE_CLEANUP = "prefEpisodeCleanup";
     public static final String PREF_PARALLEL_DOWNLOADS = "prefParallelDownloads";
     public static final String PREF_EPISODE_CACHE_SIZE = "prefEpisodeCacheSize";
+    public static final String PREF_EPISODE_CACHE_STORAGE = "prefEpisodeCacheStorage";
     public static final String PREF_ENABLE_AUTODL = "prefEnableAutoDl";
     public static final String PREF_ENABLE_AUTODL_ON_BATTERY = "prefEnableAutoDownloadOnBattery";
     public static final String PREF_ENABLE_AUTODL_WIFI_FILTER = "prefEnableAutoDownloadWifiFilter";
@@ -599,6 +600,15 @@ public class UserPreferences {
         return readEpisodeCacheSizeInternal(prefs.getString(PREF_EPISODE_CACHE_SIZE, "20"));
     }
 
+    /**
+     * Returns the maximum total size of the downloaded episodes in bytes, or 0 if the episode cache
+     * is limited by the number of episodes instead.
+     */
+    public static long getEpisodeCacheStorageLimit() {
+        long megabytes = Long.parseLong(prefs.getString(PREF_EPISODE_CACHE_STORAGE, "-1"));
+        return megabytes > 0 ? megabytes * 1024 * 1024 : 0;
+    }
+
     public static boolean isEnableAutodownload() {
         return prefs.getBoolean(PREF_ENABLE_AUTODL, false);
     }
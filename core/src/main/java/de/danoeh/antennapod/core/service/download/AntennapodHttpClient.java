@@ -3,16 +3,19 @@ package de.danoeh.antennapod.core.service.download;
 import android.text.TextUtils;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.BasicAuthorizationInterceptor;
 import de.danoeh.antennapod.core.service.UserAgentInterceptor;
 import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.net.ssl.SslClientSetup;
 import okhttp3.Cache;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
 import okhttp3.HttpUrl;
 import okhttp3.JavaNetCookieJar;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.internal.http.StatusLine;
@@ -23,6 +26,9 @@ import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -33,9 +39,16 @@ public class AntennapodHttpClient {
     private static final int CONNECTION_TIMEOUT = 10000;
     private static final int READ_TIMEOUT = 30000;
     private static final int MAX_CONNECTIONS = 8;
+    private static final int CONNECTION_KEEP_ALIVE_MINUTES = 5;
     private static File cacheDirectory;
 
     private static volatile OkHttpClient httpClient = null;
+    private static OkHttpClient http1Client = null;
+    /**
+     * Hosts that failed with HTTP/2 protocol errors and are only contacted with HTTP/1.1.
+     */
+    private static final Set<String> http1Hosts = new HashSet<>();
+    private static final ConnectionCounter connectionCounter = new ConnectionCounter();
 
     private AntennapodHttpClient() {
 
@@ -51,8 +64,40 @@ public class AntennapodHttpClient {
         return httpClient;
     }
 
+    /**
+     * Returns the HttpClient for requests to the given host. It only uses HTTP/1.1
+     * if the host failed with HTTP/2 before.
+     */
+    public static synchronized OkHttpClient getHttpClient(@Nullable String host) {
+        if (host == null || !http1Hosts.contains(host)) {
+            return getHttpClient();
+        }
+        if (http1Client == null) {
+            http1Client = getHttpClient().newBuilder()
+                    .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                    .build();
+        }
+        return http1Client;
+    }
+
+    /**
+     * Makes all further requests to the given host use HTTP/1.1.
+     */
+    public static synchronized void setHttp1Only(@NonNull String host) {
+        Log.d(TAG, "Using HTTP/1.1 for " + host);
+        http1Hosts.add(host);
+    }
+
     public static synchronized void reinit() {
         httpClient = newBuilder().build();
+        http1Client = null;
+    }
+
+    /**
+     * Counts the connections of the feed requests of all clients created by this class.
+     */
+    public static ConnectionCounter getConnectionCounter() {
+        return connectionCounter;
     }
 
     /**
@@ -110,6 +155,10 @@ public class AntennapodHttpClient {
         builder.writeTimeout(READ_TIMEOUT, TimeUnit.MILLISECONDS);
         builder.cache(new Cache(cacheDirectory, 20L * 1000000)); // 20MB
 
+        // keep enough idle connections for feed refreshes that request several feeds from the same host
+        builder.connectionPool(new ConnectionPool(MAX_CONNECTIONS, CONNECTION_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES));
+        builder.eventListenerFactory(connectionCounter);
+
         // configure redirects
         builder.followRedirects(true);
         builder.followSslRedirects(true);
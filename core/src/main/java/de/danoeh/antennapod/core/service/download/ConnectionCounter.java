@@ -0,0 +1,86 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+
+/**
+ * Counts how many feed requests reused a pooled connection and how many had to open a new
+ * connection and do a TLS handshake. Other requests, like media and images, share the clients
+ * but are not counted. Feed requests are recognized by the {@link DownloadRequest} in their tag.
+ */
+public class ConnectionCounter implements EventListener.Factory {
+    private final AtomicInteger newConnections = new AtomicInteger(0);
+    private final AtomicInteger reusedConnections = new AtomicInteger(0);
+    private final AtomicInteger handshakes = new AtomicInteger(0);
+
+    @Override
+    public EventListener create(@NonNull Call call) {
+        if (!isFeedRequest(call)) {
+            return EventListener.NONE;
+        }
+        return new EventListener() {
+            private boolean connecting = false;
+
+            @Override
+            public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                                     @NonNull Proxy proxy) {
+                connecting = true;
+            }
+
+            @Override
+            public void secureConnectStart(@NonNull Call call) {
+                handshakes.incrementAndGet();
+            }
+
+            @Override
+            public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+                if (connecting) {
+                    newConnections.incrementAndGet();
+                } else {
+                    reusedConnections.incrementAndGet();
+                }
+                connecting = false;
+            }
+        };
+    }
+
+    private static boolean isFeedRequest(@NonNull Call call) {
+        Object tag = call.request().tag();
+        return tag instanceof DownloadRequest
+                && ((DownloadRequest) tag).getFeedfileType() == Feed.FEEDFILETYPE_FEED;
+    }
+
+    public void reset() {
+        newConnections.set(0);
+        reusedConnections.set(0);
+        handshakes.set(0);
+    }
+
+    public int getNewConnections() {
+        return newConnections.get();
+    }
+
+    public int getReusedConnections() {
+        return reusedConnections.get();
+    }
+
+    public int getHandshakes() {
+        return handshakes.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "connections: new=" + getNewConnections()
+                + ", reused=" + getReusedConnections()
+                + ", handshakes=" + getHandshakes();
+    }
+}
@@ -10,6 +10,7 @@ import androidx.annotation.Nullable;
 
 import de.danoeh.antennapod.core.feed.FeedFile;
 import de.danoeh.antennapod.core.util.URLChecker;
+import okhttp3.HttpUrl;
 
 public class DownloadRequest implements Parcelable {
 
@@ -19,6 +20,8 @@ public class DownloadRequest implements Parcelable {
     private String username;
     private String password;
     private String lastModified;
+    private String etag;
+    private String contentHash;
     private final boolean deleteOnFailure;
     private final long feedfileId;
     private final int feedfileType;
@@ -42,12 +45,16 @@ public class DownloadRequest implements Parcelable {
         this(builder.destination, builder.source, builder.title, builder.feedfileId, builder.feedfileType,
              builder.lastModified, builder.deleteOnFailure, builder.username, builder.password, false,
              builder.arguments != null ? builder.arguments : new Bundle(), builder.initiatedByUser);
+        this.etag = builder.etag;
+        this.contentHash = builder.contentHash;
     }
 
     private DownloadRequest(Parcel in) {
         this(in.readString(), in.readString(), in.readString(), in.readLong(), in.readInt(), in.readString(),
              in.readByte() > 0, nullIfEmpty(in.readString()), nullIfEmpty(in.readString()), in.readByte() > 0,
              in.readBundle(), in.readByte() > 0);
+        this.contentHash = nullIfEmpty(in.readString());
+        this.etag = nullIfEmpty(in.readString());
     }
 
     private DownloadRequest(String destination, String source, String title, long feedfileId, int feedfileType,
@@ -91,6 +98,8 @@ public class DownloadRequest implements Parcelable {
         dest.writeByte((mediaEnqueued) ? (byte) 1 : 0);
         dest.writeBundle(arguments);
         dest.writeByte(initiatedByUser ? (byte) 1 : 0);
+        dest.writeString(nonNullString(contentHash));
+        dest.writeString(nonNullString(etag));
     }
 
     private static String nonNullString(String str) {
@@ -121,6 +130,10 @@ public class DownloadRequest implements Parcelable {
 
         if (lastModified != null ? !lastModified.equals(that.lastModified) : that.lastModified != null)
             return false;
+        if (etag != null ? !etag.equals(that.etag) : that.etag != null)
+            return false;
+        if (contentHash != null ? !contentHash.equals(that.contentHash) : that.contentHash != null)
+            return false;
         if (deleteOnFailure != that.deleteOnFailure) return false;
         if (feedfileId != that.feedfileId) return false;
         if (feedfileType != that.feedfileType) return false;
@@ -149,6 +162,8 @@ public class DownloadRequest implements Parcelable {
         result = 31 * result + (username != null ? username.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
         result = 31 * result + (lastModified != null ? lastModified.hashCode() : 0);
+        result = 31 * result + (etag != null ? etag.hashCode() : 0);
+        result = 31 * result + (contentHash != null ? contentHash.hashCode() : 0);
         result = 31 * result + (deleteOnFailure ? 1 : 0);
         result = 31 * result + (int) (feedfileId ^ (feedfileId >>> 32));
         result = 31 * result + feedfileType;
@@ -173,6 +188,15 @@ public class DownloadRequest implements Parcelable {
         return title;
     }
 
+    /**
+     * Host of the source URL, or an empty string if the URL is not a valid HTTP URL.
+     */
+    @NonNull
+    public String getHost() {
+        HttpUrl url = HttpUrl.parse(source);
+        return url != null ? url.host() : "";
+    }
+
     public long getFeedfileId() {
         return feedfileId;
     }
@@ -235,6 +259,30 @@ public class DownloadRequest implements Parcelable {
         return lastModified;
     }
 
+    public DownloadRequest setEtag(@Nullable String etag) {
+        this.etag = etag;
+        return this;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Digest of the downloaded file. Before the download, this is the digest of the
+     * previously downloaded version of the file.
+     */
+    public DownloadRequest setContentHash(@Nullable String contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    @Nullable
+    public String getContentHash() {
+        return contentHash;
+    }
+
     public boolean isDeleteOnFailure() {
         return deleteOnFailure;
     }
@@ -266,6 +314,8 @@ public class DownloadRequest implements Parcelable {
         private String username;
         private String password;
         private String lastModified;
+        private String etag;
+        private String contentHash;
         private boolean deleteOnFailure = false;
         private final long feedfileId;
         private final int feedfileType;
@@ -291,6 +341,16 @@ public class DownloadRequest implements Parcelable {
             return this;
         }
 
+        public Builder etag(String etag) {
+            this.etag = etag;
+            return this;
+        }
+
+        public Builder contentHash(String contentHash) {
+            this.contentHash = contentHash;
+            return this;
+        }
+
         public Builder withAuthentication(String username, String password) {
             this.username = username;
             this.password = password;
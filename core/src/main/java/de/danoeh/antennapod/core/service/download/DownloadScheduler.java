@@ -0,0 +1,263 @@
+package de.danoeh.antennapod.core.service.download;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import de.danoeh.antennapod.core.feed.Feed;
+
+/**
+ * Decides which of the waiting downloads runs next. Waiting downloads are kept in lanes:
+ * feed refreshes run first, no matter who started them, then media downloads that the user started
+ * and then automatic downloads.
+ * Only a few connections to the same host are open at the same time. The number of downloads that run
+ * at the same time is reduced when that does not make the downloads faster.
+ */
+public class DownloadScheduler {
+    private static final String TAG = "DownloadScheduler";
+
+    public static final int LANE_FEED_REFRESH = 0;
+    public static final int LANE_USER = 1;
+    public static final int LANE_AUTO_DOWNLOAD = 2;
+    private static final int NUM_LANES = 3;
+
+    /**
+     * Maximum number of connections to the same host. A download in segments uses a connection per segment.
+     */
+    private static final int MAX_DOWNLOADS_PER_HOST = 3;
+    /**
+     * Relative change of the throughput that is considered to be an effect of changing the concurrency.
+     */
+    private static final double THROUGHPUT_TOLERANCE = 0.1;
+
+    private final ExecutorService executor;
+    private final BlockingQueue<Future<Downloader>> completed = new LinkedBlockingQueue<>();
+    private final List<Deque<Downloader>> lanes = new ArrayList<>(NUM_LANES);
+    private final Map<Downloader, Long> running = new HashMap<>();
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+    private final Map<Downloader, Integer> additionalConnections = new HashMap<>();
+    private final int maxConcurrency;
+    private int concurrency;
+    private int direction = 1;
+    private boolean shutdown;
+
+    private long completedBytes;
+    private long lastSampleTime;
+    private long lastSampleBytes;
+    private double lastThroughput;
+
+    /**
+     * @param maxConcurrency Maximum number of downloads that run at the same time.
+     */
+    public DownloadScheduler(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.concurrency = this.maxConcurrency;
+        for (int i = 0; i < NUM_LANES; i++) {
+            lanes.add(new ArrayDeque<>());
+        }
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "DownloadThread");
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    public static int getLane(@NonNull DownloadRequest request) {
+        // Feed refreshes are short, so they do not wait behind media downloads, even when the user started them
+        if (request.getFeedfileType() == Feed.FEEDFILETYPE_FEED) {
+            return LANE_FEED_REFRESH;
+        } else if (request.isInitiatedByUser()) {
+            return LANE_USER;
+        } else {
+            return LANE_AUTO_DOWNLOAD;
+        }
+    }
+
+    public synchronized void submit(@NonNull Downloader downloader) {
+        lanes.get(getLane(downloader.getDownloadRequest())).add(downloader);
+        dispatch();
+    }
+
+    /**
+     * Waits for the next download to finish.
+     */
+    public Future<Downloader> take() throws InterruptedException {
+        return completed.take();
+    }
+
+    /**
+     * Number of downloads in the given lane that have not been started yet.
+     */
+    public synchronized int getQueuedCount(int lane) {
+        return lanes.get(lane).size();
+    }
+
+    /**
+     * Starts the downloads that were cancelled while they were waiting, so that they finish right away.
+     */
+    public synchronized void startCancelled() {
+        dispatch();
+    }
+
+    /**
+     * Grants a running download connections to its host in addition to the one it already uses, as far as
+     * the limit of the host allows. The connections are released when the download finishes.
+     *
+     * @return The number of granted connections, at most the requested number.
+     */
+    synchronized int acquireConnections(@NonNull Downloader downloader, int count) {
+        String host = downloader.getDownloadRequest().getHost();
+        Integer open = runningPerHost.get(host);
+        int granted = Math.max(0, Math.min(count, MAX_DOWNLOADS_PER_HOST - (open == null ? 0 : open)));
+        if (granted > 0) {
+            addConnections(host, granted);
+            Integer additional = additionalConnections.get(downloader);
+            additionalConnections.put(downloader, additional == null ? granted : additional + granted);
+        }
+        return granted;
+    }
+
+    @VisibleForTesting
+    synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Lets the running downloads finish, but does not start any other downloads.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        executor.shutdown();
+    }
+
+    /**
+     * Measures the throughput since the last call and changes the number of downloads that run at
+     * the same time, one step at a time. A step is repeated as long as it makes the downloads faster
+     * and undone when it makes them slower. Must be called in regular intervals.
+     */
+    public synchronized void adjustConcurrency() {
+        long now = System.currentTimeMillis();
+        long bytes = completedBytes;
+        for (Map.Entry<Downloader, Long> entry : running.entrySet()) {
+            bytes += entry.getKey().getDownloadRequest().getSoFar() - entry.getValue();
+        }
+        if (running.isEmpty()) {
+            lastSampleTime = 0;
+            lastThroughput = 0;
+        } else if (lastSampleTime > 0 && now > lastSampleTime) {
+            onThroughputMeasured(1000.0 * (bytes - lastSampleBytes) / (now - lastSampleTime));
+        }
+        lastSampleTime = now;
+        lastSampleBytes = bytes;
+    }
+
+    @VisibleForTesting
+    synchronized void onThroughputMeasured(double throughput) {
+        boolean saturated = running.size() >= concurrency && hasQueuedDownloads();
+        if (saturated && lastThroughput > 0) {
+            if (throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+                direction = -direction;
+                changeConcurrency(throughput);
+            } else if (throughput > lastThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+                changeConcurrency(throughput);
+            }
+        }
+        lastThroughput = throughput;
+    }
+
+    private void changeConcurrency(double throughput) {
+        int newConcurrency = Math.max(1, Math.min(maxConcurrency, concurrency + direction));
+        if (newConcurrency != concurrency) {
+            Log.d(TAG, "Throughput " + (long) throughput + " B/s, running " + newConcurrency + " downloads");
+            concurrency = newConcurrency;
+            dispatch();
+        }
+    }
+
+    private boolean hasQueuedDownloads() {
+        for (Deque<Downloader> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts waiting downloads in the order of their lanes until the concurrency is reached.
+     * Cancelled downloads are started right away because they finish immediately.
+     */
+    private void dispatch() {
+        if (shutdown) {
+            // The executor would reject the downloads, and onFinished must not throw
+            return;
+        }
+        for (Deque<Downloader> lane : lanes) {
+            Iterator<Downloader> iterator = lane.iterator();
+            while (iterator.hasNext()) {
+                Downloader downloader = iterator.next();
+                if (downloader.cancelled) {
+                    iterator.remove();
+                    start(downloader);
+                } else if (running.size() < concurrency && canStartOnHost(downloader)) {
+                    iterator.remove();
+                    start(downloader);
+                }
+            }
+        }
+    }
+
+    private boolean canStartOnHost(Downloader downloader) {
+        Integer count = runningPerHost.get(downloader.getDownloadRequest().getHost());
+        return count == null || count < MAX_DOWNLOADS_PER_HOST;
+    }
+
+    private void start(Downloader downloader) {
+        running.put(downloader, downloader.getDownloadRequest().getSoFar());
+        addConnections(downloader.getDownloadRequest().getHost(), 1);
+        downloader.scheduler = this;
+
+        executor.execute(new FutureTask<Downloader>(downloader) {
+            @Override
+            protected void done() {
+                onFinished(downloader, this);
+            }
+        });
+    }
+
+    private synchronized void onFinished(Downloader downloader, Future<Downloader> future) {
+        Long startedAt = running.remove(downloader);
+        if (startedAt != null) {
+            completedBytes += downloader.getDownloadRequest().getSoFar() - startedAt;
+        }
+        Integer additional = additionalConnections.remove(downloader);
+        addConnections(downloader.getDownloadRequest().getHost(), -1 - (additional == null ? 0 : additional));
+        completed.add(future);
+        dispatch();
+    }
+
+    private void addConnections(String host, int delta) {
+        Integer count = runningPerHost.get(host);
+        int newCount = (count == null ? 0 : count) + delta;
+        if (newCount <= 0) {
+            runningPerHost.remove(host);
+        } else {
+            runningPerHost.put(host, newCount);
+        }
+    }
+}
@@ -28,11 +28,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -43,6 +42,7 @@ import de.danoeh.antennapod.core.event.FeedItemEvent;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.preferences.UsageStatistics;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.handler.FailedDownloadHandler;
 import de.danoeh.antennapod.core.service.download.handler.FeedSyncTask;
@@ -52,6 +52,7 @@ import de.danoeh.antennapod.core.storage.DBReader;
 import de.danoeh.antennapod.core.storage.DBTasks;
 import de.danoeh.antennapod.core.storage.DBWriter;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
+import de.danoeh.antennapod.core.storage.EpisodeCleanupAlgorithm;
 import de.danoeh.antennapod.core.util.DownloadError;
 
 /**
@@ -92,7 +93,28 @@ public class DownloadService extends Service {
      */
     private final List<DownloadStatus> reportQueue;
     private final ExecutorService syncExecutor;
-    private final CompletionService<Downloader> downloadExecutor;
+    /**
+     * Parses downloaded feeds in parallel. Only storing them in the database goes through syncExecutor.
+     */
+    private final ExecutorService parserExecutor;
+    private static final long PARSER_SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private final PipelineStageCounter parserStageCounter = new PipelineStageCounter("parse");
+    private final PipelineStageCounter syncStageCounter = new PipelineStageCounter("sync");
+
+    /**
+     * Maximum number of parsed feeds that are written to the database in one transaction.
+     */
+    private static final int GROUP_COMMIT_MAX_FEEDS = 20;
+    /**
+     * Time to wait for more parsed feeds before writing a group to the database.
+     */
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = 1000;
+    /**
+     * Parsed feeds that are waiting to be written to the database. Only accessed on syncExecutor.
+     */
+    private final List<PendingFeedSync> pendingFeedSyncs = new ArrayList<>();
+    private ScheduledFuture<?> groupCommitFuture;
+    private final DownloadScheduler downloadScheduler;
     private final DownloadRequester requester;
     private DownloadServiceNotification notificationManager;
     private final NewEpisodesNotification newEpisodesNotification;
@@ -117,6 +139,8 @@ public class DownloadService extends Service {
     private NotificationUpdater notificationUpdater;
     private ScheduledFuture<?> notificationUpdaterFuture;
     private ScheduledFuture<?> downloadPostFuture;
+    private ScheduledFuture<?> concurrencyFuture;
+    private static final long CONCURRENCY_ADJUST_INTERVAL_SECONDS = 5;
     private static final int SCHED_EX_POOL_SIZE = 1;
     private final ScheduledThreadPoolExecutor schedExecutor;
     private static DownloaderFactory downloaderFactory = new DefaultDownloaderFactory();
@@ -144,16 +168,16 @@ public class DownloadService extends Service {
         // Must be the first runnable in syncExecutor
         syncExecutor.execute(newEpisodesNotification::loadCountersBeforeRefresh);
 
+        int parserThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        Log.d(TAG, "parser threads: " + parserThreads);
+        parserExecutor = Executors.newFixedThreadPool(parserThreads, r -> {
+            Thread t = new Thread(r, "FeedParserThread");
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
         Log.d(TAG, "parallel downloads: " + UserPreferences.getParallelDownloads());
-        downloadExecutor = new ExecutorCompletionService<>(
-                Executors.newFixedThreadPool(UserPreferences.getParallelDownloads(),
-                        r -> {
-                            Thread t = new Thread(r, "DownloadThread");
-                            t.setPriority(Thread.MIN_PRIORITY);
-                            return t;
-                        }
-                )
-        );
+        downloadScheduler = new DownloadScheduler(UserPreferences.getParallelDownloads());
         schedExecutor = new ScheduledThreadPoolExecutor(SCHED_EX_POOL_SIZE,
                 r -> {
                     Thread t = new Thread(r, "DownloadSchedExecutorThread");
@@ -182,6 +206,7 @@ public class DownloadService extends Service {
     @Override
     public void onCreate() {
         Log.d(TAG, "Service started");
+        AntennapodHttpClient.getConnectionCounter().reset();
         isRunning = true;
         handler = new Handler(Looper.getMainLooper());
         notificationManager = new DownloadServiceNotification(this);
@@ -192,6 +217,8 @@ public class DownloadService extends Service {
         registerReceiver(cancelDownloadReceiver, cancelDownloadReceiverFilter);
 
         downloadCompletionThread.start();
+        concurrencyFuture = schedExecutor.scheduleAtFixedRate(downloadScheduler::adjustConcurrency,
+                CONCURRENCY_ADJUST_INTERVAL_SECONDS, CONCURRENCY_ADJUST_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     @Override
@@ -219,8 +246,21 @@ public class DownloadService extends Service {
             e.printStackTrace();
         }
         cancelNotificationUpdater();
+        Log.d(TAG, "Feed pipeline statistics: " + parserStageCounter + "; " + syncStageCounter
+                + "; " + AntennapodHttpClient.getConnectionCounter());
+        // Parsed feeds are handed over to syncExecutor, so it must accept tasks until parsing is done
+        parserExecutor.shutdown();
+        try {
+            if (!parserExecutor.awaitTermination(PARSER_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.w(TAG, "Feeds are still being parsed, their results will be dropped");
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
         syncExecutor.shutdown();
+        concurrencyFuture.cancel(false);
         schedExecutor.shutdown();
+        downloadScheduler.shutdown();
         if (downloadPostFuture != null) {
             downloadPostFuture.cancel(true);
         }
@@ -242,10 +282,14 @@ public class DownloadService extends Service {
             Log.d(TAG, "downloadCompletionThread was started");
             while (!isInterrupted()) {
                 try {
-                    Downloader downloader = downloadExecutor.take().get();
+                    Downloader downloader = downloadScheduler.take().get();
                     Log.d(TAG, "Received 'Download Complete' - message.");
+                    logFeedRefresh(downloader.getResult());
 
-                    if (downloader.getResult().isSuccessful()) {
+                    if (downloader.getResult().isSuccessful()
+                            && downloader.getResult().getFeedfileType() == Feed.FEEDFILETYPE_FEED) {
+                        parseFeedDownload(downloader);
+                    } else if (downloader.getResult().isSuccessful()) {
                         syncExecutor.execute(() -> {
                             handleSuccessfulDownload(downloader);
                             removeDownload(downloader);
@@ -270,31 +314,144 @@ public class DownloadService extends Service {
         }
     };
 
+    private static void logFeedRefresh(DownloadStatus status) {
+        if (status.getFeedfileType() == Feed.FEEDFILETYPE_FEED
+                && (status.isSuccessful() || status.isNotModified())) {
+            UsageStatistics.logFeedRefresh(status.isNotModified());
+        }
+    }
+
+    /**
+     * Parses a downloaded feed on the parser pool and then hands it over to syncExecutor,
+     * so that only the database commit is serialized.
+     */
+    private void parseFeedDownload(Downloader downloader) {
+        final DownloadRequest request = downloader.getDownloadRequest();
+        final FeedSyncTask task = new FeedSyncTask(DownloadService.this, request, downloader.takeFeedContent());
+        final long parseQueuedAt = parserStageCounter.onQueued();
+        parserExecutor.execute(() -> {
+            long parseStartedAt = parserStageCounter.onStarted(parseQueuedAt);
+            boolean parsed = task.parse();
+            parserStageCounter.onFinished(parseStartedAt);
+
+            final long syncQueuedAt = syncStageCounter.onQueued();
+            Runnable syncTask;
+            if (parsed && isGroupCommitCandidate(request)) {
+                syncTask = () -> addToGroupCommit(new PendingFeedSync(downloader, task, syncQueuedAt));
+            } else {
+                syncTask = () -> {
+                    long syncStartedAt = syncStageCounter.onStarted(syncQueuedAt);
+                    Log.d(TAG, "Handling completed Feed Download");
+                    if (parsed) {
+                        task.sync();
+                        onFeedSynced(request, task);
+                    } else {
+                        DBWriter.setFeedLastUpdateFailed(request.getFeedfileId(), true);
+                        saveDownloadStatus(task.getDownloadStatus());
+                    }
+                    syncStageCounter.onFinished(syncStartedAt);
+                    Log.d(TAG, parserStageCounter + "; " + syncStageCounter);
+
+                    removeDownload(downloader);
+                    numberOfDownloads.decrementAndGet();
+                    stopServiceIfEverythingDoneAsync();
+                };
+            }
+            try {
+                syncExecutor.execute(syncTask);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "Service was shut down, dropping parsed feed " + request.getSource());
+            }
+        });
+    }
+
+    /**
+     * Background refreshes are written to the database in groups. Requests initiated by the user are
+     * stored immediately, and paged feeds are excluded because several pages of the same feed must not
+     * end up in the same group.
+     */
+    private static boolean isGroupCommitCandidate(DownloadRequest request) {
+        return !request.isInitiatedByUser()
+                && !request.getArguments().getBoolean(DownloadRequester.REQUEST_ARG_LOAD_ALL_PAGES);
+    }
+
+    /**
+     * Must be run on syncExecutor.
+     */
+    private void addToGroupCommit(PendingFeedSync pending) {
+        pendingFeedSyncs.add(pending);
+        if (pendingFeedSyncs.size() >= GROUP_COMMIT_MAX_FEEDS) {
+            commitPendingFeeds();
+        } else if (groupCommitFuture == null) {
+            groupCommitFuture = schedExecutor.schedule(() -> syncExecutor.execute(this::commitPendingFeeds),
+                    GROUP_COMMIT_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all pending parsed feeds to the database in one transaction. Must be run on syncExecutor.
+     */
+    private void commitPendingFeeds() {
+        if (groupCommitFuture != null) {
+            groupCommitFuture.cancel(false);
+            groupCommitFuture = null;
+        }
+        if (pendingFeedSyncs.isEmpty()) {
+            return;
+        }
+        List<PendingFeedSync> batch = new ArrayList<>(pendingFeedSyncs);
+        pendingFeedSyncs.clear();
+        Log.d(TAG, "Storing " + batch.size() + " feeds in one transaction");
+
+        long[] syncStartedAt = new long[batch.size()];
+        List<FeedSyncTask> tasks = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            syncStartedAt[i] = syncStageCounter.onStarted(batch.get(i).queuedAt);
+            tasks.add(batch.get(i).task);
+        }
+        FeedSyncTask.syncAll(DownloadService.this, tasks);
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingFeedSync pending = batch.get(i);
+            onFeedSynced(pending.downloader.getDownloadRequest(), pending.task);
+            syncStageCounter.onFinished(syncStartedAt[i]);
+            removeDownload(pending.downloader);
+            numberOfDownloads.decrementAndGet();
+        }
+        Log.d(TAG, parserStageCounter + "; " + syncStageCounter);
+        stopServiceIfEverythingDoneAsync();
+    }
+
+    private void onFeedSynced(DownloadRequest request, FeedSyncTask task) {
+        // we create a 'successful' download log if the feed's last refresh failed
+        List<DownloadStatus> log = DBReader.getFeedDownloadLog(request.getFeedfileId());
+        if (log.size() > 0 && !log.get(0).isSuccessful()) {
+            saveDownloadStatus(task.getDownloadStatus());
+        }
+        if (request.getFeedfileId() != 0 && !request.isInitiatedByUser()) {
+            // Was stored in the database before and not initiated manually
+            newEpisodesNotification.showIfNeeded(DownloadService.this, task.getSavedFeed());
+        }
+    }
+
+    private static class PendingFeedSync {
+        final Downloader downloader;
+        final FeedSyncTask task;
+        final long queuedAt;
+
+        PendingFeedSync(Downloader downloader, FeedSyncTask task, long queuedAt) {
+            this.downloader = downloader;
+            this.task = task;
+            this.queuedAt = queuedAt;
+        }
+    }
+
     private void handleSuccessfulDownload(Downloader downloader) {
         DownloadRequest request = downloader.getDownloadRequest();
         DownloadStatus status = downloader.getResult();
         final int type = status.getFeedfileType();
 
-        if (type == Feed.FEEDFILETYPE_FEED) {
-            Log.d(TAG, "Handling completed Feed Download");
-            FeedSyncTask task = new FeedSyncTask(DownloadService.this, request);
-            boolean success = task.run();
-
-            if (success) {
-                // we create a 'successful' download log if the feed's last refresh failed
-                List<DownloadStatus> log = DBReader.getFeedDownloadLog(request.getFeedfileId());
-                if (log.size() > 0 && !log.get(0).isSuccessful()) {
-                    saveDownloadStatus(task.getDownloadStatus());
-                }
-                if (request.getFeedfileId() != 0 && !request.isInitiatedByUser()) {
-                    // Was stored in the database before and not initiated manually
-                    newEpisodesNotification.showIfNeeded(DownloadService.this, task.getSavedFeed());
-                }
-            } else {
-                DBWriter.setFeedLastUpdateFailed(request.getFeedfileId(), true);
-                saveDownloadStatus(task.getDownloadStatus());
-            }
-        } else if (type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
+        if (type == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
             Log.d(TAG, "Handling completed FeedMedia Download");
             MediaDownloadedHandler handler = new MediaDownloadedHandler(DownloadService.this, status, request);
             handler.run();
@@ -313,7 +470,9 @@ public class DownloadService extends Service {
                     && Integer.parseInt(status.getReasonDetailed()) == 416) {
 
                 Log.d(TAG, "Requested invalid range, restarting download from the beginning");
-                FileUtils.deleteQuietly(new File(downloader.getDownloadRequest().getDestination()));
+                File destination = new File(downloader.getDownloadRequest().getDestination());
+                FileUtils.deleteQuietly(destination);
+                SegmentedDownload.deleteState(destination);
                 DownloadRequester.getInstance().download(DownloadService.this, downloader.getDownloadRequest());
             } else {
                 Log.e(TAG, "Download failed");
@@ -396,6 +555,7 @@ public class DownloadService extends Service {
                 } else {
                     Log.e(TAG, "Could not cancel download with url " + url);
                 }
+                downloadScheduler.startCancelled();
                 postDownloaders();
 
             } else if (TextUtils.equals(intent.getAction(), ACTION_CANCEL_ALL_DOWNLOADS)) {
@@ -403,6 +563,7 @@ public class DownloadService extends Service {
                     d.cancel();
                     Log.d(TAG, "Cancelled all downloads");
                 }
+                downloadScheduler.startCancelled();
                 postDownloaders();
             }
             stopServiceIfEverythingDone();
@@ -421,8 +582,11 @@ public class DownloadService extends Service {
                 + ", cleanupMedia=" + cleanupMedia);
 
         if (cleanupMedia) {
-            UserPreferences.getEpisodeCleanupAlgorithm()
-                    .makeRoomForEpisodes(getApplicationContext(), requests.size());
+            EpisodeCleanupAlgorithm cleanupAlgorithm = UserPreferences.getEpisodeCleanupAlgorithm();
+            cleanupAlgorithm.makeRoomForEpisodes(getApplicationContext(), requests.size());
+            if (UserPreferences.getEpisodeCacheStorageLimit() > 0) {
+                cleanupAlgorithm.makeRoomForBytes(getApplicationContext(), getAnnouncedSize(requests));
+            }
         }
 
         // #2448: First, add to-download items to the queue before actual download
@@ -440,6 +604,22 @@ public class DownloadService extends Service {
         }
     }
 
+    /**
+     * Returns the total size of the requested episodes that their feeds announced.
+     */
+    private static long getAnnouncedSize(@NonNull List<? extends DownloadRequest> requests) {
+        long size = 0;
+        for (DownloadRequest request : requests) {
+            if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA) {
+                FeedMedia media = DBReader.getFeedMedia(request.getFeedfileId());
+                if (media != null && media.getSize() > 0) {
+                    size += media.getSize();
+                }
+            }
+        }
+        return size;
+    }
+
     private List<? extends FeedItem> enqueueFeedItems(@NonNull List<? extends DownloadRequest> requests)
         throws Exception {
         List<FeedItem> feedItems = new ArrayList<>();
@@ -465,6 +645,7 @@ public class DownloadService extends Service {
         Downloader downloader = downloaderFactory.create(request);
         if (downloader != null) {
             numberOfDownloads.incrementAndGet();
+            downloader.setKeepFeedInMemory(true);
 
             if (request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA
                     && isEnqueued(request, itemsEnqueued)) {
@@ -472,7 +653,7 @@ public class DownloadService extends Service {
             }
             handler.post(() -> {
                 downloads.add(downloader);
-                downloadExecutor.submit(downloader);
+                downloadScheduler.submit(downloader);
                 postDownloaders();
             });
         }
@@ -628,11 +809,11 @@ public class DownloadService extends Service {
     }
 
     private void postDownloaders() {
-        new PostDownloaderTask(downloads).run();
+        new PostDownloaderTask(downloads, downloadScheduler).run();
 
         if (downloadPostFuture == null) {
             downloadPostFuture = schedExecutor.scheduleAtFixedRate(
-                    new PostDownloaderTask(downloads), 1, 1, TimeUnit.SECONDS);
+                    new PostDownloaderTask(downloads, downloadScheduler), 1, 1, TimeUnit.SECONDS);
         }
     }
 
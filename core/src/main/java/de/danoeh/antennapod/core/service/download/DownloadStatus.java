@@ -46,6 +46,7 @@ public class DownloadStatus {
 	// ------------------------------------ NOT STORED IN DB
     private boolean done;
 	private boolean cancelled;
+	private boolean notModified;
 
 	public DownloadStatus(@NonNull DownloadRequest request, DownloadError reason, boolean successful, boolean cancelled,
                           String reasonDetailed) {
@@ -100,7 +101,7 @@ public class DownloadStatus {
 				+ ", successful=" + successful + ", completionDate="
 				+ completionDate + ", feedfileId=" + feedfileId
 				+ ", feedfileType=" + feedfileType + ", done=" + done
-				+ ", cancelled=" + cancelled + "]";
+				+ ", cancelled=" + cancelled + ", notModified=" + notModified + "]";
 	}
 
     public long getId() {
@@ -145,6 +146,13 @@ public class DownloadStatus {
         return cancelled;
     }
 
+    /**
+     * True if the download was cancelled because the file did not change since the last download.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
     public void setSuccessful() {
         this.successful = true;
         this.reason = DownloadError.SUCCESS;
@@ -165,6 +173,11 @@ public class DownloadStatus {
         this.cancelled = true;
     }
 
+    public void setNotModified() {
+        setCancelled();
+        this.notModified = true;
+    }
+
     public void setId(long id) {
         this.id = id;
     }
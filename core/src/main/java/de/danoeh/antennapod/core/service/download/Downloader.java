@@ -3,6 +3,7 @@ package de.danoeh.antennapod.core.service.download;
 import android.content.Context;
 import android.net.wifi.WifiManager;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.util.concurrent.Callable;
 
@@ -24,6 +25,18 @@ public abstract class Downloader implements Callable<Downloader> {
     @NonNull
     final DownloadStatus result;
 
+    /**
+     * If true, downloaded feeds may be kept in memory instead of being written to the destination file.
+     */
+    boolean keepFeedInMemory;
+    @Nullable
+    byte[] feedContent;
+    /**
+     * The scheduler that runs the download, if any.
+     */
+    @Nullable
+    DownloadScheduler scheduler;
+
     Downloader(@NonNull DownloadRequest request) {
         super();
         this.request = request;
@@ -67,6 +80,32 @@ public abstract class Downloader implements Callable<Downloader> {
         return result;
     }
 
+    public void setKeepFeedInMemory(boolean keepFeedInMemory) {
+        this.keepFeedInMemory = keepFeedInMemory;
+    }
+
+    /**
+     * Asks for connections to the host of the request in addition to the one the download already uses.
+     * Downloads that do not run in a scheduler get all requested connections.
+     *
+     * @return The number of connections that may be opened, at most the requested number.
+     */
+    int acquireConnections(int count) {
+        return scheduler != null ? scheduler.acquireConnections(this, count) : count;
+    }
+
+    /**
+     * Returns the content of a downloaded feed that was kept in memory and releases it.
+     *
+     * @return The content or null if the feed was written to the destination file.
+     */
+    @Nullable
+    public byte[] takeFeedContent() {
+        byte[] content = feedContent;
+        feedContent = null;
+        return content;
+    }
+
     public boolean isFinished() {
         return finished;
     }
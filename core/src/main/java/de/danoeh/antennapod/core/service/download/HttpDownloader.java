@@ -8,6 +8,7 @@ import okhttp3.CacheControl;
 import org.apache.commons.io.IOUtils;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -17,19 +18,19 @@ import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.UnknownHostException;
-import java.util.Collections;
-import java.util.Date;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import de.danoeh.antennapod.core.R;
+import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.util.DateUtils;
 import de.danoeh.antennapod.core.util.DownloadError;
 import de.danoeh.antennapod.core.util.StorageUtils;
 import de.danoeh.antennapod.core.util.URIUtil;
 import okhttp3.OkHttpClient;
-import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
@@ -39,6 +40,8 @@ public class HttpDownloader extends Downloader {
     private static final String TAG = "HttpDownloader";
 
     private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_IN_MEMORY_FEED_SIZE = 4 * 1024 * 1024;
+    private static final String CONTENT_HASH_ALGORITHM = "SHA-1";
     private static final String REGEX_PATTERN_IP_ADDRESS = "([0-9]{1,3}[\\.]){3}[0-9]{1,3}";
 
     public HttpDownloader(@NonNull DownloadRequest request) {
@@ -56,13 +59,13 @@ public class HttpDownloader extends Downloader {
             return;
         }
 
-        OkHttpClient httpClient = AntennapodHttpClient.getHttpClient();
         RandomAccessFile out = null;
         InputStream connection;
         ResponseBody responseBody = null;
 
         try {
             final URI uri = URIUtil.getURIFromRequestUrl(request.getSource());
+            OkHttpClient httpClient = AntennapodHttpClient.getHttpClient(uri.getHost());
             Request.Builder httpReq = new Request.Builder().url(uri.toURL());
             httpReq.tag(request);
             httpReq.cacheControl(new CacheControl.Builder().noStore().build());
@@ -72,23 +75,31 @@ public class HttpDownloader extends Downloader {
                 Log.d(TAG, "addHeader(\"Accept-Encoding\", \"identity\")");
                 httpReq.addHeader("Accept-Encoding", "identity");
                 httpReq.cacheControl(new CacheControl.Builder().noCache().build()); // noStore breaks CDNs
-            }
 
-            if (!TextUtils.isEmpty(request.getLastModified())) {
-                String lastModified = request.getLastModified();
-                Date lastModifiedDate = DateUtils.parse(lastModified);
-                if (lastModifiedDate != null) {
-                    long threeDaysAgo = System.currentTimeMillis() - 1000 * 60 * 60 * 24 * 3;
-                    if (lastModifiedDate.getTime() > threeDaysAgo) {
-                        Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
-                        httpReq.addHeader("If-Modified-Since", lastModified);
-                    }
-                } else {
-                    Log.d(TAG, "addHeader(\"If-None-Match\", \"" + lastModified + "\")");
-                    httpReq.addHeader("If-None-Match", lastModified);
+                SegmentedDownload segmentedDownload = fileExists ? SegmentedDownload.load(destination) : null;
+                if (segmentedDownload != null) {
+                    Log.d(TAG, "Resuming segmented download at " + segmentedDownload.getDownloadedBytes());
+                    int connections = 1 + acquireConnections(SegmentedDownload.NUM_SEGMENTS - 1);
+                    downloadSegments(httpClient, httpReq.build(), segmentedDownload, null, connections);
+                    return;
                 }
             }
 
+            String lastModified = request.getLastModified();
+            String etag = request.getEtag();
+            if (!TextUtils.isEmpty(lastModified)) {
+                if (DateUtils.parse(lastModified) != null) {
+                    Log.d(TAG, "addHeader(\"If-Modified-Since\", \"" + lastModified + "\")");
+                    httpReq.addHeader("If-Modified-Since", lastModified);
+                } else if (TextUtils.isEmpty(etag)) {
+                    // Older versions stored the ETag in the same field if there was no Last-Modified header
+                    etag = lastModified;
+                }
+            }
+            if (!TextUtils.isEmpty(etag)) {
+                Log.d(TAG, "addHeader(\"If-None-Match\", \"" + etag + "\")");
+                httpReq.addHeader("If-None-Match", etag);
+            }
 
             // add range header if necessary
             if (fileExists && destination.length() > 0) {
@@ -103,10 +114,9 @@ public class HttpDownloader extends Downloader {
                 response = httpClient.newCall(httpReq.build()).execute();
             } catch (IOException e) {
                 Log.e(TAG, e.toString());
-                if (e.getMessage().contains("PROTOCOL_ERROR")) {
-                    httpClient = httpClient.newBuilder()
-                            .protocols(Collections.singletonList(Protocol.HTTP_1_1))
-                            .build();
+                if (e.getMessage().contains("PROTOCOL_ERROR") && uri.getHost() != null) {
+                    AntennapodHttpClient.setHttp1Only(uri.getHost());
+                    httpClient = AntennapodHttpClient.getHttpClient(uri.getHost());
                     response = httpClient.newCall(httpReq.build()).execute();
                 } else {
                     throw e;
@@ -124,27 +134,12 @@ public class HttpDownloader extends Downloader {
 
             if (!response.isSuccessful() && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
                 Log.d(TAG, "Feed '" + request.getSource() + "' not modified since last update, Download canceled");
-                onCancelled();
+                onNotModified();
                 return;
             }
 
             if (!response.isSuccessful() || response.body() == null) {
-                final DownloadError error;
-                final String details;
-                if (response.code() == HttpURLConnection.HTTP_UNAUTHORIZED) {
-                    error = DownloadError.ERROR_UNAUTHORIZED;
-                    details = String.valueOf(response.code());
-                } else if (response.code() == HttpURLConnection.HTTP_FORBIDDEN) {
-                    error = DownloadError.ERROR_FORBIDDEN;
-                    details = String.valueOf(response.code());
-                } else if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
-                    error = DownloadError.ERROR_NOT_FOUND;
-                    details = String.valueOf(response.code());
-                } else {
-                    error = DownloadError.ERROR_HTTP_DATA_ERROR;
-                    details = String.valueOf(response.code());
-                }
-                onFail(error, details);
+                onHttpError(response.code());
                 return;
             }
 
@@ -189,8 +184,28 @@ public class HttpDownloader extends Downloader {
                 out.seek(request.getSoFar());
             } else {
                 destination.delete();
-                destination.createNewFile();
-                out = new RandomAccessFile(destination, "rw");
+                if (!keepFeedInMemory || request.getFeedfileType() != Feed.FEEDFILETYPE_FEED) {
+                    destination.createNewFile();
+                    out = new RandomAccessFile(destination, "rw");
+                }
+            }
+
+            // Feeds are parsed directly from memory unless they are too large
+            ByteArrayOutputStream memoryBuffer = null;
+            if (out == null) {
+                long contentLength = responseBody.contentLength();
+                memoryBuffer = new ByteArrayOutputStream(contentLength > 0 && contentLength <= MAX_IN_MEMORY_FEED_SIZE
+                        ? (int) contentLength : BUFFER_SIZE);
+            }
+
+            // Feeds are hashed so that unchanged feeds do not need to be parsed again
+            MessageDigest digest = null;
+            if (request.getFeedfileType() == Feed.FEEDFILETYPE_FEED && request.getSoFar() == 0) {
+                try {
+                    digest = MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+                } catch (NoSuchAlgorithmException e) {
+                    Log.e(TAG, "Unable to compute content hash", e);
+                }
             }
 
             byte[] buffer = new byte[BUFFER_SIZE];
@@ -211,10 +226,36 @@ public class HttpDownloader extends Downloader {
                 return;
             }
 
+            if (!fileExists && !isGzip && request.getFeedfileType() == FeedMedia.FEEDFILETYPE_FEEDMEDIA
+                    && SegmentedDownload.isSupported(response, request.getSize())) {
+                // Segments share the connections to the host with the other downloads
+                int connections = 1 + acquireConnections(SegmentedDownload.NUM_SEGMENTS - 1);
+                if (connections > 1) {
+                    IOUtils.closeQuietly(out);
+                    SegmentedDownload segmentedDownload = SegmentedDownload.create(destination, request.getSize());
+                    segmentedDownload.allocate();
+                    downloadSegments(httpClient, response.request(), segmentedDownload, connection, connections);
+                    return;
+                }
+            }
+
             Log.d(TAG, "Starting download");
             try {
                 while (!cancelled && (count = connection.read(buffer)) != -1) {
-                    out.write(buffer, 0, count);
+                    if (memoryBuffer != null && memoryBuffer.size() + count > MAX_IN_MEMORY_FEED_SIZE) {
+                        Log.d(TAG, "Feed is too large to be kept in memory");
+                        out = new RandomAccessFile(destination, "rw");
+                        out.write(memoryBuffer.toByteArray());
+                        memoryBuffer = null;
+                    }
+                    if (memoryBuffer != null) {
+                        memoryBuffer.write(buffer, 0, count);
+                    } else {
+                        out.write(buffer, 0, count);
+                    }
+                    if (digest != null) {
+                        digest.update(buffer, 0, count);
+                    }
                     request.setSoFar(request.getSoFar() + count);
                     int progressPercent = (int) (100.0 * request.getSoFar() / request.getSize());
                     request.setProgressPercent(progressPercent);
@@ -236,11 +277,19 @@ public class HttpDownloader extends Downloader {
                     onFail(DownloadError.ERROR_IO_ERROR, "Download completed, but nothing was read");
                     return;
                 }
-                String lastModified = response.header("Last-Modified");
-                if (lastModified != null) {
-                    request.setLastModified(lastModified);
-                } else {
-                    request.setLastModified(response.header("ETag"));
+                request.setLastModified(response.header("Last-Modified"));
+                request.setEtag(response.header("ETag"));
+                if (digest != null) {
+                    String contentHash = ByteString.of(digest.digest()).hex();
+                    if (contentHash.equals(request.getContentHash())) {
+                        Log.d(TAG, "Feed '" + request.getSource() + "' has the same content as on last update");
+                        onNotModified();
+                        return;
+                    }
+                    request.setContentHash(contentHash);
+                }
+                if (memoryBuffer != null) {
+                    feedContent = memoryBuffer.toByteArray();
                 }
                 onSuccess();
             }
@@ -283,6 +332,61 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    /**
+     * Downloads the file in segments. Segments that were already downloaded are not downloaded again.
+     *
+     * @param firstSegment The body of a response that started at the beginning of the file, if there is one.
+     * @param connections  The number of segments that may be downloaded at the same time.
+     */
+    private void downloadSegments(OkHttpClient httpClient, Request template, SegmentedDownload segmentedDownload,
+                                  InputStream firstSegment, int connections) throws IOException {
+        File destination = new File(request.getDestination());
+        if (!StorageUtils.storageAvailable()) {
+            onFail(DownloadError.ERROR_DEVICE_NOT_FOUND, null);
+            return;
+        }
+        request.setStatusMsg(R.string.download_running);
+        request.setSize(segmentedDownload.getSize());
+        request.setSoFar(segmentedDownload.getDownloadedBytes());
+
+        try {
+            segmentedDownload.download(httpClient, template, firstSegment, connections, this);
+        } catch (SegmentedDownload.UnexpectedResponseException e) {
+            Log.e(TAG, e.getMessage());
+            if (e.code == SegmentedDownload.HTTP_RANGE_NOT_SATISFIABLE) {
+                // The ranges cannot be used anymore, the next attempt has to start from the beginning
+                SegmentedDownload.deleteState(destination);
+            }
+            onHttpError(e.code);
+            return;
+        }
+
+        if (cancelled) {
+            onCancelled();
+        } else if (!segmentedDownload.isComplete()) {
+            onFail(DownloadError.ERROR_IO_WRONG_SIZE, "Download completed but size: "
+                    + segmentedDownload.getDownloadedBytes() + " does not equal expected size "
+                    + segmentedDownload.getSize());
+        } else {
+            SegmentedDownload.deleteState(destination);
+            onSuccess();
+        }
+    }
+
+    private void onHttpError(int code) {
+        final DownloadError error;
+        if (code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            error = DownloadError.ERROR_UNAUTHORIZED;
+        } else if (code == HttpURLConnection.HTTP_FORBIDDEN) {
+            error = DownloadError.ERROR_FORBIDDEN;
+        } else if (code == HttpURLConnection.HTTP_NOT_FOUND) {
+            error = DownloadError.ERROR_NOT_FOUND;
+        } else {
+            error = DownloadError.ERROR_HTTP_DATA_ERROR;
+        }
+        onFail(error, String.valueOf(code));
+    }
+
     private void onSuccess() {
         Log.d(TAG, "Download was successful");
         result.setSuccessful();
@@ -297,6 +401,15 @@ public class HttpDownloader extends Downloader {
         }
     }
 
+    /**
+     * The server reported that the file was not modified or the content is the same as on the last download.
+     */
+    private void onNotModified() {
+        Log.d(TAG, "Download was not modified");
+        result.setNotModified();
+        cleanup();
+    }
+
     private void onCancelled() {
         Log.d(TAG, "Download was cancelled");
         result.setCancelled();
@@ -316,6 +429,7 @@ public class HttpDownloader extends Downloader {
             } else {
                 Log.d(TAG, "cleanup() didn't delete file: does not exist.");
             }
+            SegmentedDownload.deleteState(dest);
         }
     }
 
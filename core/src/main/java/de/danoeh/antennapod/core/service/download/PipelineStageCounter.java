@@ -0,0 +1,87 @@
+package de.danoeh.antennapod.core.service.download;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the number of waiting tasks and the time spent in one stage of the download
+ * post-processing pipeline (e.g. parsing or storing feeds).
+ */
+public class PipelineStageCounter {
+    private final String name;
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+    private final AtomicInteger completed = new AtomicInteger(0);
+    private final AtomicLong waitTimeMillis = new AtomicLong(0);
+    private final AtomicLong runTimeMillis = new AtomicLong(0);
+
+    public PipelineStageCounter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Must be called when a task is submitted to this stage.
+     *
+     * @return Timestamp that has to be passed to {@link #onStarted(long)}.
+     */
+    public long onQueued() {
+        int depth = queueDepth.incrementAndGet();
+        int max = maxQueueDepth.get();
+        while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+            max = maxQueueDepth.get();
+        }
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Must be called when a task of this stage starts running.
+     *
+     * @return Timestamp that has to be passed to {@link #onFinished(long)}.
+     */
+    public long onStarted(long queuedAt) {
+        queueDepth.decrementAndGet();
+        long now = System.currentTimeMillis();
+        waitTimeMillis.addAndGet(now - queuedAt);
+        return now;
+    }
+
+    /**
+     * Must be called when a task of this stage is done.
+     */
+    public void onFinished(long startedAt) {
+        runTimeMillis.addAndGet(System.currentTimeMillis() - startedAt);
+        completed.incrementAndGet();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public long getWaitTimeMillis() {
+        return waitTimeMillis.get();
+    }
+
+    public long getRunTimeMillis() {
+        return runTimeMillis.get();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return name + ": queued=" + getQueueDepth()
+                + ", maxQueued=" + getMaxQueueDepth()
+                + ", completed=" + getCompleted()
+                + ", waitTime=" + getWaitTimeMillis() + "ms"
+                + ", runTime=" + getRunTimeMillis() + "ms";
+    }
+}
@@ -0,0 +1,348 @@
+package de.danoeh.antennapod.core.service.download;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads a file in several byte ranges at the same time. All ranges are written into the same
+ * preallocated file. The progress of every range is kept in a state file next to the destination,
+ * so that a failed download only fetches the ranges that are incomplete when it is resumed.
+ */
+class SegmentedDownload {
+    private static final String TAG = "SegmentedDownload";
+    static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    static final int NUM_SEGMENTS = 4;
+    private static final long MIN_SIZE = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final long SAVE_INTERVAL = 1024 * 1024;
+    private static final String STATE_FILE_SUFFIX = ".segments";
+
+    /**
+     * Hosts that announced support for ranges, but answered a range request with the whole file.
+     */
+    private static final Set<String> hostsIgnoringRanges = new HashSet<>();
+
+    private final File destination;
+    private final long size;
+    private final Segment[] segments;
+    private volatile boolean failed;
+
+    private static class Segment {
+        final long start;
+        final long end;
+        /**
+         * Position of the next byte to download. Only the thread downloading the segment writes it.
+         */
+        volatile long position;
+
+        Segment(long start, long end, long position) {
+            this.start = start;
+            this.end = end;
+            this.position = position;
+        }
+    }
+
+    /**
+     * A segment was answered with a status code that does not allow to continue the segmented download.
+     */
+    static class UnexpectedResponseException extends IOException {
+        final int code;
+
+        UnexpectedResponseException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    private SegmentedDownload(File destination, long size, Segment[] segments) {
+        this.destination = destination;
+        this.size = size;
+        this.segments = segments;
+    }
+
+    /**
+     * Returns true if the server accepts range requests for the file and the file is large enough
+     * to be worth downloading in segments.
+     */
+    static boolean isSupported(Response response, long size) {
+        return response.code() == HttpURLConnection.HTTP_OK
+                && "bytes".equalsIgnoreCase(response.header("Accept-Ranges"))
+                && size >= MIN_SIZE
+                && !ignoresRanges(response.request().url().host());
+    }
+
+    private static synchronized boolean ignoresRanges(String host) {
+        return hostsIgnoringRanges.contains(host);
+    }
+
+    private static synchronized void setIgnoresRanges(String host) {
+        Log.d(TAG, "Not using segments for " + host);
+        hostsIgnoringRanges.add(host);
+    }
+
+    static synchronized void tearDownTests() {
+        hostsIgnoringRanges.clear();
+    }
+
+    static SegmentedDownload create(File destination, long size) {
+        Segment[] segments = new Segment[NUM_SEGMENTS];
+        long segmentSize = size / NUM_SEGMENTS;
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            long start = i * segmentSize;
+            long end = (i == NUM_SEGMENTS - 1) ? size : start + segmentSize;
+            segments[i] = new Segment(start, end, start);
+        }
+        return new SegmentedDownload(destination, size, segments);
+    }
+
+    /**
+     * Loads the state of an unfinished segmented download of the given file.
+     *
+     * @return The download or null if the file was not downloaded in segments or the state does not match the file.
+     */
+    @Nullable
+    static SegmentedDownload load(File destination) {
+        File stateFile = getStateFile(destination);
+        if (!stateFile.exists()) {
+            return null;
+        }
+        try {
+            String[] lines = FileUtils.readFileToString(stateFile, "UTF-8").split("\n");
+            long size = Long.parseLong(lines[0]);
+            Segment[] segments = new Segment[lines.length - 1];
+            long expectedStart = 0;
+            for (int i = 0; i < segments.length; i++) {
+                String[] values = lines[i + 1].split(" ");
+                long start = Long.parseLong(values[0]);
+                long end = Long.parseLong(values[1]);
+                long position = Long.parseLong(values[2]);
+                if (start != expectedStart || end < start || position < start || position > end) {
+                    throw new IllegalArgumentException("Invalid segment: " + lines[i + 1]);
+                }
+                segments[i] = new Segment(start, end, position);
+                expectedStart = end;
+            }
+            if (expectedStart != size || destination.length() != size) {
+                throw new IllegalArgumentException("State does not match file of size " + destination.length());
+            }
+            return new SegmentedDownload(destination, size, segments);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Unable to load segments of " + destination.getName(), e);
+            deleteState(destination);
+            return null;
+        }
+    }
+
+    static void deleteState(File destination) {
+        FileUtils.deleteQuietly(getStateFile(destination));
+    }
+
+    private static File getStateFile(File destination) {
+        return new File(destination.getPath() + STATE_FILE_SUFFIX);
+    }
+
+    /**
+     * Reserves the space of the whole file and saves the initial state.
+     */
+    void allocate() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(destination, "rw");
+        try {
+            file.setLength(size);
+        } finally {
+            IOUtils.closeQuietly(file);
+        }
+        save();
+    }
+
+    /**
+     * Saves the progress of all segments. The downloaded data is synced to the disk before the positions
+     * are saved, so that the saved positions never point behind data that was lost.
+     */
+    synchronized void save() throws IOException {
+        StringBuilder state = new StringBuilder().append(size);
+        for (Segment segment : segments) {
+            state.append('\n').append(segment.start)
+                    .append(' ').append(segment.end)
+                    .append(' ').append(segment.position);
+        }
+        // The positions are read before the sync, so all data before them has been written
+        RandomAccessFile file = new RandomAccessFile(destination, "rw");
+        try {
+            file.getFD().sync();
+        } finally {
+            IOUtils.closeQuietly(file);
+        }
+        File stateFile = getStateFile(destination);
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        FileUtils.writeStringToFile(tempFile, state.toString(), "UTF-8");
+        if (!tempFile.renameTo(stateFile)) {
+            throw new IOException("Unable to save segments of " + destination.getName());
+        }
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getDownloadedBytes() {
+        long downloaded = 0;
+        for (Segment segment : segments) {
+            downloaded += segment.position - segment.start;
+        }
+        return downloaded;
+    }
+
+    boolean isComplete() {
+        for (Segment segment : segments) {
+            if (segment.position < segment.end) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Downloads all incomplete segments and saves their progress.
+     *
+     * @param template     The request of the file. A range header is added for every segment.
+     * @param firstSegment The body of a response that started at the beginning of the file. It is used
+     *                     for the first segment if that segment has not been started yet.
+     * @param connections  The number of segments that are downloaded at the same time.
+     */
+    void download(OkHttpClient client, Request template, @Nullable InputStream firstSegment, int connections,
+                  Downloader downloader) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.position < segment.end) {
+                InputStream in = (segment.position == 0) ? firstSegment : null;
+                tasks.add(() -> {
+                    downloadSegment(client, template, segment, in, downloader);
+                    return null;
+                });
+            }
+        }
+        if (firstSegment != null && segments[0].position > 0) {
+            IOUtils.closeQuietly(firstSegment);
+        }
+        Log.d(TAG, "Downloading " + tasks.size() + " segments of " + destination.getName());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(connections, tasks.size())));
+        IOException exception = null;
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (exception == null) {
+                        exception = (e.getCause() instanceof IOException)
+                                ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failed = true;
+            exception = new IOException(e);
+        } finally {
+            executor.shutdownNow();
+            save();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void downloadSegment(OkHttpClient client, Request template, Segment segment,
+                                 @Nullable InputStream in, Downloader downloader) throws IOException {
+        Response response = null;
+        RandomAccessFile out = null;
+        try {
+            if (in == null) {
+                Request request = template.newBuilder()
+                        .removeHeader("If-Modified-Since")
+                        .removeHeader("If-None-Match")
+                        .header("Range", "bytes=" + segment.position + "-" + (segment.end - 1))
+                        .build();
+                response = client.newCall(request).execute();
+                checkResponse(response, segment);
+                in = response.body().byteStream();
+            }
+            out = new RandomAccessFile(destination, "rw");
+            out.seek(segment.position);
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long unsaved = 0;
+            while (!downloader.cancelled && !failed && segment.position < segment.end) {
+                int count = in.read(buffer, 0, (int) Math.min(buffer.length, segment.end - segment.position));
+                if (count == -1) {
+                    throw new IOException("Segment ended at " + segment.position + " instead of " + segment.end);
+                }
+                out.write(buffer, 0, count);
+                segment.position += count;
+                onProgress(downloader.request, count);
+                unsaved += count;
+                if (unsaved >= SAVE_INTERVAL) {
+                    save();
+                    unsaved = 0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(in);
+            IOUtils.closeQuietly(response);
+        }
+    }
+
+    private void checkResponse(@NonNull Response response, Segment segment) throws IOException {
+        if (response.code() == HttpURLConnection.HTTP_OK) {
+            // The preallocated file cannot be completed with ranges from this host. Reporting an invalid
+            // range makes the next attempt start from the beginning, and that attempt does not use segments.
+            setIgnoresRanges(response.request().url().host());
+            throw new UnexpectedResponseException(HTTP_RANGE_NOT_SATISFIABLE,
+                    "Segment at " + segment.position + " was answered with the whole file");
+        }
+        if (response.code() != HttpURLConnection.HTTP_PARTIAL || response.body() == null) {
+            throw new UnexpectedResponseException(response.code(),
+                    "Segment at " + segment.position + " was answered with " + response.code());
+        }
+        // The file must not have changed since the other segments were downloaded
+        String contentRange = response.header("Content-Range");
+        if (contentRange == null || !contentRange.startsWith("bytes " + segment.position + "-")
+                || !contentRange.endsWith("/" + size)) {
+            throw new UnexpectedResponseException(HTTP_RANGE_NOT_SATISFIABLE,
+                    "Segment at " + segment.position + " was answered with range " + contentRange);
+        }
+    }
+
+    private synchronized void onProgress(DownloadRequest request, int count) {
+        request.setSoFar(request.getSoFar() + count);
+        request.setProgressPercent((int) (100.0 * request.getSoFar() / size));
+    }
+}
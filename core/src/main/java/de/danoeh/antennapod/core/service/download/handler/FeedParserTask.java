@@ -1,6 +1,7 @@
 package de.danoeh.antennapod.core.service.download.handler;
 
 import android.util.Log;
+import androidx.annotation.Nullable;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedPreferences;
@@ -16,6 +17,7 @@ import de.danoeh.antennapod.core.util.InvalidFeedException;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.Callable;
@@ -23,17 +25,30 @@ import java.util.concurrent.Callable;
 public class FeedParserTask implements Callable<FeedHandlerResult> {
     private static final String TAG = "FeedParserTask";
     private final DownloadRequest request;
+    @Nullable
+    private final byte[] content;
     private DownloadStatus downloadStatus;
     private boolean successful = true;
 
     public FeedParserTask(DownloadRequest request) {
+        this(request, null);
+    }
+
+    /**
+     * @param content The downloaded feed if it was kept in memory. If null, the
+     *                feed is read from the destination file of the request.
+     */
+    public FeedParserTask(DownloadRequest request, @Nullable byte[] content) {
         this.request = request;
+        this.content = content;
     }
 
     @Override
     public FeedHandlerResult call() {
         Feed feed = new Feed(request.getSource(), request.getLastModified());
         feed.setFile_url(request.getDestination());
+        feed.setEtag(request.getEtag());
+        feed.setContentHash(request.getContentHash());
         feed.setId(request.getFeedfileId());
         feed.setDownloaded(true);
         feed.setPreferences(new FeedPreferences(0, true, FeedPreferences.AutoDeleteAction.GLOBAL,
@@ -46,7 +61,11 @@ public class FeedParserTask implements Callable<FeedHandlerResult> {
 
         FeedHandlerResult result = null;
         try {
-            result = feedHandler.parseFeed(feed);
+            if (content != null) {
+                result = feedHandler.parseFeed(feed, new ByteArrayInputStream(content));
+            } else {
+                result = feedHandler.parseFeed(feed);
+            }
             Log.d(TAG, feed.getTitle() + " parsed");
             checkFeedData(feed);
         } catch (SAXException | IOException | ParserConfigurationException e) {
@@ -2,6 +2,7 @@ package de.danoeh.antennapod.core.service.download.handler;
 
 import android.content.Context;
 import android.util.Log;
+import androidx.annotation.Nullable;
 
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.service.download.DownloadRequest;
@@ -11,28 +12,79 @@ import de.danoeh.antennapod.core.storage.DownloadRequestException;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
 import de.danoeh.antennapod.core.syndication.handler.FeedHandlerResult;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class FeedSyncTask {
     private static final String TAG = "FeedParserTask";
     private final DownloadRequest request;
     private final Context context;
+    @Nullable
+    private byte[] content;
     private DownloadStatus downloadStatus;
+    private FeedHandlerResult result;
     private Feed savedFeed;
 
     public FeedSyncTask(Context context, DownloadRequest request) {
+        this(context, request, null);
+    }
+
+    /**
+     * @param content The downloaded feed if it was kept in memory. See {@link FeedParserTask}.
+     */
+    public FeedSyncTask(Context context, DownloadRequest request, @Nullable byte[] content) {
         this.request = request;
         this.context = context;
+        this.content = content;
     }
 
     public boolean run() {
-        FeedParserTask task = new FeedParserTask(request);
-        FeedHandlerResult result = task.call();
-        downloadStatus = task.getDownloadStatus();
-
-        if (!task.isSuccessful()) {
+        if (!parse()) {
             return false;
         }
+        sync();
+        return true;
+    }
 
+    /**
+     * Parses the downloaded feed file. This does not access the database,
+     * so it can run concurrently for different requests.
+     *
+     * @return true if the feed could be parsed.
+     */
+    public boolean parse() {
+        FeedParserTask task = new FeedParserTask(request, content);
+        content = null;
+        result = task.call();
+        downloadStatus = task.getDownloadStatus();
+        return task.isSuccessful();
+    }
+
+    /**
+     * Stores the parsed feed in the database. Must only be called after {@link #parse()} was successful.
+     */
+    public void sync() {
         savedFeed = DBTasks.updateFeed(context, result.feed, false);
+        loadNextPageIfNeeded();
+    }
+
+    /**
+     * Stores the parsed feeds of several tasks in the database using a single transaction.
+     * {@link #parse()} must have been successful for all of the tasks.
+     */
+    public static void syncAll(Context context, List<FeedSyncTask> tasks) {
+        List<Feed> feeds = new ArrayList<>(tasks.size());
+        for (FeedSyncTask task : tasks) {
+            feeds.add(task.result.feed);
+        }
+        List<Feed> savedFeeds = DBTasks.updateFeeds(context, feeds);
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).savedFeed = savedFeeds.get(i);
+            tasks.get(i).loadNextPageIfNeeded();
+        }
+    }
+
+    private void loadNextPageIfNeeded() {
         // If loadAllPages=true, check if another page is available and queue it for download
         final boolean loadAllPages = request.getArguments().getBoolean(DownloadRequester.REQUEST_ARG_LOAD_ALL_PAGES);
         final Feed feed = result.feed;
@@ -44,7 +96,6 @@ public class FeedSyncTask {
                 Log.e(TAG, "Error trying to load next page", e);
             }
         }
-        return true;
     }
 
     public DownloadStatus getDownloadStatus() {
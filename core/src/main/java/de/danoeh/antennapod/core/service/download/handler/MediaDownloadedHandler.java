@@ -52,6 +52,7 @@ public class MediaDownloadedHandler implements Runnable {
         media.setDownloaded(true);
         media.setFile_url(request.getDestination());
         media.setSize(new File(request.getDestination()).length());
+        media.setDownloadedSize(media.getSize());
         media.checkEmbeddedPicture(); // enforce check
 
         // check if file has chapters
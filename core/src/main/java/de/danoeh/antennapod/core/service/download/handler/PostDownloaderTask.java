@@ -1,6 +1,7 @@
 package de.danoeh.antennapod.core.service.download.handler;
 
 import de.danoeh.antennapod.core.event.DownloadEvent;
+import de.danoeh.antennapod.core.service.download.DownloadScheduler;
 import de.danoeh.antennapod.core.service.download.Downloader;
 import de.danoeh.antennapod.core.storage.DownloadRequester;
 import org.greenrobot.eventbus.EventBus;
@@ -11,9 +12,11 @@ import java.util.List;
 
 public class PostDownloaderTask implements Runnable {
     private List<Downloader> downloads;
+    private final DownloadScheduler scheduler;
 
-    public PostDownloaderTask(List<Downloader> downloads) {
+    public PostDownloaderTask(List<Downloader> downloads, DownloadScheduler scheduler) {
         this.downloads = downloads;
+        this.scheduler = scheduler;
     }
 
     @Override
@@ -26,6 +29,9 @@ public class PostDownloaderTask implements Runnable {
         }
         DownloadRequester.getInstance().updateProgress(downloads);
         List<Downloader> list = Collections.unmodifiableList(runningDownloads);
-        EventBus.getDefault().postSticky(DownloadEvent.refresh(list));
+        EventBus.getDefault().postSticky(DownloadEvent.refresh(list,
+                scheduler.getQueuedCount(DownloadScheduler.LANE_USER),
+                scheduler.getQueuedCount(DownloadScheduler.LANE_FEED_REFRESH),
+                scheduler.getQueuedCount(DownloadScheduler.LANE_AUTO_DOWNLOAD)));
     }
 }
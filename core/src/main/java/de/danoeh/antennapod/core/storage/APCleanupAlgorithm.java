@@ -1,17 +1,13 @@
 package de.danoeh.antennapod.core.storage;
 
-import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
-import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.ExecutionException;
 
 import de.danoeh.antennapod.core.feed.FeedItem;
 import de.danoeh.antennapod.core.feed.FeedMedia;
@@ -21,7 +17,6 @@ import de.danoeh.antennapod.core.feed.FeedMedia;
  */
 public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
 
-    private static final String TAG = "APCleanupAlgorithm";
     /** the number of days after playback to wait before an item is eligible to be cleaned up.
         Fractional for number of hours, e.g., 0.5 = 12 hours, 0.0416 = 1 hour.  */
     private final int numberOfHoursAfterPlayback;
@@ -30,54 +25,22 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
         this.numberOfHoursAfterPlayback = numberOfHoursAfterPlayback;
     }
 
-    /**
-     * @return the number of episodes that *could* be cleaned up, if needed
-     */
-    public int getReclaimableItems()
-    {
-        return getCandidates().size();
+    @Override
+    protected int countReclaimableItems(long now) {
+        return DBReader.getNumberOfReclaimableEpisodes(false, calcMostRecentDateForDeletion(new Date(now)));
     }
 
+    /**
+     * Played episodes become reclaimable once they were played long enough ago.
+     */
     @Override
-    public int performCleanup(Context context, int numberOfEpisodesToDelete) {
-        List<FeedItem> candidates = getCandidates();
-        List<FeedItem> delete;
-
-        Collections.sort(candidates, (lhs, rhs) -> {
-            Date l = lhs.getMedia().getPlaybackCompletionDate();
-            Date r = rhs.getMedia().getPlaybackCompletionDate();
-
-            if (l == null) {
-                l = new Date();
-            }
-            if (r == null) {
-                r = new Date();
-            }
-            return l.compareTo(r);
-        });
-
-        if (candidates.size() > numberOfEpisodesToDelete) {
-            delete = candidates.subList(0, numberOfEpisodesToDelete);
-        } else {
-            delete = candidates;
-        }
-
-        for (FeedItem item : delete) {
-            try {
-                DBWriter.deleteFeedMediaOfItem(context, item.getMedia().getId()).get();
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
-            }
+    protected long getReclaimableItemsValidUntil(long now) {
+        Date mostRecentDateForDeletion = calcMostRecentDateForDeletion(new Date(now));
+        long nextCompletionDate = DBReader.getEarliestPlaybackCompletionDate(false, mostRecentDateForDeletion);
+        if (nextCompletionDate == 0) {
+            return Long.MAX_VALUE;
         }
-
-        int counter = delete.size();
-
-
-        Log.i(TAG, String.format(Locale.US,
-                "Auto-delete deleted %d episodes (%d requested)", counter,
-                numberOfEpisodesToDelete));
-
-        return counter;
+        return now + (nextCompletionDate - mostRecentDateForDeletion.getTime()) + 1;
     }
 
     @VisibleForTesting
@@ -85,8 +48,12 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
         return minusHours(currentDate, numberOfHoursAfterPlayback);
     }
 
+    /**
+     * Episodes that were played first are deleted first.
+     */
     @NonNull
-    private List<FeedItem> getCandidates() {
+    @Override
+    protected List<FeedItem> getCandidates() {
         List<FeedItem> candidates = new ArrayList<>();
         List<FeedItem> downloadedItems = DBReader.getDownloadedItems();
 
@@ -107,6 +74,19 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
                 }
             }
         }
+
+        Collections.sort(candidates, (lhs, rhs) -> {
+            Date l = lhs.getMedia().getPlaybackCompletionDate();
+            Date r = rhs.getMedia().getPlaybackCompletionDate();
+
+            if (l == null) {
+                l = new Date();
+            }
+            if (r == null) {
+                r = new Date();
+            }
+            return l.compareTo(r);
+        });
         return candidates;
     }
 
@@ -118,6 +98,16 @@ public class APCleanupAlgorithm extends EpisodeCleanupAlgorithm {
     @VisibleForTesting
     public int getNumberOfHoursAfterPlayback() { return numberOfHoursAfterPlayback; }
 
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && ((APCleanupAlgorithm) o).numberOfHoursAfterPlayback == numberOfHoursAfterPlayback;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + numberOfHoursAfterPlayback;
+    }
+
     private static Date minusHours(Date baseDate, int numberOfHours) {
         Calendar cal = Calendar.getInstance();
         cal.setTime(baseDate);
@@ -3,6 +3,13 @@ package de.danoeh.antennapod.core.storage;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import de.danoeh.antennapod.core.feed.FeedItem;
+
 /**
  * A cleanup algorithm that never removes anything
  */
@@ -17,13 +24,19 @@ public class APNullCleanupAlgorithm extends EpisodeCleanupAlgorithm {
         return 0;
     }
 
+    @NonNull
+    @Override
+    protected List<FeedItem> getCandidates() {
+        return Collections.emptyList();
+    }
+
     @Override
     public int getDefaultCleanupParameter() {
         return 0;
     }
 
     @Override
-    public int getReclaimableItems() {
+    protected int countReclaimableItems(long now) {
         return 0;
     }
 }
@@ -3,12 +3,15 @@ package de.danoeh.antennapod.core.storage;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import de.danoeh.antennapod.core.feed.FeedFilter;
 import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.feed.FeedPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.util.NetworkUtils;
@@ -73,8 +76,8 @@ public class AutomaticDownloadAlgorithm {
                 int downloadedEpisodes = DBReader.getNumberOfDownloadedEpisodes();
                 int deletedEpisodes = UserPreferences.getEpisodeCleanupAlgorithm()
                         .makeRoomForEpisodes(context, autoDownloadableEpisodes);
-                boolean cacheIsUnlimited =
-                        UserPreferences.getEpisodeCacheSize() == UserPreferences.getEpisodeCacheSizeUnlimited();
+                boolean cacheIsUnlimited = UserPreferences.getEpisodeCacheSize()
+                        == UserPreferences.getEpisodeCacheSizeUnlimited();
                 int episodeCacheSize = UserPreferences.getEpisodeCacheSize();
 
                 int episodeSpaceLeft;
@@ -84,8 +87,15 @@ public class AutomaticDownloadAlgorithm {
                     episodeSpaceLeft = episodeCacheSize - (downloadedEpisodes - deletedEpisodes);
                 }
 
-                FeedItem[] itemsToDownload = candidates.subList(0, episodeSpaceLeft)
-                        .toArray(new FeedItem[episodeSpaceLeft]);
+                FeedItem[] itemsToDownload;
+                long storageLimit = UserPreferences.getEpisodeCacheStorageLimit();
+                if (storageLimit > 0) {
+                    itemsToDownload = getItemsWithinStorageLimit(context,
+                            candidates.subList(0, episodeSpaceLeft), storageLimit);
+                } else {
+                    itemsToDownload = candidates.subList(0, episodeSpaceLeft)
+                            .toArray(new FeedItem[episodeSpaceLeft]);
+                }
 
                 if (itemsToDownload.length > 0) {
                     Log.d(TAG, "Enqueueing " + itemsToDownload.length + " items for download");
@@ -99,4 +109,35 @@ public class AutomaticDownloadAlgorithm {
             }
         };
     }
+
+    /**
+     * Returns the candidates that fit into the storage limit of the episode cache and deletes just
+     * enough episodes to make room for them. A candidate that does not fit is skipped, so that a large
+     * episode does not keep the following smaller ones from being downloaded.
+     */
+    @VisibleForTesting
+    static FeedItem[] getItemsWithinStorageLimit(Context context, List<FeedItem> candidates, long storageLimit) {
+        EpisodeCleanupAlgorithm cleanupAlgorithm = UserPreferences.getEpisodeCleanupAlgorithm();
+        int downloadedEpisodes = DBReader.getNumberOfDownloadedEpisodes();
+        long downloadedSize = DBReader.getDownloadedEpisodesSize();
+        // Episodes without announced size are assumed to be as large as the average download
+        long unknownSize = downloadedEpisodes > 0 ? downloadedSize / downloadedEpisodes : 0;
+
+        long bytesLeft = storageLimit - downloadedSize + cleanupAlgorithm.getReclaimableBytes();
+        long bytesNeeded = 0;
+        List<FeedItem> itemsToDownload = new ArrayList<>();
+        for (FeedItem candidate : candidates) {
+            FeedMedia media = candidate.getMedia();
+            long size = media.getSize() > 0 ? media.getSize() : unknownSize;
+            if (size <= bytesLeft) {
+                itemsToDownload.add(candidate);
+                bytesLeft -= size;
+                bytesNeeded += size;
+            }
+        }
+        cleanupAlgorithm.makeRoomForBytes(context, bytesNeeded);
+        Log.d(TAG, "Planned " + itemsToDownload.size() + " of " + candidates.size() + " episodes, "
+                + bytesLeft + " bytes of the episode cache left");
+        return itemsToDownload.toArray(new FeedItem[0]);
+    }
 }
@@ -3,14 +3,13 @@ package de.danoeh.antennapod.core.storage;
 import android.database.Cursor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.collection.ArrayMap;
 import android.text.TextUtils;
 import android.util.Log;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +24,7 @@ import de.danoeh.antennapod.core.feed.SubscriptionsFilter;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.storage.mapper.FeedCursorMapper;
+import de.danoeh.antennapod.core.util.LongHashSet;
 import de.danoeh.antennapod.core.util.LongIntMap;
 import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.core.util.comparator.DownloadStatusComparator;
@@ -60,22 +60,23 @@ public final class DBReader {
      * @return A list of Feeds, sorted alphabetically by their title. A Feed-object
      * of the returned list does NOT have its list of FeedItems yet. The FeedItem-list
      * can be loaded separately with {@link #getFeedItemList(Feed)}.
+     * The Feed-objects are shared through the {@link FeedCache} and must not be modified.
+     * Use {@link #getFeed(long)} to load a Feed that is going to be changed.
      */
     @NonNull
     public static List<Feed> getFeedList() {
+        return new ArrayList<>(FeedCache.getInstance().getFeeds());
+    }
+
+    /**
+     * Reads all Feeds from the database, bypassing the {@link FeedCache}.
+     */
+    @NonNull
+    static List<Feed> loadFeedList() {
         Log.d(TAG, "Extracting Feedlist");
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        try {
-            return getFeedList(adapter);
-        } finally {
-            adapter.close();
-        }
-    }
-
-    @NonNull
-    private static List<Feed> getFeedList(PodDBAdapter adapter) {
         try (Cursor cursor = adapter.getAllFeedsCursor()) {
             List<Feed> feeds = new ArrayList<>(cursor.getCount());
             while (cursor.moveToNext()) {
@@ -83,6 +84,8 @@ public final class DBReader {
                 feeds.add(feed);
             }
             return feeds;
+        } finally {
+            adapter.close();
         }
     }
 
@@ -116,8 +119,8 @@ public final class DBReader {
     }
 
     private static void loadTagsOfFeedItemList(List<FeedItem> items) {
-        LongList favoriteIds = getFavoriteIDList();
-        LongList queueIds = getQueueIDList();
+        LongHashSet favoriteIds = getFavoriteIDSet();
+        LongHashSet queueIds = LongHashSet.of(getQueueIDList());
 
         for (FeedItem item : items) {
             if (favoriteIds.contains(item.getId())) {
@@ -130,24 +133,28 @@ public final class DBReader {
     }
 
     /**
-     * Takes a list of FeedItems and loads their corresponding Feed-objects from the database.
+     * Takes a list of FeedItems and loads their corresponding Feed-objects from the {@link FeedCache}.
      * The feedID-attribute of a FeedItem must be set to the ID of its feed or the method will
-     * not find the correct feed of an item.
+     * not find the correct feed of an item. Callers may modify the feeds of the items, so the items
+     * get copies of the cached feeds. Items of the same feed share one copy.
      *
      * @param items The FeedItems whose Feed-objects should be loaded.
      */
     private static void loadFeedDataOfFeedItemList(List<FeedItem> items) {
-        List<Feed> feeds = getFeedList();
-
-        Map<Long, Feed> feedIndex = new ArrayMap<>(feeds.size());
-        for (Feed feed : feeds) {
-            feedIndex.put(feed.getId(), feed);
-        }
+        Map<Long, Feed> feedIndex = FeedCache.getInstance().getFeedIndex();
+        Map<Long, Feed> copies = new HashMap<>();
         for (FeedItem item : items) {
-            Feed feed = feedIndex.get(item.getFeedId());
+            Feed feed = copies.get(item.getFeedId());
             if (feed == null) {
-                Log.w(TAG, "No match found for item with ID " + item.getId() + ". Feed ID was " + item.getFeedId());
-                feed = new Feed("", "", "Error: Item without feed");
+                Feed cached = feedIndex.get(item.getFeedId());
+                if (cached != null) {
+                    feed = cached.copy();
+                    copies.put(item.getFeedId(), feed);
+                } else {
+                    Log.w(TAG, "No match found for item with ID " + item.getId()
+                            + ". Feed ID was " + item.getFeedId());
+                    feed = new Feed("", "", "Error: Item without feed");
+                }
             }
             item.setFeed(feed);
         }
@@ -209,7 +216,7 @@ public final class DBReader {
         return result;
     }
 
-    private static Feed extractFeedFromCursorRow(Cursor cursor) {
+    static Feed extractFeedFromCursorRow(Cursor cursor) {
         Feed feed = FeedCursorMapper.convert(cursor);
         FeedPreferences preferences = FeedPreferences.fromCursor(cursor);
         feed.setPreferences(preferences);
@@ -243,7 +250,7 @@ public final class DBReader {
         }
     }
 
-    private static LongList getQueueIDList(PodDBAdapter adapter) {
+    static LongList getQueueIDList(PodDBAdapter adapter) {
         try (Cursor cursor = adapter.getQueueIDCursor()) {
             LongList queueIds = new LongList(cursor.getCount());
             while (cursor.moveToNext()) {
@@ -335,6 +342,25 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the next page of FeedItems that are considered new.
+     *
+     * @param after The position after which the page starts, null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     * @return A list of FeedItems that are considered new.
+     */
+    public static List<FeedItem> getNewItemsList(@Nullable PageToken after, int limit) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getNewItemsCursor(after, limit)) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads a list of favorite items.
      *
@@ -356,13 +382,32 @@ public final class DBReader {
         }
     }
 
-    private static LongList getFavoriteIDList() {
-        Log.d(TAG, "getFavoriteIDList() called");
+    /**
+     * Loads the next page of favorite items.
+     *
+     * @param after The position after which the page starts, null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     * @return A list of FeedItems that are marked as favorite.
+     */
+    public static List<FeedItem> getFavoriteItemsList(@Nullable PageToken after, int limit) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getFavoritesCursor(after, limit)) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private static LongHashSet getFavoriteIDSet() {
+        Log.d(TAG, "getFavoriteIDSet() called");
 
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        try (Cursor cursor = adapter.getFavoritesCursor(0, Integer.MAX_VALUE)) {
-            LongList favoriteIDs = new LongList(cursor.getCount());
+        try (Cursor cursor = adapter.getFavoritesIDCursor()) {
+            LongHashSet favoriteIDs = new LongHashSet(cursor.getCount());
             while (cursor.moveToNext()) {
                 favoriteIDs.add(cursor.getLong(0));
             }
@@ -394,6 +439,29 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Loads the next page of a filtered list of FeedItems sorted by pubDate in descending order.
+     * Unlike {@link #getRecentlyPublishedEpisodes(int, int, FeedItemFilter)}, the cost of loading a page
+     * does not grow with the number of pages that were loaded before.
+     *
+     * @param after The position after which the page starts, null to load the first page.
+     * @param limit The maximum number of episodes that should be loaded.
+     * @param filter The filter describing which episodes to filter out.
+     */
+    @NonNull
+    public static List<FeedItem> getRecentlyPublishedEpisodes(@Nullable PageToken after, int limit,
+                                                              FeedItemFilter filter) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try (Cursor cursor = adapter.getRecentlyPublishedItemsCursor(after, limit, filter)) {
+            List<FeedItem> items = extractItemlistFromCursor(adapter, cursor);
+            loadAdditionalFeedItemListData(items);
+            return items;
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Loads the playback history from the database. A FeedItem is in the playback history if playback of the correpsonding episode
      * has been completed at least once.
@@ -711,6 +779,50 @@ public final class DBReader {
         }
     }
 
+    /**
+     * Returns the total size of all downloaded episodes in bytes.
+     */
+    public static long getDownloadedEpisodesSize() {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            return adapter.getDownloadedEpisodesSize();
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Returns the number of downloaded episodes that are not favorites.
+     *
+     * @param includeQueued Whether episodes in the queue are counted
+     * @param playedBefore  If not null, only episodes whose playback was completed before this date are counted
+     */
+    static int getNumberOfReclaimableEpisodes(boolean includeQueued, @Nullable Date playedBefore) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            return adapter.getNumberOfReclaimableEpisodes(includeQueued,
+                    playedBefore != null ? playedBefore.getTime() : 0);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Returns the earliest playback completion date at or after the given date among the played episodes
+     * that are downloaded and not favorites, or 0 if there is none.
+     */
+    static long getEarliestPlaybackCompletionDate(boolean includeQueued, @NonNull Date playedAfter) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            return adapter.getEarliestPlaybackCompletionDate(includeQueued, playedAfter.getTime());
+        } finally {
+            adapter.close();
+        }
+    }
+
     /**
      * Searches the DB for a FeedMedia of the given id.
      *
@@ -751,56 +863,34 @@ public final class DBReader {
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
 
-        List<StatisticsItem> feedTime = new ArrayList<>();
-
-        List<Feed> feeds = getFeedList();
-        for (Feed feed : feeds) {
-            long feedPlayedTimeCountAll = 0;
-            long feedPlayedTime = 0;
-            long feedTotalTime = 0;
-            long episodes = 0;
-            long episodesStarted = 0;
-            long episodesStartedIncludingMarked = 0;
-            long totalDownloadSize = 0;
-            long episodesDownloadCount = 0;
-            List<FeedItem> items = getFeed(feed.getId()).getItems();
-            for (FeedItem item : items) {
-                FeedMedia media = item.getMedia();
-                if (media == null) {
+        List<Feed> feeds = FeedCache.getInstance().getFeeds();
+        Map<Long, StatisticsItem> statisticsByFeed = new HashMap<>();
+        try (Cursor cursor = adapter.getPlaybackStatisticsCursor()) {
+            Map<Long, Feed> feedsById = new HashMap<>();
+            for (Feed feed : feeds) {
+                feedsById.put(feed.getId(), feed);
+            }
+            while (cursor.moveToNext()) {
+                Feed feed = feedsById.get(cursor.getLong(0));
+                if (feed == null) {
                     continue;
                 }
-
-                feedPlayedTime += media.getPlayedDuration() / 1000;
-
-                if (item.isPlayed()) {
-                    feedPlayedTimeCountAll += media.getDuration() / 1000;
-                } else {
-                    feedPlayedTimeCountAll += media.getPosition() / 1000;
-                }
-
-                if (media.getPlaybackCompletionDate() != null || media.getPlayedDuration() > 0) {
-                    episodesStarted++;
-                }
-
-                if (item.isPlayed() || media.getPosition() != 0) {
-                    episodesStartedIncludingMarked++;
-                }
-
-                feedTotalTime += media.getDuration() / 1000;
-
-                if (media.isDownloaded()) {
-                    totalDownloadSize += new File(media.getFile_url()).length();
-                    episodesDownloadCount++;
-                }
-
-                episodes++;
+                statisticsByFeed.put(feed.getId(), new StatisticsItem(feed,
+                        cursor.getLong(1), cursor.getLong(2), cursor.getLong(3), cursor.getLong(4),
+                        cursor.getLong(5), cursor.getLong(6), cursor.getLong(7), cursor.getLong(8)));
             }
-            feedTime.add(new StatisticsItem(
-                    feed, feedTotalTime, feedPlayedTime, feedPlayedTimeCountAll, episodes,
-                    episodesStarted, episodesStartedIncludingMarked, totalDownloadSize, episodesDownloadCount));
+        } finally {
+            adapter.close();
         }
 
-        adapter.close();
+        List<StatisticsItem> feedTime = new ArrayList<>(feeds.size());
+        for (Feed feed : feeds) {
+            StatisticsItem statistics = statisticsByFeed.get(feed.getId());
+            if (statistics == null) {
+                statistics = new StatisticsItem(feed, 0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            feedTime.add(statistics);
+        }
         return feedTime;
     }
 
@@ -817,7 +907,7 @@ public final class DBReader {
 
         final LongIntMap feedCounters = adapter.getFeedCounters();
         SubscriptionsFilter subscriptionsFilter = UserPreferences.getSubscriptionsFilter();
-        List<Feed> feeds = subscriptionsFilter.filter(getFeedList(adapter), feedCounters);
+        List<Feed> feeds = subscriptionsFilter.filter(getFeedList(), feedCounters);
 
         Comparator<Feed> comparator;
         int feedOrder = UserPreferences.getFeedOrder();
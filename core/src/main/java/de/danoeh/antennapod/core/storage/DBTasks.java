@@ -4,7 +4,6 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.os.Looper;
-import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -29,9 +28,13 @@ import org.greenrobot.eventbus.EventBus;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -122,7 +125,7 @@ public final class DBTasks {
             throw new IllegalStateException("DBTasks.refreshAllFeeds() must not be called from the main thread.");
         }
 
-        List<Feed> feeds = DBReader.getFeedList();
+        List<Feed> feeds = DBReader.loadFeedList();
         ListIterator<Feed> iterator = feeds.listIterator();
         while (iterator.hasNext()) {
             if (!iterator.next().getPreferences().getKeepUpdated()) {
@@ -322,7 +325,7 @@ public final class DBTasks {
         if (feed.getId() != 0) {
             return DBReader.getFeed(feed.getId());
         } else {
-            List<Feed> feeds = DBReader.getFeedList();
+            List<Feed> feeds = DBReader.loadFeedList();
             for (Feed f : feeds) {
                 if (f.getIdentifyingValue().equals(feed.getIdentifyingValue())) {
                     f.setItems(DBReader.getFeedItemList(f));
@@ -334,15 +337,18 @@ public final class DBTasks {
     }
 
     /**
-     * Get a FeedItem by its identifying value.
+     * Builds a lookup table from identifying value to FeedItem. If several items share
+     * the same identifying value, the first one in the list wins.
      */
-    private static FeedItem searchFeedItemByIdentifyingValue(Feed feed, String identifier) {
-        for (FeedItem item : feed.getItems()) {
-            if (TextUtils.equals(item.getIdentifyingValue(), identifier)) {
-                return item;
+    private static Map<String, FeedItem> buildIdentifyingValueIndex(List<FeedItem> items) {
+        Map<String, FeedItem> index = new HashMap<>(items.size() * 2);
+        for (FeedItem item : items) {
+            String identifier = item.getIdentifyingValue();
+            if (!index.containsKey(identifier)) {
+                index.put(identifier, item);
             }
         }
-        return null;
+        return index;
     }
 
     /**
@@ -370,93 +376,10 @@ public final class DBTasks {
         // Look up feed in the feedslist
         final Feed savedFeed = searchFeedByIdentifyingValueOrID(adapter, newFeed);
         if (savedFeed == null) {
-            Log.d(TAG, "Found no existing Feed with title "
-                            + newFeed.getTitle() + ". Adding as new one.");
-
-            // Add a new Feed
-            // all new feeds will have the most recent item marked as unplayed
-            FeedItem mostRecent = newFeed.getMostRecentItem();
-            if (mostRecent != null) {
-                mostRecent.setNew();
-            }
-
+            prepareNewFeed(newFeed);
             resultFeed = newFeed;
         } else {
-            Log.d(TAG, "Feed with title " + newFeed.getTitle()
-                        + " already exists. Syncing new with existing one.");
-
-            Collections.sort(newFeed.getItems(), new FeedItemPubdateComparator());
-
-            if (newFeed.getPageNr() == savedFeed.getPageNr()) {
-                if (savedFeed.compareWithOther(newFeed)) {
-                    Log.d(TAG, "Feed has updated attribute values. Updating old feed's attributes");
-                    savedFeed.updateFromOther(newFeed);
-                }
-            } else {
-                Log.d(TAG, "New feed has a higher page number.");
-                savedFeed.setNextPageLink(newFeed.getNextPageLink());
-            }
-            if (savedFeed.getPreferences().compareWithOther(newFeed.getPreferences())) {
-                Log.d(TAG, "Feed has updated preferences. Updating old feed's preferences");
-                savedFeed.getPreferences().updateFromOther(newFeed.getPreferences());
-            }
-
-            // get the most recent date now, before we start changing the list
-            FeedItem priorMostRecent = savedFeed.getMostRecentItem();
-            Date priorMostRecentDate = null;
-            if (priorMostRecent != null) {
-                priorMostRecentDate = priorMostRecent.getPubDate();
-            }
-
-            // Look for new or updated Items
-            for (int idx = 0; idx < newFeed.getItems().size(); idx++) {
-                final FeedItem item = newFeed.getItems().get(idx);
-                FeedItem oldItem = searchFeedItemByIdentifyingValue(savedFeed, item.getIdentifyingValue());
-                if (oldItem == null) {
-                    // item is new
-                    item.setFeed(savedFeed);
-                    item.setAutoDownload(savedFeed.getPreferences().getAutoDownload());
-
-                    if (idx >= savedFeed.getItems().size()) {
-                        savedFeed.getItems().add(item);
-                    } else {
-                        savedFeed.getItems().add(idx, item);
-                    }
-
-                    // only mark the item new if it was published after or at the same time
-                    // as the most recent item
-                    // (if the most recent date is null then we can assume there are no items
-                    // and this is the first, hence 'new')
-                    // New items that do not have a pubDate set are always marked as new
-                    if (item.getPubDate() == null || priorMostRecentDate == null
-                            || priorMostRecentDate.before(item.getPubDate())
-                            || priorMostRecentDate.equals(item.getPubDate())) {
-                        Log.d(TAG, "Marking item published on " + item.getPubDate()
-                                + " new, prior most recent date = " + priorMostRecentDate);
-                        item.setNew();
-                    }
-                } else {
-                    oldItem.updateFromOther(item);
-                }
-            }
-
-            // identify items to be removed
-            if (removeUnlistedItems) {
-                Iterator<FeedItem> it = savedFeed.getItems().iterator();
-                while (it.hasNext()) {
-                    FeedItem feedItem = it.next();
-                    if (searchFeedItemByIdentifyingValue(newFeed, feedItem.getIdentifyingValue()) == null) {
-                        unlistedItems.add(feedItem);
-                        it.remove();
-                    }
-                }
-            }
-
-            // update attributes
-            savedFeed.setLastUpdate(newFeed.getLastUpdate());
-            savedFeed.setType(newFeed.getType());
-            savedFeed.setLastUpdateFailed(false);
-
+            mergeFeed(savedFeed, newFeed, removeUnlistedItems, unlistedItems);
             resultFeed = savedFeed;
         }
 
@@ -474,6 +397,9 @@ public final class DBTasks {
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
+        if (savedFeed != null) {
+            stopChangeTracking(savedFeed);
+        }
 
         adapter.close();
 
@@ -486,6 +412,184 @@ public final class DBTasks {
         return resultFeed;
     }
 
+    /**
+     * Same as {@link #updateFeed(Context, Feed, boolean)} with removeUnlistedItems=false, but for
+     * several feeds at once. All existing feeds are written in a single database transaction and only
+     * one {@link FeedListUpdateEvent} is posted for the whole batch.
+     * <p/>
+     * The feeds in the list must be distinct. This method should NOT be executed on the GUI thread.
+     *
+     * @param context  Used for accessing the DB.
+     * @param newFeeds The new Feed objects.
+     * @return The updated Feeds from the database, in the same order as newFeeds.
+     */
+    public static synchronized List<Feed> updateFeeds(Context context, List<Feed> newFeeds) {
+        List<Feed> resultFeeds = new ArrayList<>(newFeeds.size());
+        List<Feed> savedFeeds = new ArrayList<>();
+        List<Feed> addedFeeds = new ArrayList<>();
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+
+        for (Feed newFeed : newFeeds) {
+            Feed savedFeed = searchFeedByIdentifyingValueOrID(adapter, newFeed);
+            if (savedFeed == null) {
+                prepareNewFeed(newFeed);
+                addedFeeds.add(newFeed);
+                resultFeeds.add(newFeed);
+            } else {
+                mergeFeed(savedFeed, newFeed, false, null);
+                savedFeeds.add(savedFeed);
+                resultFeeds.add(savedFeed);
+            }
+        }
+
+        try {
+            if (!addedFeeds.isEmpty()) {
+                DBWriter.addNewFeed(context, addedFeeds.toArray(new Feed[0])).get();
+            }
+            if (!savedFeeds.isEmpty()) {
+                DBWriter.setCompleteFeed(savedFeeds.toArray(new Feed[0])).get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+        for (Feed savedFeed : savedFeeds) {
+            stopChangeTracking(savedFeed);
+        }
+
+        // Update new feeds with default values that are set in database
+        for (int i = 0; i < resultFeeds.size(); i++) {
+            Feed feed = resultFeeds.get(i);
+            if (feed == newFeeds.get(i)) { // Feed did not exist before
+                Feed reloaded = searchFeedByIdentifyingValueOrID(adapter, feed);
+                if (reloaded != null) {
+                    resultFeeds.set(i, reloaded);
+                }
+            }
+        }
+
+        adapter.close();
+
+        EventBus.getDefault().post(new FeedListUpdateEvent(savedFeeds));
+        return resultFeeds;
+    }
+
+    private static void stopChangeTracking(Feed feed) {
+        for (FeedItem item : feed.getItems()) {
+            item.stopChangeTracking();
+        }
+    }
+
+    private static void prepareNewFeed(Feed newFeed) {
+        Log.d(TAG, "Found no existing Feed with title "
+                        + newFeed.getTitle() + ". Adding as new one.");
+
+        // Add a new Feed
+        // all new feeds will have the most recent item marked as unplayed
+        FeedItem mostRecent = newFeed.getMostRecentItem();
+        if (mostRecent != null) {
+            mostRecent.setNew();
+        }
+    }
+
+    /**
+     * Merges the attributes and items of newFeed into savedFeed.
+     *
+     * @param unlistedItems Receives the items that were removed from savedFeed because they are not
+     *                      listed in newFeed. Only used if removeUnlistedItems is true.
+     */
+    private static void mergeFeed(Feed savedFeed, Feed newFeed, boolean removeUnlistedItems,
+                                  List<FeedItem> unlistedItems) {
+        Log.d(TAG, "Feed with title " + newFeed.getTitle()
+                    + " already exists. Syncing new with existing one.");
+
+        Collections.sort(newFeed.getItems(), new FeedItemPubdateComparator());
+
+        if (newFeed.getPageNr() == savedFeed.getPageNr()) {
+            if (savedFeed.compareWithOther(newFeed)) {
+                Log.d(TAG, "Feed has updated attribute values. Updating old feed's attributes");
+                savedFeed.updateFromOther(newFeed);
+            }
+        } else {
+            Log.d(TAG, "New feed has a higher page number.");
+            savedFeed.setNextPageLink(newFeed.getNextPageLink());
+        }
+        if (savedFeed.getPreferences().compareWithOther(newFeed.getPreferences())) {
+            Log.d(TAG, "Feed has updated preferences. Updating old feed's preferences");
+            savedFeed.getPreferences().updateFromOther(newFeed.getPreferences());
+        }
+
+        // get the most recent date now, before we start changing the list
+        FeedItem priorMostRecent = savedFeed.getMostRecentItem();
+        Date priorMostRecentDate = null;
+        if (priorMostRecent != null) {
+            priorMostRecentDate = priorMostRecent.getPubDate();
+        }
+
+        // Only write the parts of the saved items that are changed by the merge
+        for (FeedItem savedItem : savedFeed.getItems()) {
+            savedItem.startChangeTracking();
+        }
+
+        // Look for new or updated Items
+        Map<String, FeedItem> savedItemsIndex = buildIdentifyingValueIndex(savedFeed.getItems());
+        for (int idx = 0; idx < newFeed.getItems().size(); idx++) {
+            final FeedItem item = newFeed.getItems().get(idx);
+            FeedItem oldItem = savedItemsIndex.get(item.getIdentifyingValue());
+            if (oldItem == null) {
+                // item is new
+                savedItemsIndex.put(item.getIdentifyingValue(), item);
+                item.setFeed(savedFeed);
+                item.setAutoDownload(savedFeed.getPreferences().getAutoDownload());
+
+                if (idx >= savedFeed.getItems().size()) {
+                    savedFeed.getItems().add(item);
+                } else {
+                    savedFeed.getItems().add(idx, item);
+                }
+
+                // only mark the item new if it was published after or at the same time
+                // as the most recent item
+                // (if the most recent date is null then we can assume there are no items
+                // and this is the first, hence 'new')
+                // New items that do not have a pubDate set are always marked as new
+                if (item.getPubDate() == null || priorMostRecentDate == null
+                        || priorMostRecentDate.before(item.getPubDate())
+                        || priorMostRecentDate.equals(item.getPubDate())) {
+                    Log.d(TAG, "Marking item published on " + item.getPubDate()
+                            + " new, prior most recent date = " + priorMostRecentDate);
+                    item.setNew();
+                }
+            } else {
+                oldItem.updateFromOther(item);
+            }
+        }
+
+        // identify items to be removed
+        if (removeUnlistedItems) {
+            Set<String> listedIdentifiers = new HashSet<>(newFeed.getItems().size() * 2);
+            for (FeedItem feedItem : newFeed.getItems()) {
+                listedIdentifiers.add(feedItem.getIdentifyingValue());
+            }
+            Iterator<FeedItem> it = savedFeed.getItems().iterator();
+            while (it.hasNext()) {
+                FeedItem feedItem = it.next();
+                if (!listedIdentifiers.contains(feedItem.getIdentifyingValue())) {
+                    unlistedItems.add(feedItem);
+                    it.remove();
+                }
+            }
+        }
+
+        // update attributes
+        savedFeed.setLastUpdate(newFeed.getLastUpdate());
+        savedFeed.setEtag(newFeed.getEtag());
+        savedFeed.setContentHash(newFeed.getContentHash());
+        savedFeed.setType(newFeed.getType());
+        savedFeed.setLastUpdateFailed(false);
+    }
+
     /**
      * Searches the FeedItems of a specific Feed for a given string.
      *
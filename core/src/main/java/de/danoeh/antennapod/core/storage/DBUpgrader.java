@@ -6,6 +6,8 @@ import android.database.sqlite.SQLiteDatabase;
 import android.media.MediaMetadataRetriever;
 import android.util.Log;
 
+import java.io.File;
+
 import de.danoeh.antennapod.core.feed.FeedItem;
 
 import static de.danoeh.antennapod.core.feed.FeedPreferences.SPEED_USE_GLOBAL;
@@ -322,6 +324,86 @@ class DBUpgrader {
             db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
                     + " ADD COLUMN " + PodDBAdapter.KEY_FEED_TAGS + " TEXT;");
         }
+        if (oldVersion < 2030001) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_CONTENT_HASH + " TEXT");
+        }
+        if (oldVersion < 2030002) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEEDS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_ETAG + " TEXT");
+        }
+        if (oldVersion < 2030003) {
+            // Also fills the indexes with the existing feeds and items
+            for (String statement : PodDBAdapter.CREATE_FEED_ITEMS_SEARCH) {
+                db.execSQL(statement);
+            }
+            for (String statement : PodDBAdapter.CREATE_FEEDS_SEARCH) {
+                db.execSQL(statement);
+            }
+        }
+        if (oldVersion < 2030004) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_MEDIA
+                    + " ADD COLUMN " + PodDBAdapter.KEY_DOWNLOADED_SIZE + " INTEGER DEFAULT 0");
+            // Look at the existing downloads once, so that statistics never need to access the files
+            try (Cursor c = db.rawQuery("SELECT " + PodDBAdapter.KEY_ID + ", " + PodDBAdapter.KEY_FILE_URL
+                    + " FROM " + PodDBAdapter.TABLE_NAME_FEED_MEDIA
+                    + " WHERE " + PodDBAdapter.KEY_DOWNLOADED + "=1", null)) {
+                ContentValues values = new ContentValues();
+                while (c.moveToNext()) {
+                    String fileUrl = c.getString(1);
+                    if (fileUrl == null) {
+                        continue;
+                    }
+                    values.put(PodDBAdapter.KEY_DOWNLOADED_SIZE, new File(fileUrl).length());
+                    db.update(PodDBAdapter.TABLE_NAME_FEED_MEDIA, values, PodDBAdapter.KEY_ID + "=?",
+                            new String[]{String.valueOf(c.getLong(0))});
+                }
+            }
+        }
+        if (oldVersion < 2030005) {
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDITEMS_FEED_PUBDATE);
+            // Also computes the counters of the existing feeds
+            for (String statement : PodDBAdapter.CREATE_FEED_COUNTERS) {
+                db.execSQL(statement);
+            }
+        }
+        if (oldVersion < 2030006) {
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_DOWNLOADED);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_FEEDMEDIA_PLAYBACK_COMPLETION_DATE);
+        }
+        if (oldVersion < 2030007) {
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_QUEUE
+                    + " ADD COLUMN " + PodDBAdapter.KEY_QUEUE_POSITION + " INTEGER");
+            // The queue used to be ordered by ID
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_QUEUE + " SET " + PodDBAdapter.KEY_QUEUE_POSITION
+                    + " = (" + PodDBAdapter.KEY_ID + " + 1) * " + PodDBAdapter.QUEUE_POSITION_STEP);
+            db.execSQL(PodDBAdapter.CREATE_INDEX_QUEUE_POSITION);
+        }
+        if (oldVersion < 2030008) {
+            for (String statement : PodDBAdapter.dropSearchIndex(PodDBAdapter.TABLE_NAME_FEED_ITEMS_SEARCH)) {
+                db.execSQL(statement);
+            }
+            for (String statement : PodDBAdapter.CREATE_FEED_ITEM_DESCRIPTIONS) {
+                db.execSQL(statement);
+            }
+            db.execSQL("INSERT INTO " + PodDBAdapter.TABLE_NAME_FEED_ITEM_DESCRIPTIONS
+                    + " (" + PodDBAdapter.KEY_ID + ", " + PodDBAdapter.KEY_DESCRIPTION + ")"
+                    + " SELECT " + PodDBAdapter.KEY_ID + ", " + PodDBAdapter.KEY_DESCRIPTION
+                    + " FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " WHERE " + PodDBAdapter.KEY_DESCRIPTION + " IS NOT NULL");
+            // Old SQLite versions cannot drop the column, so only its content is removed
+            db.execSQL("UPDATE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " SET " + PodDBAdapter.KEY_DESCRIPTION + " = NULL"
+                    + " WHERE " + PodDBAdapter.KEY_DESCRIPTION + " IS NOT NULL");
+            db.execSQL("ALTER TABLE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+                    + " ADD COLUMN " + PodDBAdapter.KEY_DESCRIPTION_HASH + " INTEGER");
+            for (String statement : PodDBAdapter.CREATE_FEED_ITEMS_SEARCH) {
+                db.execSQL(statement);
+            }
+            for (String statement : PodDBAdapter.CREATE_FEED_ITEM_DESCRIPTIONS_SEARCH) {
+                db.execSQL(statement);
+            }
+        }
     }
 
 }
@@ -125,6 +125,7 @@ public class DBWriter {
             adapter.open();
             adapter.setMedia(media);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
 
             if (media.getId() == PlaybackPreferences.getCurrentlyPlayingFeedMediaId()) {
                 PlaybackPreferences.writeNoMediaPlaying();
@@ -190,11 +191,13 @@ public class DBWriter {
      */
     private static void deleteFeedItemsSynchronous(@NonNull Context context, @NonNull List<FeedItem> items) {
         DownloadRequester requester = DownloadRequester.getInstance();
-        List<FeedItem> queue = DBReader.getQueue();
+        LongList queueIds = DBReader.getQueueIDList();
         List<FeedItem> removedFromQueue = new ArrayList<>();
+        LongList removedFromQueueIds = new LongList();
         for (FeedItem item : items) {
-            if (queue.remove(item)) {
+            if (queueIds.remove(item.getId())) {
                 removedFromQueue.add(item);
+                removedFromQueueIds.add(item.getId());
             }
             if (item.getMedia() != null && item.getMedia().isDownloaded()) {
                 deleteFeedMediaSynchronous(context, item.getMedia());
@@ -206,10 +209,11 @@ public class DBWriter {
         PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
         if (!removedFromQueue.isEmpty()) {
-            adapter.setQueue(queue);
+            adapter.removeQueueItems(removedFromQueueIds.toArray());
         }
         adapter.removeFeedItems(items);
         adapter.close();
+        EpisodeCleanupAlgorithm.invalidateReclaimableItems();
 
         for (FeedItem item : removedFromQueue) {
             EventBus.getDefault().post(QueueEvent.irreversibleRemoved(item));
@@ -233,6 +237,7 @@ public class DBWriter {
             adapter.open();
             adapter.clearPlaybackHistory();
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             EventBus.getDefault().post(PlaybackHistoryEvent.listUpdated());
         });
     }
@@ -267,6 +272,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedMediaPlaybackCompletionDate(media);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             EventBus.getDefault().post(PlaybackHistoryEvent.listUpdated());
 
         });
@@ -303,15 +309,18 @@ public class DBWriter {
         return dbExec.submit(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            final List<FeedItem> queue = DBReader.getQueue(adapter);
+            final LongList queueIds = DBReader.getQueueIDList(adapter);
             FeedItem item;
 
-            if (queue != null) {
-                if (!itemListContains(queue, itemId)) {
+            if (queueIds != null) {
+                if (!queueIds.contains(itemId)) {
                     item = DBReader.getFeedItem(itemId);
                     if (item != null) {
-                        queue.add(index, item);
-                        adapter.setQueue(queue);
+                        if (index < 0 || index > queueIds.size()) {
+                            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + queueIds.size());
+                        }
+                        adapter.addQueueItem(item, index);
+                        EpisodeCleanupAlgorithm.invalidateReclaimableItems();
                         item.addTag(FeedItem.TAG_QUEUE);
                         EventBus.getDefault().post(QueueEvent.added(item, index));
                         EventBus.getDefault().post(FeedItemEvent.updated(item));
@@ -403,8 +412,14 @@ public class DBWriter {
                 }
             }
             if (queueModified) {
-                applySortOrder(queue, events);
-                adapter.setQueue(queue);
+                if (applySortOrder(queue, events)) {
+                    adapter.setQueue(queue);
+                } else {
+                    for (QueueEvent event : events) {
+                        adapter.addQueueItem(event.item, event.position);
+                    }
+                }
+                EpisodeCleanupAlgorithm.invalidateReclaimableItems();
                 for (QueueEvent event : events) {
                     EventBus.getDefault().post(event);
                 }
@@ -426,18 +441,19 @@ public class DBWriter {
      *
      * @param queue  The queue to be sorted.
      * @param events Replaces the events by a single SORT event if the list has to be sorted automatically.
+     * @return true if the queue was sorted
      */
-    private static void applySortOrder(List<FeedItem> queue, List<QueueEvent> events) {
+    private static boolean applySortOrder(List<FeedItem> queue, List<QueueEvent> events) {
         if (!UserPreferences.isQueueKeepSorted()) {
             // queue is not in keep sorted mode, there's nothing to do
-            return;
+            return false;
         }
 
         // Sort queue by configured sort order
         SortOrder sortOrder = UserPreferences.getQueueKeepSortedOrder();
         if (sortOrder == SortOrder.RANDOM) {
             // do not shuffle the list on every change
-            return;
+            return false;
         }
         Permutor<FeedItem> permutor = FeedItemPermutors.getPermutor(sortOrder);
         permutor.reorder(queue);
@@ -445,6 +461,7 @@ public class DBWriter {
         // Replace ADDED events by a single SORTED event
         events.clear();
         events.add(QueueEvent.sorted(queue));
+        return true;
     }
 
     /**
@@ -456,6 +473,7 @@ public class DBWriter {
             adapter.open();
             adapter.clearQueue();
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
 
             EventBus.getDefault().post(QueueEvent.cleared());
         });
@@ -486,22 +504,23 @@ public class DBWriter {
         }
         final PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        final List<FeedItem> queue = DBReader.getQueue(adapter);
+        final LongList queueIds = DBReader.getQueueIDList(adapter);
 
-        if (queue != null) {
+        if (queueIds != null) {
             boolean queueModified = false;
             List<QueueEvent> events = new ArrayList<>();
             List<FeedItem> updatedItems = new ArrayList<>();
+            LongList removedIds = new LongList();
             for (long itemId : itemIds) {
-                int position = indexInItemList(queue, itemId);
-                if (position >= 0) {
+                if (queueIds.contains(itemId)) {
                     final FeedItem item = DBReader.getFeedItem(itemId);
                     if (item == null) {
                         Log.e(TAG, "removeQueueItem - item in queue but somehow cannot be loaded." +
                                 " Item ignored. It should never happen. id:" + itemId);
                         continue;
                     }
-                    queue.remove(position);
+                    queueIds.remove(itemId);
+                    removedIds.add(itemId);
                     item.removeTag(FeedItem.TAG_QUEUE);
                     events.add(QueueEvent.removed(item));
                     updatedItems.add(item);
@@ -511,7 +530,8 @@ public class DBWriter {
                 }
             }
             if (queueModified) {
-                adapter.setQueue(queue);
+                adapter.removeQueueItems(removedIds.toArray());
+                EpisodeCleanupAlgorithm.invalidateReclaimableItems();
                 for (QueueEvent event : events) {
                     EventBus.getDefault().post(event);
                 }
@@ -533,6 +553,7 @@ public class DBWriter {
             final PodDBAdapter adapter = PodDBAdapter.getInstance().open();
             adapter.addFavoriteItem(item);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             item.addTag(FeedItem.TAG_FAVORITE);
             EventBus.getDefault().post(FavoritesEvent.added(item));
             EventBus.getDefault().post(FeedItemEvent.updated(item));
@@ -544,6 +565,7 @@ public class DBWriter {
             final PodDBAdapter adapter = PodDBAdapter.getInstance().open();
             adapter.removeFavoriteItem(item);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             item.removeTag(FeedItem.TAG_FAVORITE);
             EventBus.getDefault().post(FavoritesEvent.removed(item));
             EventBus.getDefault().post(FeedItemEvent.updated(item));
@@ -617,16 +639,17 @@ public class DBWriter {
                                             final int to, final boolean broadcastUpdate) {
         final PodDBAdapter adapter = PodDBAdapter.getInstance();
         adapter.open();
-        final List<FeedItem> queue = DBReader.getQueue(adapter);
-
-        if (queue != null) {
-            if (from >= 0 && from < queue.size() && to >= 0 && to < queue.size()) {
-                final FeedItem item = queue.remove(from);
-                queue.add(to, item);
+        final LongList queueIds = DBReader.getQueueIDList(adapter);
 
-                adapter.setQueue(queue);
+        if (queueIds != null) {
+            if (from >= 0 && from < queueIds.size() && to >= 0 && to < queueIds.size()) {
+                final long itemId = queueIds.get(from);
+                adapter.moveQueueItem(itemId, to);
                 if (broadcastUpdate) {
-                    EventBus.getDefault().post(QueueEvent.moved(item, to));
+                    final FeedItem item = DBReader.getFeedItem(itemId);
+                    if (item != null) {
+                        EventBus.getDefault().post(QueueEvent.moved(item, to));
+                    }
                 }
             }
         } else {
@@ -662,8 +685,9 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedItemRead(played, itemIds);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             if (broadcastUpdate) {
-                EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+                EventBus.getDefault().post(UnreadItemsUpdateEvent.playedStateChanged(played, itemIds));
             }
         });
     }
@@ -694,6 +718,7 @@ public class DBWriter {
             adapter.setFeedItemRead(played, itemId, mediaId,
                     resetMediaPosition);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
 
             EventBus.getDefault().post(new UnreadItemsUpdateEvent());
         });
@@ -708,10 +733,10 @@ public class DBWriter {
         return dbExec.submit(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED, feedId);
+            long[] changedIds = adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED, feedId);
             adapter.close();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            EventBus.getDefault().post(UnreadItemsUpdateEvent.playedStateChanged(FeedItem.UNPLAYED, changedIds));
         });
     }
 
@@ -724,10 +749,11 @@ public class DBWriter {
         return dbExec.submit(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setFeedItems(FeedItem.PLAYED, feedId);
+            long[] changedIds = adapter.setFeedItems(FeedItem.PLAYED, feedId);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            EventBus.getDefault().post(UnreadItemsUpdateEvent.playedStateChanged(FeedItem.PLAYED, changedIds));
         });
     }
 
@@ -738,10 +764,11 @@ public class DBWriter {
         return dbExec.submit(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setFeedItems(FeedItem.PLAYED);
+            long[] changedIds = adapter.setFeedItems(FeedItem.PLAYED);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            EventBus.getDefault().post(UnreadItemsUpdateEvent.playedStateChanged(FeedItem.PLAYED, changedIds));
         });
     }
 
@@ -752,10 +779,10 @@ public class DBWriter {
         return dbExec.submit(() -> {
             final PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED);
+            long[] changedIds = adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED);
             adapter.close();
 
-            EventBus.getDefault().post(new UnreadItemsUpdateEvent());
+            EventBus.getDefault().post(UnreadItemsUpdateEvent.playedStateChanged(FeedItem.UNPLAYED, changedIds));
         });
     }
 
@@ -790,6 +817,7 @@ public class DBWriter {
             adapter.open();
             adapter.setFeedItemlist(items);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             EventBus.getDefault().post(FeedItemEvent.updated(items));
         });
     }
@@ -806,6 +834,7 @@ public class DBWriter {
             adapter.open();
             adapter.setMedia(media);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
         });
     }
 
@@ -835,6 +864,7 @@ public class DBWriter {
             adapter.open();
             adapter.setSingleFeedItem(item);
             adapter.close();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             EventBus.getDefault().post(FeedItemEvent.updated(item));
         });
     }
@@ -897,13 +927,19 @@ public class DBWriter {
         });
     }
 
-    public static Future<?> setFeedCustomTitle(Feed feed) {
+    /**
+     * Saves the title that the user gave to a feed. The feed objects of the cache are not
+     * modified, they are read again after the change.
+     *
+     * @param customTitle The new title or null to show the title of the feed again
+     */
+    public static Future<?> setFeedCustomTitle(final long feedId, @Nullable final String customTitle) {
         return dbExec.submit(() -> {
             PodDBAdapter adapter = PodDBAdapter.getInstance();
             adapter.open();
-            adapter.setFeedCustomTitle(feed.getId(), feed.getCustomTitle());
+            adapter.setFeedCustomTitle(feedId, customTitle);
             adapter.close();
-            EventBus.getDefault().post(new FeedListUpdateEvent(feed));
+            EventBus.getDefault().post(new FeedListUpdateEvent(feedId));
         });
     }
 
@@ -5,6 +5,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.net.Uri;
 import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 import android.text.format.Formatter;
 import android.util.Log;
 import de.danoeh.antennapod.core.R;
@@ -21,6 +22,8 @@ import java.nio.channels.FileChannel;
 public class DatabaseExporter {
     private static final String TAG = "DatabaseExporter";
     private static final String TEMP_DB_NAME = PodDBAdapter.DATABASE_NAME + "_tmp";
+    private static final int CHECKPOINT_ATTEMPTS = 5;
+    private static final long CHECKPOINT_RETRY_DELAY_MS = 200;
 
     public static void exportToDocument(Uri uri, Context context) throws IOException {
         ParcelFileDescriptor pfd = null;
@@ -52,6 +55,8 @@ public class DatabaseExporter {
             File currentDB = context.getDatabasePath(PodDBAdapter.DATABASE_NAME);
 
             if (currentDB.exists()) {
+                checkpoint();
+
                 src = new FileInputStream(currentDB).getChannel();
                 dst = outFileStream.getChannel();
                 long srcSize = src.size();
@@ -76,6 +81,27 @@ public class DatabaseExporter {
         }
     }
 
+    /**
+     * Copies the write-ahead log into the database file. Without that, the copy of the file would miss
+     * the latest changes. Retries a few times if other connections are busy.
+     */
+    private static void checkpoint() throws IOException {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        try {
+            for (int i = 0; i < CHECKPOINT_ATTEMPTS; i++) {
+                if (adapter.checkpoint()) {
+                    return;
+                }
+                Log.d(TAG, "Database is busy, retrying checkpoint");
+                SystemClock.sleep(CHECKPOINT_RETRY_DELAY_MS);
+            }
+        } finally {
+            adapter.close();
+        }
+        throw new IOException("Unable to write entire database. The database is busy.");
+    }
+
     public static void importBackup(Uri inputUri, Context context) throws IOException {
         InputStream inputStream = null;
         try {
@@ -91,7 +117,10 @@ public class DatabaseExporter {
             db.close();
 
             File currentDB = context.getDatabasePath(PodDBAdapter.DATABASE_NAME);
-            currentDB.delete();
+            // Open connections would keep using the deleted file
+            PodDBAdapter.closeDatabase();
+            // Also deletes the write-ahead log, which must not be applied to the imported database
+            SQLiteDatabase.deleteDatabase(currentDB);
             FileUtils.moveFile(tempDB, currentDB);
         } catch (IOException | SQLiteException e) {
             Log.e(TAG, Log.getStackTraceString(e));
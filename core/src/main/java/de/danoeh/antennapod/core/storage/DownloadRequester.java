@@ -222,10 +222,15 @@ public class DownloadRequester implements DownloadStateProvider {
                     true, username, password, lastModified, true, args, initiatedByUser
             );
             if (request != null) {
+                request.setEtag(feed.isPaged() || force ? null : feed.getEtag());
+                request.setContentHash(feed.isPaged() || force ? null : feed.getContentHash());
                 requests.add(request);
             }
         }
         if (!requests.isEmpty()) {
+            // Feeds from the same host are requested one after another, so that they can
+            // reuse the connections of the previous feeds instead of opening new ones
+            Collections.sort(requests, (r1, r2) -> r1.getHost().compareTo(r2.getHost()));
             download(context, requests.toArray(new DownloadRequest[0]));
         }
     }
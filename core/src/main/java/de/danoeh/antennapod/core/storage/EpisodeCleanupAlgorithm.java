@@ -1,10 +1,32 @@
 package de.danoeh.antennapod.core.storage;
 
 import android.content.Context;
+import android.util.Log;
 
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 
 public abstract class EpisodeCleanupAlgorithm {
+    private static final String TAG = "EpisodeCleanupAlgorithm";
+
+    /**
+     * The navigation drawer shows the number of reclaimable episodes and is reloaded after every change
+     * of the database. The count is kept until DBWriter downloads, deletes, plays or enqueues episodes.
+     */
+    private static EpisodeCleanupAlgorithm cachedAlgorithm;
+    private static int cachedReclaimableItems;
+    private static long cachedReclaimableItemsValidUntil;
+    /**
+     * Incremented by every invalidation, so that a count that was read before a change is not stored.
+     */
+    private static int generation;
 
     /**
      * Deletes downloaded episodes that are no longer needed. What episodes are deleted and how many
@@ -15,12 +37,25 @@ public abstract class EpisodeCleanupAlgorithm {
      *                    or getPerformCleanupParameter.
      * @return The number of episodes that were deleted.
      */
-    protected abstract int performCleanup(Context context, int numToRemove);
+    protected int performCleanup(Context context, int numToRemove) {
+        List<FeedItem> candidates = getCandidates();
+        int counter = deleteEpisodes(context, candidates.subList(0, Math.min(numToRemove, candidates.size())));
+        Log.i(TAG, String.format(Locale.US,
+                "Auto-delete deleted %d episodes (%d requested)", counter, numToRemove));
+        return counter;
+    }
 
     public int performCleanup(Context context) {
-        return performCleanup(context, getDefaultCleanupParameter());
+        int counter = performCleanup(context, getDefaultCleanupParameter());
+        return counter + makeRoomForBytes(context, 0);
     }
 
+    /**
+     * Returns the downloaded episodes that may be deleted, in the order in which they should be deleted.
+     */
+    @NonNull
+    protected abstract List<FeedItem> getCandidates();
+
     /**
      * Returns a parameter for performCleanup. The implementation of this interface should decide how much
      * space to free to satisfy the episode cache conditions. If the conditions are already satisfied, this
@@ -39,10 +74,125 @@ public abstract class EpisodeCleanupAlgorithm {
         return performCleanup(context, getNumEpisodesToCleanup(amountOfRoomNeeded));
     }
 
+    /**
+     * Cleans up just enough episodes so that downloads of the given size fit into the storage limit
+     * of the episode cache. Does nothing if the storage of the episode cache is not limited.
+     *
+     * @param context     Can be used for accessing the database
+     * @param bytesNeeded the size of the episodes we want to download
+     * @return The number of episodes that were deleted
+     */
+    public int makeRoomForBytes(Context context, long bytesNeeded) {
+        long storageLimit = UserPreferences.getEpisodeCacheStorageLimit();
+        if (storageLimit <= 0) {
+            return 0;
+        }
+        long bytesToFree = DBReader.getDownloadedEpisodesSize() + bytesNeeded - storageLimit;
+        if (bytesToFree <= 0) {
+            return 0;
+        }
+        List<FeedItem> candidates = getCandidates();
+        int numToRemove = 0;
+        long bytesFreed = 0;
+        while (numToRemove < candidates.size() && bytesFreed < bytesToFree) {
+            bytesFreed += getSizeOnDisk(candidates.get(numToRemove).getMedia());
+            numToRemove++;
+        }
+        int counter = deleteEpisodes(context, candidates.subList(0, numToRemove));
+        Log.i(TAG, String.format(Locale.US,
+                "Auto-delete deleted %d episodes to free %d of %d requested bytes", counter, bytesFreed, bytesToFree));
+        return counter;
+    }
+
+    /**
+     * Returns the number of bytes that deleting all candidates would free.
+     */
+    long getReclaimableBytes() {
+        long bytes = 0;
+        for (FeedItem item : getCandidates()) {
+            bytes += getSizeOnDisk(item.getMedia());
+        }
+        return bytes;
+    }
+
+    private static int deleteEpisodes(Context context, List<FeedItem> delete) {
+        for (FeedItem item : delete) {
+            try {
+                DBWriter.deleteFeedMediaOfItem(context, item.getMedia().getId()).get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        return delete.size();
+    }
+
+    /**
+     * Returns the size of a downloaded episode. Downloads from before the size was stored fall back to the
+     * size that the feed announced.
+     */
+    static long getSizeOnDisk(FeedMedia media) {
+        return media.getDownloadedSize() > 0 ? media.getDownloadedSize() : Math.max(0, media.getSize());
+    }
+
     /**
      * @return the number of episodes/items that *could* be cleaned up, if needed
      */
-    public abstract int getReclaimableItems();
+    public int getReclaimableItems() {
+        int readGeneration;
+        synchronized (EpisodeCleanupAlgorithm.class) {
+            if (equals(cachedAlgorithm) && System.currentTimeMillis() < cachedReclaimableItemsValidUntil) {
+                return cachedReclaimableItems;
+            }
+            readGeneration = generation;
+        }
+        long now = System.currentTimeMillis();
+        int reclaimableItems = countReclaimableItems(now);
+        long validUntil = getReclaimableItemsValidUntil(now);
+        synchronized (EpisodeCleanupAlgorithm.class) {
+            if (readGeneration == generation) {
+                cachedAlgorithm = this;
+                cachedReclaimableItems = reclaimableItems;
+                cachedReclaimableItemsValidUntil = validUntil;
+            }
+        }
+        return reclaimableItems;
+    }
+
+    /**
+     * Counts the episodes that could be cleaned up without loading them.
+     *
+     * @param now The current time
+     */
+    protected abstract int countReclaimableItems(long now);
+
+    /**
+     * Returns the time at which the result of countReclaimableItems changes even if the database does not.
+     */
+    protected long getReclaimableItemsValidUntil(long now) {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Forgets the cached number of reclaimable episodes. Called after changes of downloads, the played state,
+     * the queue or the favorites.
+     */
+    static synchronized void invalidateReclaimableItems() {
+        generation++;
+        cachedAlgorithm = null;
+    }
+
+    /**
+     * Algorithms of the same type and with the same parameters reclaim the same episodes.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass();
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 
     /**
      * @param amountOfRoomNeeded the number of episodes we want to download
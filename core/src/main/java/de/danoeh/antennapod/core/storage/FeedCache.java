@@ -0,0 +1,204 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.danoeh.antennapod.core.feed.Feed;
+
+/**
+ * In-memory snapshot of all feeds and their preferences.
+ * PodDBAdapter invalidates single feeds whenever it writes them, so only the changed feeds are read again.
+ * The feeds of a snapshot are shared by all callers and must not be modified.
+ */
+public class FeedCache {
+    private static final String TAG = "FeedCache";
+
+    /**
+     * Same order as {@link PodDBAdapter#getAllFeedsCursor()}: title with SQLite's NOCASE collation, then ID.
+     */
+    private static final Comparator<Feed> FEED_ORDER = (lhs, rhs) -> {
+        int result = compareNoCase(lhs.getFeedTitle(), rhs.getFeedTitle());
+        return result != 0 ? result : Long.compare(lhs.getId(), rhs.getId());
+    };
+
+    private static FeedCache instance;
+
+    private Snapshot snapshot;
+    /**
+     * Feeds that were written since the snapshot was taken.
+     */
+    private final Set<Long> staleFeeds = new HashSet<>();
+    /**
+     * Incremented by every invalidation, so that a snapshot that was read before a change is not stored.
+     */
+    private int generation;
+    private long hitCount;
+    private long missCount;
+
+    private FeedCache() {
+    }
+
+    public static synchronized FeedCache getInstance() {
+        if (instance == null) {
+            instance = new FeedCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns all feeds, sorted alphabetically by their title. The list must not be modified.
+     */
+    @NonNull
+    List<Feed> getFeeds() {
+        return getSnapshot().feeds;
+    }
+
+    /**
+     * Returns all feeds by their ID. The map must not be modified.
+     */
+    @NonNull
+    Map<Long, Feed> getFeedIndex() {
+        return getSnapshot().feedIndex;
+    }
+
+    @NonNull
+    private Snapshot getSnapshot() {
+        Snapshot current;
+        Set<Long> changedFeeds;
+        int readGeneration;
+        synchronized (this) {
+            if (snapshot != null && staleFeeds.isEmpty()) {
+                hitCount++;
+                return snapshot;
+            }
+            missCount++;
+            current = snapshot;
+            changedFeeds = new HashSet<>(staleFeeds);
+            readGeneration = generation;
+        }
+
+        Snapshot updated;
+        if (current == null) {
+            Log.d(TAG, "Loading all feeds");
+            updated = new Snapshot(DBReader.loadFeedList());
+        } else {
+            Log.d(TAG, "Loading " + changedFeeds.size() + " changed feeds");
+            updated = current.withChangedFeeds(changedFeeds);
+        }
+
+        synchronized (this) {
+            if (readGeneration == generation) {
+                snapshot = updated;
+                staleFeeds.clear();
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Reads the given feed again before the snapshot is used next time.
+     */
+    synchronized void invalidate(long feedId) {
+        generation++;
+        if (snapshot != null) {
+            staleFeeds.add(feedId);
+        }
+    }
+
+    /**
+     * Drops the snapshot. Used when it is not known which feeds were changed.
+     */
+    synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+        staleFeeds.clear();
+    }
+
+    /**
+     * Returns how often the feeds were served from memory.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns how often some or all feeds had to be read from the database.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Compares like SQLite's NOCASE collation, which only folds ASCII letters.
+     */
+    private static int compareNoCase(String lhs, String rhs) {
+        if (lhs == null || rhs == null) {
+            return lhs == null ? (rhs == null ? 0 : -1) : 1;
+        }
+        int length = Math.min(lhs.length(), rhs.length());
+        for (int i = 0; i < length; i++) {
+            char c1 = lhs.charAt(i);
+            char c2 = rhs.charAt(i);
+            if (c1 != c2) {
+                c1 = c1 >= 'A' && c1 <= 'Z' ? (char) (c1 + ('a' - 'A')) : c1;
+                c2 = c2 >= 'A' && c2 <= 'Z' ? (char) (c2 + ('a' - 'A')) : c2;
+                if (c1 != c2) {
+                    return c1 - c2;
+                }
+            }
+        }
+        return lhs.length() - rhs.length();
+    }
+
+    private static class Snapshot {
+        final List<Feed> feeds;
+        final Map<Long, Feed> feedIndex;
+
+        Snapshot(List<Feed> feeds) {
+            Map<Long, Feed> index = new HashMap<>(2 * feeds.size());
+            for (Feed feed : feeds) {
+                index.put(feed.getId(), feed);
+            }
+            this.feeds = Collections.unmodifiableList(feeds);
+            this.feedIndex = Collections.unmodifiableMap(index);
+        }
+
+        /**
+         * Creates a new snapshot that reads the given feeds again and keeps all other feeds.
+         */
+        Snapshot withChangedFeeds(Set<Long> changedFeeds) {
+            List<Feed> updated = new ArrayList<>(feeds.size() + changedFeeds.size());
+            for (Feed feed : feeds) {
+                if (!changedFeeds.contains(feed.getId())) {
+                    updated.add(feed);
+                }
+            }
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            try {
+                for (long feedId : changedFeeds) {
+                    try (Cursor cursor = adapter.getFeedCursor(feedId)) {
+                        if (cursor.moveToNext()) {
+                            updated.add(DBReader.extractFeedFromCursorRow(cursor));
+                        }
+                    }
+                }
+            } finally {
+                adapter.close();
+            }
+            Collections.sort(updated, FEED_ORDER);
+            return new Snapshot(updated);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package de.danoeh.antennapod.core.storage;
+
+import androidx.annotation.NonNull;
+
+import de.danoeh.antennapod.core.feed.FeedItem;
+
+/**
+ * Position in an episode list that is sorted by publication date (newest first).
+ * Loading the next page seeks to this position instead of skipping all previous rows with an offset,
+ * so the cost of a page does not depend on how far the user has scrolled.
+ */
+public class PageToken {
+    public final long pubDate;
+    public final long itemId;
+
+    public PageToken(long pubDate, long itemId) {
+        this.pubDate = pubDate;
+        this.itemId = itemId;
+    }
+
+    /**
+     * Creates a token that continues the list after the given item.
+     */
+    @NonNull
+    public static PageToken after(@NonNull FeedItem item) {
+        long pubDate = item.getPubDate() != null ? item.getPubDate().getTime() : 0;
+        return new PageToken(pubDate, item.getId());
+    }
+}
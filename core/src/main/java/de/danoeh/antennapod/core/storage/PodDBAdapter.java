@@ -10,6 +10,7 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -22,12 +23,16 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import de.danoeh.antennapod.core.feed.Chapter;
 import de.danoeh.antennapod.core.feed.Feed;
@@ -38,6 +43,7 @@ import de.danoeh.antennapod.core.feed.FeedPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.service.download.DownloadStatus;
 import de.danoeh.antennapod.core.util.LongIntMap;
+import de.danoeh.antennapod.core.util.LongList;
 import de.danoeh.antennapod.core.util.SortOrder;
 
 import static de.danoeh.antennapod.core.feed.FeedPreferences.SPEED_USE_GLOBAL;
@@ -52,7 +58,7 @@ public class PodDBAdapter {
 
     private static final String TAG = "PodDBAdapter";
     public static final String DATABASE_NAME = "Antennapod.db";
-    public static final int VERSION = 2030000;
+    public static final int VERSION = 2030008;
 
     /**
      * Maximum number of arguments for IN-operator.
@@ -110,6 +116,13 @@ public class PodDBAdapter {
     public static final String KEY_LAST_UPDATE_FAILED = "last_update_failed";
     public static final String KEY_HAS_EMBEDDED_PICTURE = "has_embedded_picture";
     public static final String KEY_LAST_PLAYED_TIME = "last_played_time";
+    public static final String KEY_DOWNLOADED_SIZE = "downloaded_size";
+    public static final String KEY_NEW_ITEMS = "new_items";
+    public static final String KEY_UNPLAYED_ITEMS = "unplayed_items";
+    public static final String KEY_PLAYED_ITEMS = "played_items";
+    public static final String KEY_DOWNLOADED_ITEMS = "downloaded_items";
+    public static final String KEY_LATEST_PUBDATE = "latest_pubdate";
+    public static final String KEY_QUEUE_POSITION = "queue_position";
     public static final String KEY_INCLUDE_FILTER = "include_filter";
     public static final String KEY_EXCLUDE_FILTER = "exclude_filter";
     public static final String KEY_FEED_PLAYBACK_SPEED = "feed_playback_speed";
@@ -117,6 +130,9 @@ public class PodDBAdapter {
     public static final String KEY_FEED_SKIP_ENDING = "feed_skip_ending";
     public static final String KEY_FEED_TAGS = "tags";
     public static final String KEY_EPISODE_NOTIFICATION = "episode_notification";
+    public static final String KEY_CONTENT_HASH = "content_hash";
+    public static final String KEY_ETAG = "etag";
+    public static final String KEY_DESCRIPTION_HASH = "description_hash";
 
     // Table names
     public static final String TABLE_NAME_FEEDS = "Feeds";
@@ -127,6 +143,11 @@ public class PodDBAdapter {
     public static final String TABLE_NAME_QUEUE = "Queue";
     public static final String TABLE_NAME_SIMPLECHAPTERS = "SimpleChapters";
     public static final String TABLE_NAME_FAVORITES = "Favorites";
+    public static final String TABLE_NAME_FEED_ITEM_DESCRIPTIONS = "FeedItemDescriptions";
+    public static final String TABLE_NAME_FEED_ITEMS_SEARCH = "FeedItemsSearch";
+    public static final String TABLE_NAME_FEED_ITEM_DESCRIPTIONS_SEARCH = "FeedItemDescriptionsSearch";
+    public static final String TABLE_NAME_FEEDS_SEARCH = "FeedsSearch";
+    public static final String TABLE_NAME_FEED_COUNTERS = "FeedCounters";
 
     // SQL Statements for creating new tables
     private static final String TABLE_PRIMARY_KEY = KEY_ID
@@ -156,17 +177,30 @@ public class PodDBAdapter {
             + KEY_FEED_TAGS + " TEXT,"
             + KEY_FEED_SKIP_INTRO + " INTEGER DEFAULT 0,"
             + KEY_FEED_SKIP_ENDING + " INTEGER DEFAULT 0,"
-            + KEY_EPISODE_NOTIFICATION + " INTEGER DEFAULT 0)";
+            + KEY_EPISODE_NOTIFICATION + " INTEGER DEFAULT 0,"
+            + KEY_CONTENT_HASH + " TEXT,"
+            + KEY_ETAG + " TEXT)";
 
     private static final String CREATE_TABLE_FEED_ITEMS = "CREATE TABLE "
             + TABLE_NAME_FEED_ITEMS + " (" + TABLE_PRIMARY_KEY
             + KEY_TITLE + " TEXT," + KEY_PUBDATE + " INTEGER,"
             + KEY_READ + " INTEGER," + KEY_LINK + " TEXT,"
-            + KEY_DESCRIPTION + " TEXT," + KEY_PAYMENT_LINK + " TEXT,"
+            + KEY_PAYMENT_LINK + " TEXT,"
             + KEY_MEDIA + " INTEGER," + KEY_FEED + " INTEGER,"
             + KEY_HAS_CHAPTERS + " INTEGER," + KEY_ITEM_IDENTIFIER + " TEXT,"
             + KEY_IMAGE_URL + " TEXT,"
-            + KEY_AUTO_DOWNLOAD + " INTEGER)";
+            + KEY_AUTO_DOWNLOAD + " INTEGER,"
+            + KEY_DESCRIPTION_HASH + " INTEGER)";
+
+    // Descriptions can be large, so they are kept out of the rows that item lists read.
+    // They are only loaded by DBReader.loadDescriptionOfFeedItem and deleted together with their item.
+    static final String[] CREATE_FEED_ITEM_DESCRIPTIONS = {
+            "CREATE TABLE " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS + " (" + KEY_ID + " INTEGER PRIMARY KEY,"
+                    + KEY_DESCRIPTION + " TEXT)",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS + "_item_delete AFTER DELETE ON "
+                    + TABLE_NAME_FEED_ITEMS + " BEGIN DELETE FROM " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS
+                    + " WHERE " + KEY_ID + "=old." + KEY_ID + "; END"
+    };
 
     private static final String CREATE_TABLE_FEED_MEDIA = "CREATE TABLE "
             + TABLE_NAME_FEED_MEDIA + " (" + TABLE_PRIMARY_KEY + KEY_DURATION
@@ -177,7 +211,8 @@ public class PodDBAdapter {
             + KEY_FEEDITEM + " INTEGER,"
             + KEY_PLAYED_DURATION + " INTEGER,"
             + KEY_HAS_EMBEDDED_PICTURE + " INTEGER,"
-            + KEY_LAST_PLAYED_TIME + " INTEGER" + ")";
+            + KEY_LAST_PLAYED_TIME + " INTEGER,"
+            + KEY_DOWNLOADED_SIZE + " INTEGER DEFAULT 0" + ")";
 
     private static final String CREATE_TABLE_DOWNLOAD_LOG = "CREATE TABLE "
             + TABLE_NAME_DOWNLOAD_LOG + " (" + TABLE_PRIMARY_KEY + KEY_FEEDFILE
@@ -188,7 +223,14 @@ public class PodDBAdapter {
 
     private static final String CREATE_TABLE_QUEUE = "CREATE TABLE "
             + TABLE_NAME_QUEUE + "(" + KEY_ID + " INTEGER PRIMARY KEY,"
-            + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER)";
+            + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER," + KEY_QUEUE_POSITION + " INTEGER)";
+
+    /**
+     * Distance between the positions of neighbouring queue items after the queue has been written completely.
+     * Items that are inserted or moved get a position in the gap between their new neighbours,
+     * so only their own row needs to be written.
+     */
+    static final long QUEUE_POSITION_STEP = 1 << 16;
 
     private static final String CREATE_TABLE_SIMPLECHAPTERS = "CREATE TABLE "
             + TABLE_NAME_SIMPLECHAPTERS + " (" + TABLE_PRIMARY_KEY + KEY_TITLE
@@ -204,6 +246,13 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_ITEMS + "_" + KEY_PUBDATE + " ON " + TABLE_NAME_FEED_ITEMS + " ("
             + KEY_PUBDATE + ")";
 
+    /**
+     * Lets the FeedCounters triggers find the latest episode of a feed without reading all of its episodes.
+     */
+    static final String CREATE_INDEX_FEEDITEMS_FEED_PUBDATE = "CREATE INDEX "
+            + TABLE_NAME_FEED_ITEMS + "_" + KEY_FEED + "_" + KEY_PUBDATE + " ON " + TABLE_NAME_FEED_ITEMS + " ("
+            + KEY_FEED + ", " + KEY_PUBDATE + ")";
+
     static final String CREATE_INDEX_FEEDITEMS_READ = "CREATE INDEX "
             + TABLE_NAME_FEED_ITEMS + "_" + KEY_READ + " ON " + TABLE_NAME_FEED_ITEMS + " ("
             + KEY_READ + ")";
@@ -216,10 +265,179 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_MEDIA + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_FEED_MEDIA + " ("
             + KEY_FEEDITEM + ")";
 
+    static final String CREATE_INDEX_QUEUE_POSITION = "CREATE INDEX "
+            + TABLE_NAME_QUEUE + "_" + KEY_QUEUE_POSITION + " ON " + TABLE_NAME_QUEUE + " ("
+            + KEY_QUEUE_POSITION + ")";
+
+    static final String CREATE_INDEX_FEEDMEDIA_DOWNLOADED = "CREATE INDEX "
+            + TABLE_NAME_FEED_MEDIA + "_" + KEY_DOWNLOADED + " ON " + TABLE_NAME_FEED_MEDIA + " ("
+            + KEY_DOWNLOADED + ")";
+
+    static final String CREATE_INDEX_FEEDMEDIA_PLAYBACK_COMPLETION_DATE = "CREATE INDEX "
+            + TABLE_NAME_FEED_MEDIA + "_" + KEY_PLAYBACK_COMPLETION_DATE + " ON " + TABLE_NAME_FEED_MEDIA + " ("
+            + KEY_PLAYBACK_COMPLETION_DATE + ")";
+
     static final String CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM = "CREATE INDEX "
             + TABLE_NAME_SIMPLECHAPTERS + "_" + KEY_FEEDITEM + " ON " + TABLE_NAME_SIMPLECHAPTERS + " ("
             + KEY_FEEDITEM + ")";
 
+    // Full-text search indexes. The content of the indexed columns is not copied, it is read
+    // from the content table. Triggers keep the index in sync with the content table.
+    private static final String[] FEED_ITEMS_SEARCH_COLUMNS = {KEY_TITLE};
+    private static final String[] FEED_ITEM_DESCRIPTIONS_SEARCH_COLUMNS = {KEY_DESCRIPTION};
+    private static final String[] FEEDS_SEARCH_COLUMNS = {KEY_TITLE, KEY_CUSTOM_TITLE, KEY_AUTHOR, KEY_DESCRIPTION};
+
+    static final String[] CREATE_FEED_ITEMS_SEARCH = createSearchIndex(
+            TABLE_NAME_FEED_ITEMS_SEARCH, TABLE_NAME_FEED_ITEMS, FEED_ITEMS_SEARCH_COLUMNS);
+
+    static final String[] CREATE_FEED_ITEM_DESCRIPTIONS_SEARCH = createSearchIndex(
+            TABLE_NAME_FEED_ITEM_DESCRIPTIONS_SEARCH, TABLE_NAME_FEED_ITEM_DESCRIPTIONS,
+            FEED_ITEM_DESCRIPTIONS_SEARCH_COLUMNS);
+
+    static final String[] CREATE_FEEDS_SEARCH = createSearchIndex(
+            TABLE_NAME_FEEDS_SEARCH, TABLE_NAME_FEEDS, FEEDS_SEARCH_COLUMNS);
+
+    /**
+     * Creates the statements for an FTS4 table that indexes the given columns of a table.
+     */
+    private static String[] createSearchIndex(String searchTable, String contentTable, String[] columns) {
+        StringBuilder columnList = new StringBuilder();
+        StringBuilder newValues = new StringBuilder();
+        for (String column : columns) {
+            columnList.append(", ").append(column);
+            newValues.append(", new.").append(column);
+        }
+        String delete = "DELETE FROM " + searchTable + " WHERE docid = old." + KEY_ID + ";";
+        String insert = "INSERT INTO " + searchTable + " (docid" + columnList + ") VALUES (new." + KEY_ID
+                + newValues + ");";
+        String updatedColumns = columnList.substring(2);
+        return new String[] {
+                "CREATE VIRTUAL TABLE " + searchTable + " USING fts4(content=\"" + contentTable + "\""
+                        + columnList + ")",
+                "CREATE TRIGGER " + searchTable + "_before_update BEFORE UPDATE OF " + updatedColumns
+                        + " ON " + contentTable + " BEGIN " + delete + " END",
+                "CREATE TRIGGER " + searchTable + "_before_delete BEFORE DELETE ON " + contentTable
+                        + " BEGIN " + delete + " END",
+                "CREATE TRIGGER " + searchTable + "_after_update AFTER UPDATE OF " + updatedColumns
+                        + " ON " + contentTable + " BEGIN " + insert + " END",
+                "CREATE TRIGGER " + searchTable + "_after_insert AFTER INSERT ON " + contentTable
+                        + " BEGIN " + insert + " END",
+                "INSERT INTO " + searchTable + " (" + searchTable + ") VALUES ('rebuild')"
+        };
+    }
+
+    /**
+     * Creates the statements that remove a table created by {@link #createSearchIndex} and its triggers.
+     */
+    static String[] dropSearchIndex(String searchTable) {
+        return new String[] {
+                "DROP TRIGGER IF EXISTS " + searchTable + "_before_update",
+                "DROP TRIGGER IF EXISTS " + searchTable + "_before_delete",
+                "DROP TRIGGER IF EXISTS " + searchTable + "_after_update",
+                "DROP TRIGGER IF EXISTS " + searchTable + "_after_insert",
+                "DROP TABLE IF EXISTS " + searchTable
+        };
+    }
+
+    // Per-feed counters, so that the subscription list does not need to look at every episode.
+    // Triggers update the counters in the same statement that changes the items or media.
+    private static final String FEED_OF_ITEM = "(SELECT " + KEY_FEED + " FROM " + TABLE_NAME_FEED_ITEMS
+            + " WHERE " + KEY_ID + "=%s)";
+    private static final String DOWNLOADED_MEDIA_OF_ITEM = "(SELECT COUNT(*) FROM " + TABLE_NAME_FEED_MEDIA
+            + " WHERE " + KEY_FEEDITEM + "=%1$s." + KEY_ID + " AND " + KEY_DOWNLOADED + "=1)";
+
+    static final String[] CREATE_FEED_COUNTERS = {
+            "CREATE TABLE " + TABLE_NAME_FEED_COUNTERS + " (" + KEY_FEED + " INTEGER PRIMARY KEY,"
+                    + KEY_NEW_ITEMS + " INTEGER DEFAULT 0,"
+                    + KEY_UNPLAYED_ITEMS + " INTEGER DEFAULT 0,"
+                    + KEY_PLAYED_ITEMS + " INTEGER DEFAULT 0,"
+                    + KEY_DOWNLOADED_ITEMS + " INTEGER DEFAULT 0,"
+                    + KEY_LATEST_PUBDATE + " INTEGER)",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_feed_insert AFTER INSERT ON " + TABLE_NAME_FEEDS
+                    + " BEGIN " + insertFeedCounters("new." + KEY_ID) + " END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_feed_delete AFTER DELETE ON " + TABLE_NAME_FEEDS
+                    + " BEGIN DELETE FROM " + TABLE_NAME_FEED_COUNTERS + " WHERE " + KEY_FEED + "=old." + KEY_ID
+                    + "; END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_item_insert AFTER INSERT ON " + TABLE_NAME_FEED_ITEMS
+                    + " BEGIN " + addItemToFeedCounters("new") + " END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_item_delete AFTER DELETE ON " + TABLE_NAME_FEED_ITEMS
+                    + " BEGIN " + removeItemFromFeedCounters("old") + " END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_item_update AFTER UPDATE OF "
+                    + KEY_READ + ", " + KEY_PUBDATE + ", " + KEY_FEED + " ON " + TABLE_NAME_FEED_ITEMS
+                    + " WHEN old." + KEY_READ + " IS NOT new." + KEY_READ
+                    + " OR old." + KEY_PUBDATE + " IS NOT new." + KEY_PUBDATE
+                    + " OR old." + KEY_FEED + " IS NOT new." + KEY_FEED
+                    + " BEGIN " + removeItemFromFeedCounters("old") + addItemToFeedCounters("new") + " END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_media_insert AFTER INSERT ON " + TABLE_NAME_FEED_MEDIA
+                    + " WHEN new." + KEY_DOWNLOADED + "=1"
+                    + " BEGIN " + addDownloadedToFeedCounters("1", "new") + " END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_media_delete AFTER DELETE ON " + TABLE_NAME_FEED_MEDIA
+                    + " WHEN old." + KEY_DOWNLOADED + "=1"
+                    + " BEGIN " + addDownloadedToFeedCounters("-1", "old") + " END",
+            "CREATE TRIGGER " + TABLE_NAME_FEED_COUNTERS + "_media_update AFTER UPDATE OF "
+                    + KEY_DOWNLOADED + ", " + KEY_FEEDITEM + " ON " + TABLE_NAME_FEED_MEDIA
+                    + " WHEN old." + KEY_DOWNLOADED + " IS NOT new." + KEY_DOWNLOADED
+                    + " OR old." + KEY_FEEDITEM + " IS NOT new." + KEY_FEEDITEM
+                    + " BEGIN " + addDownloadedToFeedCounters("-(old." + KEY_DOWNLOADED + " IS 1)", "old")
+                    + addDownloadedToFeedCounters("(new." + KEY_DOWNLOADED + " IS 1)", "new") + " END",
+            "INSERT OR REPLACE INTO " + TABLE_NAME_FEED_COUNTERS + " (" + KEY_FEED + ", " + KEY_NEW_ITEMS + ", "
+                    + KEY_UNPLAYED_ITEMS + ", " + KEY_PLAYED_ITEMS + ", " + KEY_DOWNLOADED_ITEMS + ", "
+                    + KEY_LATEST_PUBDATE + ")"
+                    + " SELECT " + TABLE_NAME_FEEDS + "." + KEY_ID + ","
+                    + " COUNT(CASE WHEN " + KEY_READ + "=" + FeedItem.NEW + " THEN 1 END),"
+                    + " COUNT(CASE WHEN " + KEY_READ + "=" + FeedItem.UNPLAYED + " THEN 1 END),"
+                    + " COUNT(CASE WHEN " + KEY_READ + "=" + FeedItem.PLAYED + " THEN 1 END),"
+                    + " COUNT(CASE WHEN " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + "=1 THEN 1 END),"
+                    + " MAX(" + KEY_PUBDATE + ")"
+                    + " FROM " + TABLE_NAME_FEEDS
+                    + " LEFT JOIN " + TABLE_NAME_FEED_ITEMS + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED
+                    + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                    + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON " + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                    + "=" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                    + " GROUP BY " + TABLE_NAME_FEEDS + "." + KEY_ID
+    };
+
+    private static String insertFeedCounters(String feed) {
+        return "INSERT OR IGNORE INTO " + TABLE_NAME_FEED_COUNTERS + " (" + KEY_FEED + ") VALUES (" + feed + ");";
+    }
+
+    private static String addItemToFeedCounters(String row) {
+        return insertFeedCounters(row + "." + KEY_FEED)
+                + "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET "
+                + itemCounterChange(row, "+") + ", "
+                + KEY_LATEST_PUBDATE + "=CASE WHEN " + KEY_LATEST_PUBDATE + " IS NULL"
+                + " OR " + row + "." + KEY_PUBDATE + ">" + KEY_LATEST_PUBDATE
+                + " THEN " + row + "." + KEY_PUBDATE + " ELSE " + KEY_LATEST_PUBDATE + " END"
+                + " WHERE " + KEY_FEED + "=" + row + "." + KEY_FEED + ";";
+    }
+
+    private static String removeItemFromFeedCounters(String row) {
+        // Only removing the latest episode requires looking at the other episodes of the feed
+        return "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET "
+                + itemCounterChange(row, "-") + ", "
+                + KEY_LATEST_PUBDATE + "=CASE WHEN " + row + "." + KEY_PUBDATE + "<" + KEY_LATEST_PUBDATE
+                + " THEN " + KEY_LATEST_PUBDATE
+                + " ELSE (SELECT MAX(" + KEY_PUBDATE + ") FROM " + TABLE_NAME_FEED_ITEMS
+                + " WHERE " + KEY_FEED + "=" + row + "." + KEY_FEED + ") END"
+                + " WHERE " + KEY_FEED + "=" + row + "." + KEY_FEED + ";";
+    }
+
+    private static String itemCounterChange(String row, String operator) {
+        String read = row + "." + KEY_READ;
+        return KEY_NEW_ITEMS + "=" + KEY_NEW_ITEMS + operator + "(" + read + " IS " + FeedItem.NEW + "), "
+                + KEY_UNPLAYED_ITEMS + "=" + KEY_UNPLAYED_ITEMS + operator + "(" + read + " IS " + FeedItem.UNPLAYED
+                + "), "
+                + KEY_PLAYED_ITEMS + "=" + KEY_PLAYED_ITEMS + operator + "(" + read + " IS " + FeedItem.PLAYED + "), "
+                + KEY_DOWNLOADED_ITEMS + "=" + KEY_DOWNLOADED_ITEMS + operator
+                + String.format(DOWNLOADED_MEDIA_OF_ITEM, row);
+    }
+
+    private static String addDownloadedToFeedCounters(String change, String row) {
+        return "UPDATE " + TABLE_NAME_FEED_COUNTERS + " SET " + KEY_DOWNLOADED_ITEMS + "="
+                + KEY_DOWNLOADED_ITEMS + "+" + change
+                + " WHERE " + KEY_FEED + "=" + String.format(FEED_OF_ITEM, row + "." + KEY_FEEDITEM) + ";";
+    }
+
     static final String CREATE_TABLE_FAVORITES = "CREATE TABLE "
             + TABLE_NAME_FAVORITES + "(" + KEY_ID + " INTEGER PRIMARY KEY,"
             + KEY_FEEDITEM + " INTEGER," + KEY_FEED + " INTEGER)";
@@ -260,7 +478,9 @@ public class PodDBAdapter {
             TABLE_NAME_FEEDS + "." + KEY_FEED_TAGS,
             TABLE_NAME_FEEDS + "." + KEY_FEED_SKIP_INTRO,
             TABLE_NAME_FEEDS + "." + KEY_FEED_SKIP_ENDING,
-            TABLE_NAME_FEEDS + "." + KEY_EPISODE_NOTIFICATION
+            TABLE_NAME_FEEDS + "." + KEY_EPISODE_NOTIFICATION,
+            TABLE_NAME_FEEDS + "." + KEY_CONTENT_HASH,
+            TABLE_NAME_FEEDS + "." + KEY_ETAG
     };
 
     /**
@@ -269,6 +489,7 @@ public class PodDBAdapter {
     private static final String[] ALL_TABLES = {
             TABLE_NAME_FEEDS,
             TABLE_NAME_FEED_ITEMS,
+            TABLE_NAME_FEED_ITEM_DESCRIPTIONS,
             TABLE_NAME_FEED_MEDIA,
             TABLE_NAME_DOWNLOAD_LOG,
             TABLE_NAME_QUEUE,
@@ -279,7 +500,7 @@ public class PodDBAdapter {
     public static final String SELECT_KEY_ITEM_ID = "item_id";
     public static final String SELECT_KEY_MEDIA_ID = "media_id";
 
-    private static final String KEYS_FEED_ITEM_WITHOUT_DESCRIPTION =
+    private static final String KEYS_FEED_ITEM =
             TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " AS " + SELECT_KEY_ITEM_ID + ", "
             + TABLE_NAME_FEED_ITEMS + "." + KEY_TITLE + ", "
             + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ", "
@@ -291,7 +512,8 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_ITEMS + "." + KEY_HAS_CHAPTERS + ", "
             + TABLE_NAME_FEED_ITEMS + "." + KEY_ITEM_IDENTIFIER + ", "
             + TABLE_NAME_FEED_ITEMS + "." + KEY_IMAGE_URL + ", "
-            + TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD;
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_AUTO_DOWNLOAD + ", "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_DESCRIPTION_HASH;
 
     private static final String KEYS_FEED_MEDIA =
             TABLE_NAME_FEED_MEDIA + "." + KEY_ID + " AS " + SELECT_KEY_MEDIA_ID + ", "
@@ -306,25 +528,58 @@ public class PodDBAdapter {
             + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + ", "
             + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYED_DURATION + ", "
             + TABLE_NAME_FEED_MEDIA + "." + KEY_HAS_EMBEDDED_PICTURE + ", "
-            + TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME;
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_LAST_PLAYED_TIME + ", "
+            + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED_SIZE;
 
     private static final String JOIN_FEED_ITEM_AND_MEDIA = " LEFT JOIN " + TABLE_NAME_FEED_MEDIA
             + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + " ";
 
-    private static final String SELECT_FEED_ITEMS_AND_MEDIA_WITH_DESCRIPTION =
-            "SELECT " + KEYS_FEED_ITEM_WITHOUT_DESCRIPTION + ", " + KEYS_FEED_MEDIA + ", "
-                    + TABLE_NAME_FEED_ITEMS + "." + KEY_DESCRIPTION
-            + " FROM " + TABLE_NAME_FEED_ITEMS
-            + JOIN_FEED_ITEM_AND_MEDIA;
     private static final String SELECT_FEED_ITEMS_AND_MEDIA =
-            "SELECT " + KEYS_FEED_ITEM_WITHOUT_DESCRIPTION + ", " + KEYS_FEED_MEDIA
+            "SELECT " + KEYS_FEED_ITEM + ", " + KEYS_FEED_MEDIA
             + " FROM " + TABLE_NAME_FEED_ITEMS
             + JOIN_FEED_ITEM_AND_MEDIA;
 
+    private static final String[] KEYS_MEDIA_ATTRIBUTES = {KEY_DURATION, KEY_POSITION, KEY_SIZE, KEY_MIME_TYPE,
+            KEY_DOWNLOAD_URL, KEY_DOWNLOADED, KEY_FILE_URL, KEY_HAS_EMBEDDED_PICTURE, KEY_LAST_PLAYED_TIME,
+            KEY_DOWNLOADED_SIZE, KEY_PLAYBACK_COMPLETION_DATE, KEY_FEEDITEM};
+    private static final String SQL_INSERT_MEDIA =
+            StatementCache.insertSql(TABLE_NAME_FEED_MEDIA, KEYS_MEDIA_ATTRIBUTES);
+    private static final String SQL_UPDATE_MEDIA =
+            StatementCache.updateSql(TABLE_NAME_FEED_MEDIA, KEYS_MEDIA_ATTRIBUTES);
+    private static final String SQL_UPDATE_MEDIA_WITHOUT_ITEM = StatementCache.updateSql(TABLE_NAME_FEED_MEDIA,
+            Arrays.copyOf(KEYS_MEDIA_ATTRIBUTES, KEYS_MEDIA_ATTRIBUTES.length - 1));
+    private static final String SQL_UPDATE_MEDIA_PLAYBACK_INFORMATION = StatementCache.updateSql(
+            TABLE_NAME_FEED_MEDIA, KEY_POSITION, KEY_DURATION, KEY_PLAYED_DURATION, KEY_LAST_PLAYED_TIME);
+    private static final String SQL_RESET_MEDIA_POSITION = StatementCache.updateSql(
+            TABLE_NAME_FEED_MEDIA, KEY_POSITION);
+
+    private static final String[] KEYS_FEED_ITEM_ATTRIBUTES = {KEY_TITLE, KEY_LINK, KEY_PUBDATE, KEY_PAYMENT_LINK,
+            KEY_FEED, KEY_READ, KEY_HAS_CHAPTERS, KEY_ITEM_IDENTIFIER, KEY_AUTO_DOWNLOAD, KEY_IMAGE_URL,
+            KEY_DESCRIPTION_HASH};
+    private static final String SQL_INSERT_FEED_ITEM =
+            StatementCache.insertSql(TABLE_NAME_FEED_ITEMS, KEYS_FEED_ITEM_ATTRIBUTES);
+    private static final String SQL_UPDATE_FEED_ITEM =
+            StatementCache.updateSql(TABLE_NAME_FEED_ITEMS, KEYS_FEED_ITEM_ATTRIBUTES);
+    private static final String SQL_UPDATE_FEED_ITEM_DESCRIPTION_HASH =
+            StatementCache.updateSql(TABLE_NAME_FEED_ITEMS, KEY_DESCRIPTION_HASH);
+    // Inserting does not replace an existing row, because REPLACE would skip the delete triggers of the search index
+    private static final String SQL_INSERT_DESCRIPTION = "INSERT OR IGNORE INTO " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS
+            + " (" + KEY_ID + ", " + KEY_DESCRIPTION + ") VALUES (?, ?)";
+    private static final String SQL_UPDATE_DESCRIPTION = "UPDATE " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS
+            + " SET " + KEY_DESCRIPTION + "=? WHERE " + KEY_ID + "=? AND " + KEY_DESCRIPTION + " IS NOT ?";
+    private static final String SQL_UPDATE_FEED_ITEM_READ = StatementCache.updateSql(TABLE_NAME_FEED_ITEMS, KEY_READ);
+
     private static Context context;
     private static PodDBAdapter instance;
+    @Nullable
+    private static CursorFactory cursorFactory;
 
     private final SQLiteDatabase db;
+    /**
+     * Statements of the hot write paths, compiled once per thread. The caches of threads that ended are
+     * dropped with their thread, the others are closed with the database.
+     */
+    private final Map<Thread, StatementCache> statementCaches = new WeakHashMap<>();
     private final PodDBHelper dbHelper;
 
     public static void init(Context context) {
@@ -339,7 +594,11 @@ public class PodDBAdapter {
     }
 
     private PodDBAdapter() {
-        dbHelper = new PodDBHelper(PodDBAdapter.context, DATABASE_NAME, null);
+        dbHelper = new PodDBHelper(PodDBAdapter.context, DATABASE_NAME, cursorFactory);
+        // With write-ahead logging, SQLiteDatabase keeps a pool of read-only connections next to the
+        // connection used for writing. Reads on other threads then see the last committed state instead
+        // of waiting for the transactions of DBWriter or feed updates to finish.
+        dbHelper.setWriteAheadLoggingEnabled(true);
         db = openDb();
     }
 
@@ -347,7 +606,6 @@ public class PodDBAdapter {
         SQLiteDatabase newDb;
         try {
             newDb = dbHelper.getWritableDatabase();
-            newDb.disableWriteAheadLogging();
         } catch (SQLException ex) {
             Log.e(TAG, Log.getStackTraceString(ex));
             newDb = dbHelper.getReadableDatabase();
@@ -355,6 +613,26 @@ public class PodDBAdapter {
         return newDb;
     }
 
+    private StatementCache statements() {
+        synchronized (statementCaches) {
+            StatementCache cache = statementCaches.get(Thread.currentThread());
+            if (cache == null) {
+                cache = new StatementCache(db);
+                statementCaches.put(Thread.currentThread(), cache);
+            }
+            return cache;
+        }
+    }
+
+    private void closeStatements() {
+        synchronized (statementCaches) {
+            for (StatementCache cache : statementCaches.values()) {
+                cache.close();
+            }
+            statementCaches.clear();
+        }
+    }
+
     public synchronized PodDBAdapter open() {
         // do nothing
         return this;
@@ -364,6 +642,15 @@ public class PodDBAdapter {
         // do nothing
     }
 
+    /**
+     * Sets the factory that creates the cursors of the next adapter instance.
+     * Call method only for unit tests.
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
+    public static void setCursorFactory(@Nullable CursorFactory factory) {
+        cursorFactory = factory;
+    }
+
     /**
      * <p>Resets all database connections to ensure new database connections for
      * the next test case. Call method only for unit tests.</p>
@@ -376,10 +663,40 @@ public class PodDBAdapter {
      */
     @VisibleForTesting(otherwise = VisibleForTesting.NONE)
     public static void tearDownTests() {
+        cursorFactory = null;
+        FeedCache.getInstance().invalidate();
+        getInstance().closeStatements();
         getInstance().dbHelper.close();
         instance = null;
     }
 
+    /**
+     * Closes all connections to the database file, e.g. before the file is replaced.
+     * The next call of {@link #getInstance()} opens the database again.
+     */
+    public static void closeDatabase() {
+        if (instance != null) {
+            instance.closeStatements();
+            instance.dbHelper.close();
+            instance = null;
+        }
+        FeedCache.getInstance().invalidate();
+        EpisodeCleanupAlgorithm.invalidateReclaimableItems();
+    }
+
+    /**
+     * Copies all committed changes from the write-ahead log into the database file,
+     * so that the file can be copied on its own.
+     *
+     * @return false if not all changes could be copied because another connection was busy.
+     */
+    public boolean checkpoint() {
+        try (Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(FULL)", null)) {
+            // The first column is 1 if the checkpoint was blocked by a reader or writer
+            return cursor.moveToFirst() && cursor.getInt(0) == 0;
+        }
+    }
+
     public static boolean deleteDatabase() {
         PodDBAdapter adapter = getInstance();
         adapter.open();
@@ -387,6 +704,8 @@ public class PodDBAdapter {
             for (String tableName : ALL_TABLES) {
                 adapter.db.delete(tableName, "1", null);
             }
+            FeedCache.getInstance().invalidate();
+            EpisodeCleanupAlgorithm.invalidateReclaimableItems();
             return true;
         } finally {
             adapter.close();
@@ -412,6 +731,8 @@ public class PodDBAdapter {
         values.put(KEY_DOWNLOAD_URL, feed.getDownload_url());
         values.put(KEY_DOWNLOADED, feed.isDownloaded());
         values.put(KEY_LASTUPDATE, feed.getLastUpdate());
+        values.put(KEY_CONTENT_HASH, feed.getContentHash());
+        values.put(KEY_ETAG, feed.getEtag());
         values.put(KEY_TYPE, feed.getType());
         values.put(KEY_FEED_IDENTIFIER, feed.getFeedIdentifier());
 
@@ -455,6 +776,7 @@ public class PodDBAdapter {
         values.put(KEY_FEED_SKIP_ENDING, prefs.getFeedSkipEnding());
         values.put(KEY_EPISODE_NOTIFICATION, prefs.getShowEpisodeNotification());
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(prefs.getFeedID())});
+        FeedCache.getInstance().invalidate(prefs.getFeedID());
     }
 
     public void setFeedItemFilter(long feedId, Set<String> filterValues) {
@@ -464,12 +786,14 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_HIDE, valuesList);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.getInstance().invalidate(feedId);
     }
 
     public void setFeedItemSortOrder(long feedId, @Nullable SortOrder sortOrder) {
         ContentValues values = new ContentValues();
         values.put(KEY_SORT_ORDER, toCodeString(sortOrder));
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.getInstance().invalidate(feedId);
     }
 
     /**
@@ -478,43 +802,54 @@ public class PodDBAdapter {
      * @return the id of the entry
      */
     public long setMedia(FeedMedia media) {
-        ContentValues values = new ContentValues();
-        values.put(KEY_DURATION, media.getDuration());
-        values.put(KEY_POSITION, media.getPosition());
-        values.put(KEY_SIZE, media.getSize());
-        values.put(KEY_MIME_TYPE, media.getMime_type());
-        values.put(KEY_DOWNLOAD_URL, media.getDownload_url());
-        values.put(KEY_DOWNLOADED, media.isDownloaded());
-        values.put(KEY_FILE_URL, media.getFile_url());
-        values.put(KEY_HAS_EMBEDDED_PICTURE, media.hasEmbeddedPicture());
-        values.put(KEY_LAST_PLAYED_TIME, media.getLastPlayedTime());
-
+        SQLiteStatement statement;
+        if (media.getId() == 0) {
+            statement = statements().get(SQL_INSERT_MEDIA);
+        } else if (media.getItem() != null) {
+            statement = statements().get(SQL_UPDATE_MEDIA);
+        } else {
+            statement = statements().get(SQL_UPDATE_MEDIA_WITHOUT_ITEM);
+        }
+        statement.bindLong(1, media.getDuration());
+        statement.bindLong(2, media.getPosition());
+        statement.bindLong(3, media.getSize());
+        StatementCache.bindString(statement, 4, media.getMime_type());
+        StatementCache.bindString(statement, 5, media.getDownload_url());
+        StatementCache.bindBoolean(statement, 6, media.isDownloaded());
+        StatementCache.bindString(statement, 7, media.getFile_url());
+        StatementCache.bindBoolean(statement, 8, media.hasEmbeddedPicture());
+        statement.bindLong(9, media.getLastPlayedTime());
+        statement.bindLong(10, media.getDownloadedSize());
         if (media.getPlaybackCompletionDate() != null) {
-            values.put(KEY_PLAYBACK_COMPLETION_DATE, media.getPlaybackCompletionDate().getTime());
+            statement.bindLong(11, media.getPlaybackCompletionDate().getTime());
         } else {
-            values.put(KEY_PLAYBACK_COMPLETION_DATE, 0);
+            statement.bindLong(11, 0);
         }
+        int index = 12;
         if (media.getItem() != null) {
-            values.put(KEY_FEEDITEM, media.getItem().getId());
+            statement.bindLong(index++, media.getItem().getId());
+        } else if (media.getId() == 0) {
+            statement.bindNull(index++);
         }
+
         if (media.getId() == 0) {
-            media.setId(db.insert(TABLE_NAME_FEED_MEDIA, null, values));
+            media.setId(statement.executeInsert());
         } else {
-            db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?",
-                    new String[]{String.valueOf(media.getId())});
+            statement.bindLong(index, media.getId());
+            statement.executeUpdateDelete();
         }
         return media.getId();
     }
 
     public void setFeedMediaPlaybackInformation(FeedMedia media) {
         if (media.getId() != 0) {
-            ContentValues values = new ContentValues();
-            values.put(KEY_POSITION, media.getPosition());
-            values.put(KEY_DURATION, media.getDuration());
-            values.put(KEY_PLAYED_DURATION, media.getPlayedDuration());
-            values.put(KEY_LAST_PLAYED_TIME, media.getLastPlayedTime());
-            db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?",
-                    new String[]{String.valueOf(media.getId())});
+            SQLiteStatement statement = statements().get(SQL_UPDATE_MEDIA_PLAYBACK_INFORMATION);
+            statement.bindLong(1, media.getPosition());
+            statement.bindLong(2, media.getDuration());
+            statement.bindLong(3, media.getPlayedDuration());
+            statement.bindLong(4, media.getLastPlayedTime());
+            statement.bindLong(5, media.getId());
+            statement.executeUpdateDelete();
         } else {
             Log.e(TAG, "setFeedMediaPlaybackInformation: ID of media was 0");
         }
@@ -555,14 +890,17 @@ public class PodDBAdapter {
             db.beginTransactionNonExclusive();
             for (Feed feed : feeds) {
                 setFeed(feed);
+                int rowsTouched = 1;
                 if (feed.getItems() != null) {
                     for (FeedItem item : feed.getItems()) {
-                        setFeedItem(item, false);
+                        rowsTouched += setFeedItem(item, false);
                     }
                 }
                 if (feed.getPreferences() != null) {
                     setFeedPreferences(feed.getPreferences());
                 }
+                Log.d(TAG, "setCompleteFeed: " + rowsTouched + " rows touched for feed " + feed.getId()
+                        + " with " + (feed.getItems() != null ? feed.getItems().size() : 0) + " items");
             }
             db.setTransactionSuccessful();
         } catch (SQLException e) {
@@ -570,6 +908,9 @@ public class PodDBAdapter {
         } finally {
             db.endTransaction();
         }
+        for (Feed feed : feeds) {
+            FeedCache.getInstance().invalidate(feed.getId());
+        }
     }
 
     /**
@@ -579,6 +920,7 @@ public class PodDBAdapter {
         ContentValues values = new ContentValues();
         values.put(KEY_DOWNLOAD_URL, updated);
         db.update(TABLE_NAME_FEEDS, values, KEY_DOWNLOAD_URL + "=?", new String[]{original});
+        FeedCache.getInstance().invalidate();
     }
 
     public void setFeedItemlist(List<FeedItem> items) {
@@ -593,88 +935,152 @@ public class PodDBAdapter {
         } finally {
             db.endTransaction();
         }
+        invalidateFeedsOfItems(items);
     }
 
     public long setSingleFeedItem(FeedItem item) {
         long result = 0;
         try {
             db.beginTransactionNonExclusive();
-            result = setFeedItem(item, true);
+            setFeedItem(item, true);
+            result = item.getId();
             db.setTransactionSuccessful();
         } catch (SQLException e) {
             Log.e(TAG, Log.getStackTraceString(e));
         } finally {
             db.endTransaction();
         }
+        invalidateFeedsOfItems(Collections.singletonList(item));
         return result;
     }
 
     /**
-     * Inserts or updates a feeditem entry
+     * Items are saved together with their feed, so the cached feeds of the items need to be read again.
+     */
+    private void invalidateFeedsOfItems(List<FeedItem> items) {
+        for (FeedItem item : items) {
+            if (item.getFeed() != null) {
+                FeedCache.getInstance().invalidate(item.getFeed().getId());
+            }
+        }
+    }
+
+    /**
+     * Inserts or updates a feeditem entry. If change tracking is active for the item
+     * (see {@link FeedItem#startChangeTracking()}), only the parts that were changed are written.
      *
      * @param item     The FeedItem
      * @param saveFeed true if the Feed of the item should also be saved. This should be set to
      *                 false if the method is executed on a list of FeedItems of the same Feed.
-     * @return the id of the entry
+     * @return the number of rows that were inserted or updated
      */
-    private long setFeedItem(FeedItem item, boolean saveFeed) {
+    private int setFeedItem(FeedItem item, boolean saveFeed) {
         if (item.getId() == 0 && item.getPubDate() == null) {
             Log.e(TAG, "Newly saved item has no pubDate. Using current date as pubDate");
             item.setPubDate(new Date());
         }
-
-        ContentValues values = new ContentValues();
-        values.put(KEY_TITLE, item.getTitle());
-        values.put(KEY_LINK, item.getLink());
-        if (item.getDescription() != null) {
-            values.put(KEY_DESCRIPTION, item.getDescription());
-        }
-        values.put(KEY_PUBDATE, item.getPubDate().getTime());
-        values.put(KEY_PAYMENT_LINK, item.getPaymentLink());
         if (saveFeed && item.getFeed() != null) {
             setFeed(item.getFeed());
         }
-        values.put(KEY_FEED, item.getFeed().getId());
+
+        int rowsTouched = 0;
+        if (item.getId() == 0 || item.isChanged(FeedItem.CHANGED_ATTRIBUTES)) {
+            rowsTouched += setFeedItemAttributes(item);
+        } else if (item.getDescription() != null && item.isChanged(FeedItem.CHANGED_DESCRIPTION)) {
+            rowsTouched += setDescription(item);
+            long hash = FeedItem.hashDescription(item.getDescription());
+            if (hash != item.getDescriptionHash()) {
+                SQLiteStatement statement = statements().get(SQL_UPDATE_FEED_ITEM_DESCRIPTION_HASH);
+                statement.bindLong(1, hash);
+                statement.bindLong(2, item.getId());
+                statement.executeUpdateDelete();
+                item.setDescriptionHash(hash);
+            }
+        }
+        if (item.getMedia() != null && (item.getMedia().getId() == 0 || item.isChanged(FeedItem.CHANGED_MEDIA))) {
+            setMedia(item.getMedia());
+            rowsTouched++;
+        }
+        if (item.getChapters() != null && item.isChanged(FeedItem.CHANGED_CHAPTERS)) {
+            setChapters(item);
+            rowsTouched += item.getChapters().size();
+        }
+        return rowsTouched;
+    }
+
+    private int setFeedItemAttributes(FeedItem item) {
+        boolean withDescription = item.getDescription() != null
+                && (item.getId() == 0 || item.isChanged(FeedItem.CHANGED_DESCRIPTION));
+        if (withDescription) {
+            item.setDescriptionHash(FeedItem.hashDescription(item.getDescription()));
+        }
+        SQLiteStatement statement = statements().get(
+                item.getId() == 0 ? SQL_INSERT_FEED_ITEM : SQL_UPDATE_FEED_ITEM);
+        StatementCache.bindString(statement, 1, item.getTitle());
+        StatementCache.bindString(statement, 2, item.getLink());
+        statement.bindLong(3, item.getPubDate().getTime());
+        StatementCache.bindString(statement, 4, item.getPaymentLink());
+        statement.bindLong(5, item.getFeed().getId());
         if (item.isNew()) {
-            values.put(KEY_READ, FeedItem.NEW);
+            statement.bindLong(6, FeedItem.NEW);
         } else if (item.isPlayed()) {
-            values.put(KEY_READ, FeedItem.PLAYED);
+            statement.bindLong(6, FeedItem.PLAYED);
         } else {
-            values.put(KEY_READ, FeedItem.UNPLAYED);
+            statement.bindLong(6, FeedItem.UNPLAYED);
         }
-        values.put(KEY_HAS_CHAPTERS, item.getChapters() != null || item.hasChapters());
-        values.put(KEY_ITEM_IDENTIFIER, item.getItemIdentifier());
-        values.put(KEY_AUTO_DOWNLOAD, item.getAutoDownload());
-        values.put(KEY_IMAGE_URL, item.getImageUrl());
+        StatementCache.bindBoolean(statement, 7, item.getChapters() != null || item.hasChapters());
+        StatementCache.bindString(statement, 8, item.getItemIdentifier());
+        StatementCache.bindBoolean(statement, 9, item.getAutoDownload());
+        StatementCache.bindString(statement, 10, item.getImageUrl());
+        statement.bindLong(11, item.getDescriptionHash());
 
+        int rowsTouched;
         if (item.getId() == 0) {
-            item.setId(db.insert(TABLE_NAME_FEED_ITEMS, null, values));
+            item.setId(statement.executeInsert());
+            rowsTouched = 1;
         } else {
-            db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?",
-                    new String[]{String.valueOf(item.getId())});
+            statement.bindLong(12, item.getId());
+            rowsTouched = statement.executeUpdateDelete();
         }
-        if (item.getMedia() != null) {
-            setMedia(item.getMedia());
+        if (withDescription) {
+            rowsTouched += setDescription(item);
         }
-        if (item.getChapters() != null) {
-            setChapters(item);
+        return rowsTouched;
+    }
+
+    /**
+     * Stores the description of the item, unless it is equal to the stored one.
+     *
+     * @return the number of rows that were inserted or updated
+     */
+    private int setDescription(FeedItem item) {
+        SQLiteStatement statement = statements().get(SQL_INSERT_DESCRIPTION);
+        statement.bindLong(1, item.getId());
+        statement.bindString(2, item.getDescription());
+        if (statement.executeInsert() != -1) {
+            return 1;
         }
-        return item.getId();
+        statement = statements().get(SQL_UPDATE_DESCRIPTION);
+        statement.bindString(1, item.getDescription());
+        statement.bindLong(2, item.getId());
+        statement.bindString(3, item.getDescription());
+        return statement.executeUpdateDelete();
     }
 
     public void setFeedItemRead(int played, long itemId, long mediaId,
                                 boolean resetMediaPosition) {
         try {
             db.beginTransactionNonExclusive();
-            ContentValues values = new ContentValues();
-
-            values.put(KEY_READ, played);
-            db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?", new String[]{String.valueOf(itemId)});
+            SQLiteStatement statement = statements().get(SQL_UPDATE_FEED_ITEM_READ);
+            statement.bindLong(1, played);
+            statement.bindLong(2, itemId);
+            statement.executeUpdateDelete();
 
             if (resetMediaPosition) {
-                values.clear();
-                values.put(KEY_POSITION, 0);
-                db.update(TABLE_NAME_FEED_MEDIA, values, KEY_ID + "=?", new String[]{String.valueOf(mediaId)});
+                statement = statements().get(SQL_RESET_MEDIA_POSITION);
+                statement.bindLong(1, 0);
+                statement.bindLong(2, mediaId);
+                statement.executeUpdateDelete();
             }
 
             db.setTransactionSuccessful();
@@ -686,7 +1092,8 @@ public class PodDBAdapter {
     }
 
     /**
-     * Sets the 'read' attribute of the item.
+     * Sets the 'read' attribute of the items. Every {@link #IN_OPERATOR_MAXIMUM} items are changed
+     * by a single UPDATE statement.
      *
      * @param read    must be one of FeedItem.PLAYED, FeedItem.NEW, FeedItem.UNPLAYED
      * @param itemIds items to change the value of
@@ -694,11 +1101,18 @@ public class PodDBAdapter {
     public void setFeedItemRead(int read, long... itemIds) {
         try {
             db.beginTransactionNonExclusive();
-            ContentValues values = new ContentValues();
-            for (long id : itemIds) {
-                values.clear();
-                values.put(KEY_READ, read);
-                db.update(TABLE_NAME_FEED_ITEMS, values, KEY_ID + "=?", new String[]{String.valueOf(id)});
+            for (int start = 0; start < itemIds.length; start += IN_OPERATOR_MAXIMUM) {
+                int end = Math.min(itemIds.length, start + IN_OPERATOR_MAXIMUM);
+                StringBuilder sql = new StringBuilder("UPDATE " + TABLE_NAME_FEED_ITEMS
+                        + " SET " + KEY_READ + "=" + read
+                        + " WHERE " + KEY_READ + "!=" + read + " AND " + KEY_ID + " IN (");
+                for (int i = start; i < end; i++) {
+                    if (i > start) {
+                        sql.append(',');
+                    }
+                    sql.append(itemIds[i]);
+                }
+                db.execSQL(sql.append(')').toString());
             }
             db.setTransactionSuccessful();
         } catch (SQLException e) {
@@ -731,12 +1145,14 @@ public class PodDBAdapter {
                 + " SET " + KEY_LAST_UPDATE_FAILED + "=" + (failed ? "1" : "0")
                 + " WHERE " + KEY_ID + "=" + feedId;
         db.execSQL(sql);
+        FeedCache.getInstance().invalidate(feedId);
     }
 
     void setFeedCustomTitle(long feedId, String customTitle) {
         ContentValues values = new ContentValues();
         values.put(KEY_CUSTOM_TITLE, customTitle);
         db.update(TABLE_NAME_FEEDS, values, KEY_ID + "=?", new String[]{String.valueOf(feedId)});
+        FeedCache.getInstance().invalidate(feedId);
     }
 
     /**
@@ -826,6 +1242,10 @@ public class PodDBAdapter {
         return count > 0;
     }
 
+    /**
+     * Replaces the whole queue. Prefer {@link #addQueueItem(FeedItem, int)}, {@link #moveQueueItem(long, int)}
+     * and {@link #removeQueueItems(long...)} if only a few items change.
+     */
     public void setQueue(List<FeedItem> queue) {
         ContentValues values = new ContentValues();
         try {
@@ -833,10 +1253,10 @@ public class PodDBAdapter {
             db.delete(TABLE_NAME_QUEUE, null, null);
             for (int i = 0; i < queue.size(); i++) {
                 FeedItem item = queue.get(i);
-                values.put(KEY_ID, i);
                 values.put(KEY_FEEDITEM, item.getId());
                 values.put(KEY_FEED, item.getFeed().getId());
-                db.insertWithOnConflict(TABLE_NAME_QUEUE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                values.put(KEY_QUEUE_POSITION, (i + 1) * QUEUE_POSITION_STEP);
+                db.insert(TABLE_NAME_QUEUE, null, values);
             }
             db.setTransactionSuccessful();
         } catch (SQLException e) {
@@ -846,6 +1266,111 @@ public class PodDBAdapter {
         }
     }
 
+    /**
+     * Inserts an item into the queue, so that it ends up at the given index.
+     * The item must not be in the queue yet.
+     */
+    public void addQueueItem(FeedItem item, int index) {
+        try {
+            db.beginTransactionNonExclusive();
+            ContentValues values = new ContentValues();
+            values.put(KEY_FEEDITEM, item.getId());
+            values.put(KEY_FEED, item.getFeedId());
+            values.put(KEY_QUEUE_POSITION, newQueuePosition(index, item.getId()));
+            db.insert(TABLE_NAME_QUEUE, null, values);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Moves an item of the queue, so that it ends up at the given index.
+     */
+    public void moveQueueItem(long itemId, int index) {
+        try {
+            db.beginTransactionNonExclusive();
+            ContentValues values = new ContentValues();
+            values.put(KEY_QUEUE_POSITION, newQueuePosition(index, itemId));
+            db.update(TABLE_NAME_QUEUE, values, KEY_FEEDITEM + "=?", new String[]{String.valueOf(itemId)});
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void removeQueueItems(long... itemIds) {
+        try {
+            db.beginTransactionNonExclusive();
+            for (long id : itemIds) {
+                db.delete(TABLE_NAME_QUEUE, KEY_FEEDITEM + "=?", new String[]{String.valueOf(id)});
+            }
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Finds a position between the items that will be the neighbours of an item at the given index.
+     * The item itself is ignored, so that it can be moved. If there is no gap left between the neighbours,
+     * the positions of the whole queue are spread out again.
+     */
+    private long newQueuePosition(int index, long itemId) {
+        final String neighbours = "SELECT " + KEY_QUEUE_POSITION + " FROM " + TABLE_NAME_QUEUE
+                + " WHERE " + KEY_FEEDITEM + "!=" + itemId
+                + " ORDER BY " + KEY_QUEUE_POSITION + ", " + KEY_ID
+                + " LIMIT 2 OFFSET " + Math.max(index - 1, 0);
+        while (true) {
+            try (Cursor cursor = db.rawQuery(neighbours, null)) {
+                if (!cursor.moveToFirst()) {
+                    return index == 0 ? QUEUE_POSITION_STEP : getLastQueuePosition(itemId) + QUEUE_POSITION_STEP;
+                } else if (index == 0) {
+                    return cursor.getLong(0) - QUEUE_POSITION_STEP;
+                }
+                long previous = cursor.getLong(0);
+                if (!cursor.moveToNext()) {
+                    return previous + QUEUE_POSITION_STEP;
+                }
+                long next = cursor.getLong(0);
+                if (next - previous > 1) {
+                    return previous + (next - previous) / 2;
+                }
+            }
+            Log.d(TAG, "No gap left in queue positions, spreading them out");
+            spreadQueuePositions();
+        }
+    }
+
+    private long getLastQueuePosition(long ignoredItemId) {
+        final String query = "SELECT MAX(" + KEY_QUEUE_POSITION + ") FROM " + TABLE_NAME_QUEUE
+                + " WHERE " + KEY_FEEDITEM + "!=" + ignoredItemId;
+        try (Cursor cursor = db.rawQuery(query, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private void spreadQueuePositions() {
+        LongList rowIds = new LongList();
+        try (Cursor cursor = db.query(TABLE_NAME_QUEUE, new String[]{KEY_ID}, null, null, null, null,
+                KEY_QUEUE_POSITION + ", " + KEY_ID)) {
+            while (cursor.moveToNext()) {
+                rowIds.add(cursor.getLong(0));
+            }
+        }
+        ContentValues values = new ContentValues();
+        for (int i = 0; i < rowIds.size(); i++) {
+            values.put(KEY_QUEUE_POSITION, (i + 1) * QUEUE_POSITION_STEP);
+            db.update(TABLE_NAME_QUEUE, values, KEY_ID + "=" + rowIds.get(i), null);
+        }
+    }
+
     public void clearQueue() {
         db.delete(TABLE_NAME_QUEUE, null, null);
     }
@@ -918,6 +1443,7 @@ public class PodDBAdapter {
         } finally {
             db.endTransaction();
         }
+        FeedCache.getInstance().invalidate(feed.getId());
     }
 
     public void clearPlaybackHistory() {
@@ -937,7 +1463,7 @@ public class PodDBAdapter {
      */
     public final Cursor getAllFeedsCursor() {
         return db.query(TABLE_NAME_FEEDS, FEED_SEL_STD, null, null, null, null,
-                KEY_TITLE + " COLLATE NOCASE ASC");
+                KEY_TITLE + " COLLATE NOCASE ASC, " + KEY_ID + " ASC");
     }
 
     public final Cursor getFeedCursorDownloadUrls() {
@@ -964,7 +1490,7 @@ public class PodDBAdapter {
      */
     public final Cursor getDescriptionOfItem(final FeedItem item) {
         final String query = "SELECT " + KEY_DESCRIPTION
-                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " FROM " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS
                 + " WHERE " + KEY_ID + "=" + item.getId();
         return db.rawQuery(query, null);
     }
@@ -997,45 +1523,98 @@ public class PodDBAdapter {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + " INNER JOIN " + TABLE_NAME_QUEUE
                 + " ON " + SELECT_KEY_ITEM_ID + " = " + TABLE_NAME_QUEUE + "." + KEY_FEEDITEM
-                + " ORDER BY " + TABLE_NAME_QUEUE + "." + KEY_ID;
+                + " ORDER BY " + TABLE_NAME_QUEUE + "." + KEY_QUEUE_POSITION + ", " + TABLE_NAME_QUEUE + "." + KEY_ID;
         return db.rawQuery(query, null);
     }
 
     public Cursor getQueueIDCursor() {
-        return db.query(TABLE_NAME_QUEUE, new String[]{KEY_FEEDITEM}, null, null, null, null, KEY_ID + " ASC", null);
+        return db.query(TABLE_NAME_QUEUE, new String[]{KEY_FEEDITEM}, null, null, null, null,
+                KEY_QUEUE_POSITION + ", " + KEY_ID, null);
+    }
+
+    public Cursor getFavoritesIDCursor() {
+        return db.query(TABLE_NAME_FAVORITES, new String[]{KEY_FEEDITEM}, null, null, null, null, null, null);
     }
 
     public final Cursor getFavoritesCursor(int offset, int limit) {
+        return getFavoritesCursor("", " LIMIT " + offset + ", " + limit);
+    }
+
+    public final Cursor getFavoritesCursor(@Nullable PageToken after, int limit) {
+        return getFavoritesCursor(after != null ? " WHERE " + seekCondition(after) : "", " LIMIT " + limit);
+    }
+
+    private Cursor getFavoritesCursor(String whereClause, String limitClause) {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + " INNER JOIN " + TABLE_NAME_FAVORITES
                 + " ON " + SELECT_KEY_ITEM_ID + " = " + TABLE_NAME_FAVORITES + "." + KEY_FEEDITEM
-                + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
-                + " LIMIT " + offset + ", " + limit;
+                + whereClause
+                + ORDER_BY_PUBDATE
+                + limitClause;
         return db.rawQuery(query, null);
     }
 
-    public void setFeedItems(int state) {
-        setFeedItems(Integer.MIN_VALUE, state, 0);
+    /**
+     * Newest first. The ID breaks ties, so that {@link PageToken}s describe a unique position.
+     */
+    private static final String ORDER_BY_PUBDATE = " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC, "
+            + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " DESC";
+
+    /**
+     * Selects the items that follow the token in {@link #ORDER_BY_PUBDATE}. The range condition on the
+     * publication date lets SQLite seek in the pubDate index instead of walking all previous rows.
+     */
+    private static String seekCondition(@NonNull PageToken after) {
+        String pubDate = TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE;
+        return "(" + pubDate + "<=" + after.pubDate
+                + " AND (" + pubDate + "<" + after.pubDate
+                + " OR " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "<" + after.itemId + "))";
+    }
+
+    public long[] setFeedItems(int state) {
+        return setFeedItems(Integer.MIN_VALUE, state, 0);
     }
 
-    public void setFeedItems(int oldState, int newState) {
-        setFeedItems(oldState, newState, 0);
+    public long[] setFeedItems(int oldState, int newState) {
+        return setFeedItems(oldState, newState, 0);
     }
 
-    public void setFeedItems(int state, long feedId) {
-        setFeedItems(Integer.MIN_VALUE, state, feedId);
+    public long[] setFeedItems(int state, long feedId) {
+        return setFeedItems(Integer.MIN_VALUE, state, feedId);
     }
 
-    public void setFeedItems(int oldState, int newState, long feedId) {
-        String sql = "UPDATE " + TABLE_NAME_FEED_ITEMS + " SET " + KEY_READ + "=" + newState;
+    /**
+     * Sets the 'read' attribute of all items in a single UPDATE statement.
+     *
+     * @param oldState only items with this state are changed, or Integer.MIN_VALUE to change all items
+     * @param feedId   only items of this feed are changed, or 0 to change the items of all feeds
+     * @return the IDs of the items that were changed
+     */
+    public long[] setFeedItems(int oldState, int newState, long feedId) {
+        String where = " WHERE " + KEY_READ + "!=" + newState;
         if (feedId > 0) {
-            sql += " WHERE " + KEY_FEED + "=" + feedId;
+            where += " AND " + KEY_FEED + "=" + feedId;
         }
         if (FeedItem.NEW <= oldState && oldState <= FeedItem.PLAYED) {
-            sql += feedId > 0 ? " AND " : " WHERE ";
-            sql += KEY_READ + "=" + oldState;
+            where += " AND " + KEY_READ + "=" + oldState;
         }
-        db.execSQL(sql);
+        LongList changedIds = new LongList();
+        try {
+            db.beginTransactionNonExclusive();
+            try (Cursor cursor = db.rawQuery("SELECT " + KEY_ID + " FROM " + TABLE_NAME_FEED_ITEMS + where, null)) {
+                while (cursor.moveToNext()) {
+                    changedIds.add(cursor.getLong(0));
+                }
+            }
+            db.execSQL("UPDATE " + TABLE_NAME_FEED_ITEMS + " SET " + KEY_READ + "=" + newState + where);
+            db.setTransactionSuccessful();
+        } catch (SQLException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            changedIds.clear();
+        } finally {
+            db.endTransaction();
+        }
+        return changedIds.toArray();
     }
 
     /**
@@ -1044,27 +1623,53 @@ public class PodDBAdapter {
      * The returned cursor uses the FEEDITEM_SEL_FI_SMALL selection.
      */
     public final Cursor getNewItemsCursor(int offset, int limit) {
+        return getNewItemsCursor("", " LIMIT " + offset + ", " + limit);
+    }
+
+    public final Cursor getNewItemsCursor(@Nullable PageToken after, int limit) {
+        return getNewItemsCursor(after != null ? " AND " + seekCondition(after) : "", " LIMIT " + limit);
+    }
+
+    private Cursor getNewItemsCursor(String seekClause, String limitClause) {
         final String query = SELECT_FEED_ITEMS_AND_MEDIA
                 + " INNER JOIN " + TABLE_NAME_FEEDS
                 + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
                 + " WHERE " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.NEW
                     + " AND " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0"
-                + " ORDER BY " + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + " DESC"
-                + " LIMIT " + offset + ", " + limit;
+                    + seekClause
+                + ORDER_BY_PUBDATE
+                + limitClause;
         return db.rawQuery(query, null);
     }
 
     public final Cursor getRecentlyPublishedItemsCursor(int offset, int limit, FeedItemFilter filter) {
+        return getRecentlyPublishedItemsCursor(null, " LIMIT " + offset + ", " + limit, filter);
+    }
+
+    public final Cursor getRecentlyPublishedItemsCursor(@Nullable PageToken after, int limit,
+                                                        FeedItemFilter filter) {
+        return getRecentlyPublishedItemsCursor(after, " LIMIT " + limit, filter);
+    }
+
+    private Cursor getRecentlyPublishedItemsCursor(@Nullable PageToken after, String limitClause,
+                                                   FeedItemFilter filter) {
         String filterQuery = FeedItemFilterQuery.generateFrom(filter);
+        if (after != null) {
+            filterQuery = "".equals(filterQuery) ? seekCondition(after) : filterQuery + " AND " + seekCondition(after);
+        }
         String whereClause = "".equals(filterQuery) ? "" : " WHERE " + filterQuery;
         final String query = SELECT_FEED_ITEMS_AND_MEDIA + whereClause
-                + " ORDER BY " + KEY_PUBDATE + " DESC LIMIT " + offset + ", " + limit;
+                + ORDER_BY_PUBDATE + limitClause;
         return db.rawQuery(query, null);
     }
 
     public Cursor getDownloadedItemsCursor() {
-        final String query = SELECT_FEED_ITEMS_AND_MEDIA
-                + "WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + " > 0";
+        // Inner join, so that SQLite can start with the downloaded media instead of walking all items
+        final String query = "SELECT " + KEYS_FEED_ITEM + ", " + KEYS_FEED_MEDIA
+                + " FROM " + TABLE_NAME_FEED_ITEMS
+                + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
+                + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+                + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + " > 0";
         return db.rawQuery(query, null);
     }
 
@@ -1087,9 +1692,10 @@ public class PodDBAdapter {
             throw new IllegalArgumentException("Limit must be >= 0");
         }
 
-        return db.query(TABLE_NAME_FEED_MEDIA, null,
-                KEY_PLAYBACK_COMPLETION_DATE + " > 0", null, null,
-                null, String.format(Locale.US, "%s DESC LIMIT %d", KEY_PLAYBACK_COMPLETION_DATE, limit));
+        final String query = "SELECT * FROM " + TABLE_NAME_FEED_MEDIA
+                + " WHERE " + KEY_PLAYBACK_COMPLETION_DATE + " > 0"
+                + " ORDER BY " + KEY_PLAYBACK_COMPLETION_DATE + " DESC LIMIT " + limit;
+        return db.rawQuery(query, null);
     }
 
     public final Cursor getSingleFeedMediaCursor(long id) {
@@ -1152,15 +1758,10 @@ public class PodDBAdapter {
     }
 
     public final int getNumberOfNewItems() {
-        Object[] args = new String[]{
-                TABLE_NAME_FEED_ITEMS + "." + KEY_ID,
-                TABLE_NAME_FEED_ITEMS,
-                TABLE_NAME_FEEDS,
-                TABLE_NAME_FEED_ITEMS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID,
-                TABLE_NAME_FEED_ITEMS + "." + KEY_READ + "=" + FeedItem.NEW
-                        + " AND " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0"
-        };
-        final String query = String.format("SELECT COUNT(%s) FROM %s INNER JOIN %s ON %s WHERE %s", args);
+        final String query = "SELECT SUM(" + KEY_NEW_ITEMS + ") FROM " + TABLE_NAME_FEED_COUNTERS
+                + " INNER JOIN " + TABLE_NAME_FEEDS
+                + " ON " + TABLE_NAME_FEED_COUNTERS + "." + KEY_FEED + "=" + TABLE_NAME_FEEDS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEEDS + "." + KEY_KEEP_UPDATED + " > 0";
         Cursor c = db.rawQuery(query, null);
         int result = 0;
         if (c.moveToFirst()) {
@@ -1177,30 +1778,29 @@ public class PodDBAdapter {
     }
 
     public final LongIntMap getFeedCounters(int setting, long... feedIds) {
-        String whereRead;
+        String counter;
         switch (setting) {
             case UserPreferences.FEED_COUNTER_SHOW_NEW_UNPLAYED_SUM:
-                whereRead = "(" + KEY_READ + "=" + FeedItem.NEW +
-                        " OR " + KEY_READ + "=" + FeedItem.UNPLAYED + ")";
+                counter = "(" + KEY_NEW_ITEMS + "+" + KEY_UNPLAYED_ITEMS + ")";
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_NEW:
-                whereRead = KEY_READ + "=" + FeedItem.NEW;
+                counter = KEY_NEW_ITEMS;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_UNPLAYED:
-                whereRead = KEY_READ + "=" + FeedItem.UNPLAYED;
+                counter = KEY_UNPLAYED_ITEMS;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_DOWNLOADED:
-                whereRead = KEY_DOWNLOADED + "=1";
+                counter = KEY_DOWNLOADED_ITEMS;
                 break;
             case UserPreferences.FEED_COUNTER_SHOW_NONE:
                 // deliberate fall-through
             default: // NONE
                 return new LongIntMap(0);
         }
-        return conditionalFeedCounterRead(whereRead, feedIds);
+        return conditionalFeedCounterRead(counter, feedIds);
     }
 
-    private LongIntMap conditionalFeedCounterRead(String whereRead, long... feedIds) {
+    private LongIntMap conditionalFeedCounterRead(String counter, long... feedIds) {
         String limitFeeds = "";
         if (feedIds.length > 0) {
             // work around TextUtils.join wanting only boxed items
@@ -1215,12 +1815,9 @@ public class PodDBAdapter {
             limitFeeds = KEY_FEED + " IN (" + builder.toString() + ") AND ";
         }
 
-        final String query = "SELECT " + KEY_FEED + ", COUNT(" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + ") AS count "
-                + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " LEFT JOIN " + TABLE_NAME_FEED_MEDIA + " ON "
-                + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
-                + " WHERE " + limitFeeds + " "
-                + whereRead + " GROUP BY " + KEY_FEED;
+        final String query = "SELECT " + KEY_FEED + ", " + counter + " AS count "
+                + " FROM " + TABLE_NAME_FEED_COUNTERS
+                + " WHERE " + limitFeeds + counter + " > 0";
 
         Cursor c = db.rawQuery(query, null);
         LongIntMap result = new LongIntMap(c.getCount());
@@ -1236,15 +1833,13 @@ public class PodDBAdapter {
     }
 
     public final LongIntMap getPlayedEpisodesCounters(long... feedIds) {
-        String whereRead = KEY_READ + "=" + FeedItem.PLAYED;
-        return conditionalFeedCounterRead(whereRead, feedIds);
+        return conditionalFeedCounterRead(KEY_PLAYED_ITEMS, feedIds);
     }
 
     public final Map<Long, Long> getMostRecentItemDates() {
-        final String query = "SELECT " + KEY_FEED + ","
-                + " MAX(" + TABLE_NAME_FEED_ITEMS + "." + KEY_PUBDATE + ") AS most_recent_pubdate"
-                + " FROM " + TABLE_NAME_FEED_ITEMS
-                + " GROUP BY " + KEY_FEED;
+        final String query = "SELECT " + KEY_FEED + ", " + KEY_LATEST_PUBDATE
+                + " FROM " + TABLE_NAME_FEED_COUNTERS
+                + " WHERE " + KEY_LATEST_PUBDATE + " IS NOT NULL";
 
         Cursor c = db.rawQuery(query, null);
         Map<Long, Long> result = new HashMap<>();
@@ -1260,8 +1855,7 @@ public class PodDBAdapter {
     }
 
     public final int getNumberOfDownloadedEpisodes() {
-        final String query = "SELECT COUNT(DISTINCT " + KEY_ID + ") AS count FROM " + TABLE_NAME_FEED_MEDIA +
-                " WHERE " + KEY_DOWNLOADED + " > 0";
+        final String query = "SELECT SUM(" + KEY_DOWNLOADED_ITEMS + ") AS count FROM " + TABLE_NAME_FEED_COUNTERS;
 
         Cursor c = db.rawQuery(query, null);
         int result = 0;
@@ -1272,6 +1866,64 @@ public class PodDBAdapter {
         return result;
     }
 
+    /**
+     * Returns the total size of all downloaded episodes in bytes.
+     */
+    public final long getDownloadedEpisodesSize() {
+        final String query = "SELECT SUM(" + KEY_DOWNLOADED_SIZE + ") FROM " + TABLE_NAME_FEED_MEDIA
+                + " WHERE " + KEY_DOWNLOADED + " = 1";
+        try (Cursor c = db.rawQuery(query, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Counts the downloaded episodes that are not favorites, without loading them.
+     *
+     * @param includeQueued Whether episodes in the queue are counted
+     * @param playedBefore  If not 0, only played episodes whose playback was completed before this time are counted
+     */
+    public final int getNumberOfReclaimableEpisodes(boolean includeQueued, long playedBefore) {
+        String query = "SELECT COUNT(*)" + reclaimableEpisodesFromWhere(includeQueued, playedBefore != 0);
+        if (playedBefore != 0) {
+            query += " AND " + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYBACK_COMPLETION_DATE + " < " + playedBefore;
+        }
+        try (Cursor c = db.rawQuery(query, null)) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Returns the earliest playback completion date of the played episodes that
+     * {@link #getNumberOfReclaimableEpisodes} would count with a later date, or 0 if there is none.
+     */
+    public final long getEarliestPlaybackCompletionDate(boolean includeQueued, long playedAfter) {
+        final String query = "SELECT MIN(" + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYBACK_COMPLETION_DATE + ")"
+                + reclaimableEpisodesFromWhere(includeQueued, true)
+                + " AND " + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYBACK_COMPLETION_DATE + " >= " + playedAfter;
+        try (Cursor c = db.rawQuery(query, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        }
+    }
+
+    private static String reclaimableEpisodesFromWhere(boolean includeQueued, boolean playedOnly) {
+        String query = " FROM " + TABLE_NAME_FEED_MEDIA
+                + " INNER JOIN " + TABLE_NAME_FEED_ITEMS
+                + " ON " + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM + "=" + TABLE_NAME_FEED_ITEMS + "." + KEY_ID
+                + " WHERE " + TABLE_NAME_FEED_MEDIA + "." + KEY_DOWNLOADED + " > 0"
+                + " AND " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " NOT IN (SELECT " + KEY_FEEDITEM
+                + " FROM " + TABLE_NAME_FAVORITES + ")";
+        if (!includeQueued) {
+            query += " AND " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " NOT IN (SELECT " + KEY_FEEDITEM
+                    + " FROM " + TABLE_NAME_QUEUE + ")";
+        }
+        if (playedOnly) {
+            query += " AND " + TABLE_NAME_FEED_ITEMS + "." + KEY_READ + " = " + FeedItem.PLAYED
+                    + " AND " + TABLE_NAME_FEED_MEDIA + "." + KEY_PLAYBACK_COMPLETION_DATE + " > 0";
+        }
+        return query;
+    }
+
     /**
      * Uses DatabaseUtils to escape a search query and removes ' at the
      * beginning and the end of the string returned by the escape method.
@@ -1290,12 +1942,82 @@ public class PodDBAdapter {
     }
 
     /**
-     * Searches for the given query in various values of all items or the items
-     * of a specified feed.
+     * Converts a search query to an FTS query that matches all words of the query as prefixes.
+     *
+     * @return The FTS query or null if the query does not contain any words.
+     */
+    @Nullable
+    private static String prepareFullTextSearchQuery(String query) {
+        List<String> terms = prepareFullTextSearchTerms(query);
+        return terms.isEmpty() ? null : TextUtils.join(" ", terms);
+    }
+
+    /**
+     * Converts each word of a search query to an FTS term that matches the word as a prefix.
+     */
+    private static List<String> prepareFullTextSearchTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String word : query.split("\\s+")) {
+            word = word.replace("\"", "");
+            boolean hasLetterOrDigit = false;
+            for (int i = 0; i < word.length() && !hasLetterOrDigit; i++) {
+                hasLetterOrDigit = Character.isLetterOrDigit(word.charAt(i));
+            }
+            if (hasLetterOrDigit) {
+                // Quoting the word prevents it from being interpreted as an FTS operator
+                terms.add('"' + word + "*\"");
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Searches for the given query in the title and description of all items or the items
+     * of a specified feed. Items are matched if they contain words that start with each of
+     * the words in the query. Items whose title matches are returned first.
      *
      * @return A cursor with all search results in SEL_FI_EXTRA selection.
      */
     public Cursor searchItems(long feedID, String searchQuery) {
+        List<String> terms = prepareFullTextSearchTerms(searchQuery);
+        if (terms.isEmpty()) {
+            return searchItemsUsingLike(feedID, searchQuery);
+        }
+        // Titles and descriptions are indexed separately, so every word has to match either of them
+        StringBuilder query = new StringBuilder(SELECT_FEED_ITEMS_AND_MEDIA).append(" WHERE ");
+        List<String> args = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                query.append(" AND ");
+            }
+            query.append('(').append(TABLE_NAME_FEED_ITEMS).append('.').append(KEY_ID)
+                    .append(" IN (SELECT docid FROM " + TABLE_NAME_FEED_ITEMS_SEARCH
+                            + " WHERE " + TABLE_NAME_FEED_ITEMS_SEARCH + " MATCH ?) OR ")
+                    .append(TABLE_NAME_FEED_ITEMS).append('.').append(KEY_ID)
+                    .append(" IN (SELECT docid FROM " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS_SEARCH
+                            + " WHERE " + TABLE_NAME_FEED_ITEM_DESCRIPTIONS_SEARCH + " MATCH ?))");
+            args.add(terms.get(i));
+            args.add(terms.get(i));
+        }
+        if (feedID != 0) {
+            query.append(" AND " + KEY_FEED + " = ").append(feedID);
+        }
+        query.append(" ORDER BY ").append(TABLE_NAME_FEED_ITEMS).append('.').append(KEY_ID)
+                .append(" IN (SELECT docid FROM " + TABLE_NAME_FEED_ITEMS_SEARCH
+                        + " WHERE " + TABLE_NAME_FEED_ITEMS_SEARCH + " MATCH ?) DESC, ")
+                .append(KEY_PUBDATE).append(" DESC LIMIT 300");
+        args.add(TextUtils.join(" ", terms));
+        return db.rawQuery(query.toString(), args.toArray(new String[0]));
+    }
+
+    /**
+     * Searches for the given query in various values of all items or the items
+     * of a specified feed without using the full-text search index.
+     *
+     * @return A cursor with all search results in SEL_FI_EXTRA selection.
+     */
+    @VisibleForTesting
+    Cursor searchItemsUsingLike(long feedID, String searchQuery) {
         String[] queryWords = prepareSearchQuery(searchQuery);
 
         String queryFeedId;
@@ -1307,15 +2029,17 @@ public class PodDBAdapter {
             queryFeedId = "1 = 1";
         }
 
-        String queryStart = SELECT_FEED_ITEMS_AND_MEDIA_WITH_DESCRIPTION
+        String queryStart = SELECT_FEED_ITEMS_AND_MEDIA
                 + " WHERE " + queryFeedId + " AND (";
         StringBuilder sb = new StringBuilder(queryStart);
 
         for (int i = 0; i < queryWords.length; i++) {
             sb
                     .append("(")
-                    .append(KEY_DESCRIPTION + " LIKE '%").append(queryWords[i])
-                    .append("%' OR ")
+                    .append(TABLE_NAME_FEED_ITEMS + "." + KEY_ID + " IN (SELECT " + KEY_ID + " FROM "
+                            + TABLE_NAME_FEED_ITEM_DESCRIPTIONS + " WHERE " + KEY_DESCRIPTION + " LIKE '%")
+                    .append(queryWords[i])
+                    .append("%') OR ")
                     .append(KEY_TITLE).append(" LIKE '%").append(queryWords[i])
                     .append("%') ");
 
@@ -1330,11 +2054,31 @@ public class PodDBAdapter {
     }
 
     /**
-     * Searches for the given query in various values of all feeds.
+     * Searches for the given query in various values of all feeds. Feeds whose title
+     * matches are returned first.
      *
      * @return A cursor with all search results in SEL_FI_EXTRA selection.
      */
     public Cursor searchFeeds(String searchQuery) {
+        String matchQuery = prepareFullTextSearchQuery(searchQuery);
+        if (matchQuery == null) {
+            return searchFeedsUsingLike(searchQuery);
+        }
+        String query = "SELECT * FROM " + TABLE_NAME_FEEDS
+                + " WHERE " + KEY_ID + " IN (SELECT docid FROM " + TABLE_NAME_FEEDS_SEARCH
+                + " WHERE " + TABLE_NAME_FEEDS_SEARCH + " MATCH ?)"
+                + " ORDER BY " + KEY_ID + " IN (SELECT docid FROM " + TABLE_NAME_FEEDS_SEARCH
+                + " WHERE " + KEY_TITLE + " MATCH ?) DESC, " + KEY_TITLE + " ASC LIMIT 300";
+        return db.rawQuery(query, new String[] {matchQuery, matchQuery});
+    }
+
+    /**
+     * Searches for the given query in various values of all feeds without using the full-text search index.
+     *
+     * @return A cursor with all search results in SEL_FI_EXTRA selection.
+     */
+    @VisibleForTesting
+    Cursor searchFeedsUsingLike(String searchQuery) {
         String[] queryWords = prepareSearchQuery(searchQuery);
 
         String queryStart = "SELECT * FROM " + TABLE_NAME_FEEDS + " WHERE ";
@@ -1380,6 +2124,31 @@ public class PodDBAdapter {
         return db.rawQuery(FEED_STATISTICS_QUERY, null);
     }
 
+    /**
+     * Select playback and download statistics of all episodes with media, grouped by feed. Feeds without any
+     * media are not part of the result. Durations are summed up in seconds, sizes in bytes.
+     */
+    private static final String PLAYBACK_STATISTICS_QUERY = "SELECT " + KEY_FEED + ","
+            + " SUM(" + KEY_DURATION + " / 1000) AS total_time,"
+            + " SUM(" + KEY_PLAYED_DURATION + " / 1000) AS played_time,"
+            + " SUM((CASE WHEN " + KEY_READ + "=" + FeedItem.PLAYED + " THEN " + KEY_DURATION
+                    + " ELSE " + KEY_POSITION + " END) / 1000) AS played_time_count_all,"
+            + " COUNT(*) AS episodes,"
+            + " COUNT(CASE WHEN " + KEY_PLAYBACK_COMPLETION_DATE + ">0 OR " + KEY_PLAYED_DURATION + ">0"
+                    + " THEN 1 END) AS episodes_started,"
+            + " COUNT(CASE WHEN " + KEY_READ + "=" + FeedItem.PLAYED + " OR " + KEY_POSITION + "!=0"
+                    + " THEN 1 END) AS episodes_started_including_marked,"
+            + " SUM(CASE WHEN " + KEY_DOWNLOADED + "=1 THEN " + KEY_DOWNLOADED_SIZE + " ELSE 0 END)"
+                    + " AS download_size,"
+            + " COUNT(CASE WHEN " + KEY_DOWNLOADED + "=1 THEN 1 END) AS episodes_downloaded"
+            + " FROM " + TABLE_NAME_FEED_ITEMS + " INNER JOIN " + TABLE_NAME_FEED_MEDIA
+            + " ON " + TABLE_NAME_FEED_ITEMS + "." + KEY_ID + "=" + TABLE_NAME_FEED_MEDIA + "." + KEY_FEEDITEM
+            + " GROUP BY " + KEY_FEED;
+
+    public Cursor getPlaybackStatisticsCursor() {
+        return db.rawQuery(PLAYBACK_STATISTICS_QUERY, null);
+    }
+
     /**
      * Insert raw data to the database.     *
      * Call method only for unit tests.
@@ -1430,6 +2199,9 @@ public class PodDBAdapter {
         public void onCreate(final SQLiteDatabase db) {
             db.execSQL(CREATE_TABLE_FEEDS);
             db.execSQL(CREATE_TABLE_FEED_ITEMS);
+            for (String statement : CREATE_FEED_ITEM_DESCRIPTIONS) {
+                db.execSQL(statement);
+            }
             db.execSQL(CREATE_TABLE_FEED_MEDIA);
             db.execSQL(CREATE_TABLE_DOWNLOAD_LOG);
             db.execSQL(CREATE_TABLE_QUEUE);
@@ -1438,10 +2210,27 @@ public class PodDBAdapter {
 
             db.execSQL(CREATE_INDEX_FEEDITEMS_FEED);
             db.execSQL(CREATE_INDEX_FEEDITEMS_PUBDATE);
+            db.execSQL(CREATE_INDEX_FEEDITEMS_FEED_PUBDATE);
             db.execSQL(CREATE_INDEX_FEEDITEMS_READ);
             db.execSQL(CREATE_INDEX_FEEDMEDIA_FEEDITEM);
+            db.execSQL(CREATE_INDEX_FEEDMEDIA_DOWNLOADED);
+            db.execSQL(CREATE_INDEX_FEEDMEDIA_PLAYBACK_COMPLETION_DATE);
             db.execSQL(CREATE_INDEX_QUEUE_FEEDITEM);
+            db.execSQL(CREATE_INDEX_QUEUE_POSITION);
             db.execSQL(CREATE_INDEX_SIMPLECHAPTERS_FEEDITEM);
+
+            for (String statement : CREATE_FEED_ITEMS_SEARCH) {
+                db.execSQL(statement);
+            }
+            for (String statement : CREATE_FEED_ITEM_DESCRIPTIONS_SEARCH) {
+                db.execSQL(statement);
+            }
+            for (String statement : CREATE_FEEDS_SEARCH) {
+                db.execSQL(statement);
+            }
+            for (String statement : CREATE_FEED_COUNTERS) {
+                db.execSQL(statement);
+            }
         }
 
         @Override
@@ -0,0 +1,86 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled statements that are reused for every row instead of building ContentValues and SQL again.
+ * A statement keeps its bound arguments until it is executed, so every thread needs its own cache.
+ */
+class StatementCache {
+    private final SQLiteDatabase db;
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+
+    StatementCache(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * Returns the compiled statement for the given SQL, with all arguments cleared.
+     */
+    SQLiteStatement get(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearBindings();
+        }
+        return statement;
+    }
+
+    /**
+     * Releases all compiled statements. The cache must not be used afterwards.
+     */
+    void close() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+    }
+
+    static String insertSql(String table, String... columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+                values.append(", ");
+            }
+            sql.append(columns[i]);
+            values.append('?');
+        }
+        return sql.append(") VALUES (").append(values).append(')').toString();
+    }
+
+    /**
+     * Builds an update of the given columns. The ID of the row is the last argument.
+     */
+    static String updateSql(String table, String... columns) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(columns[i]).append("=?");
+        }
+        return sql.append(" WHERE ").append(PodDBAdapter.KEY_ID).append("=?").toString();
+    }
+
+    static void bindString(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    static void bindBoolean(SQLiteStatement statement, int index, boolean value) {
+        statement.bindLong(index, value ? 1 : 0);
+    }
+}
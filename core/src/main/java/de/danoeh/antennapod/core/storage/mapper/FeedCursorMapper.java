@@ -39,6 +39,8 @@ public abstract class FeedCursorMapper {
         int indexSortOrder = cursor.getColumnIndex(PodDBAdapter.KEY_SORT_ORDER);
         int indexLastUpdateFailed = cursor.getColumnIndex(PodDBAdapter.KEY_LAST_UPDATE_FAILED);
         int indexImageUrl = cursor.getColumnIndex(PodDBAdapter.KEY_IMAGE_URL);
+        int indexContentHash = cursor.getColumnIndex(PodDBAdapter.KEY_CONTENT_HASH);
+        int indexEtag = cursor.getColumnIndex(PodDBAdapter.KEY_ETAG);
 
         Feed feed = new Feed(
                 cursor.getLong(indexId),
@@ -63,6 +65,9 @@ public abstract class FeedCursorMapper {
                 cursor.getInt(indexLastUpdateFailed) > 0
         );
 
+        feed.setContentHash(cursor.getString(indexContentHash));
+        feed.setEtag(cursor.getString(indexEtag));
+
         FeedPreferences preferences = FeedPreferences.fromCursor(cursor);
         feed.setPreferences(preferences);
         return feed;
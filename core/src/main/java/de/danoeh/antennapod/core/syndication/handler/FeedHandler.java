@@ -1,12 +1,17 @@
 package de.danoeh.antennapod.core.syndication.handler;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.XmlStreamReader;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.SequenceInputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -15,6 +20,10 @@ import javax.xml.parsers.SAXParserFactory;
 import de.danoeh.antennapod.core.feed.Feed;
 
 public class FeedHandler {
+	/**
+	 * Number of bytes at the beginning of a feed that are used for detecting its type.
+	 */
+	private static final int TYPE_PREFIX_SIZE = 16 * 1024;
 
 	public FeedHandlerResult parseFeed(Feed feed) throws SAXException, IOException,
 			ParserConfigurationException, UnsupportedFeedtypeException {
@@ -33,4 +42,47 @@ public class FeedHandler {
 		inputStreamReader.close();
 		return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls);
 	}
+
+	/**
+	 * Parses a feed that has not been written to a file. The type is detected from a prefix
+	 * of the stream, so the content is only read once. The stream is not closed.
+	 */
+	public FeedHandlerResult parseFeed(Feed feed, InputStream in) throws SAXException, IOException,
+			ParserConfigurationException, UnsupportedFeedtypeException {
+		byte[] prefix = new byte[TYPE_PREFIX_SIZE];
+		int prefixLength = IOUtils.read(in, prefix);
+		InputStream content = new SequenceInputStream(new ByteArrayInputStream(prefix, 0, prefixLength), in);
+
+		TypeGetter.Type type;
+		try {
+			type = getType(feed, prefix, prefixLength);
+		} catch (XmlPullParserException e) {
+			if (prefixLength < prefix.length) {
+				throw new UnsupportedFeedtypeException(TypeGetter.Type.INVALID, "html");
+			}
+			// The root element is not part of the prefix, so the complete feed is needed
+			byte[] completeContent = IOUtils.toByteArray(content);
+			try {
+				type = getType(feed, completeContent, completeContent.length);
+			} catch (XmlPullParserException e1) {
+				throw new UnsupportedFeedtypeException(TypeGetter.Type.INVALID, "html");
+			}
+			content = new ByteArrayInputStream(completeContent);
+		}
+		SyndHandler handler = new SyndHandler(feed, type);
+
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		SAXParser saxParser = factory.newSAXParser();
+		Reader inputStreamReader = new XmlStreamReader(content);
+		saxParser.parse(new InputSource(inputStreamReader), handler);
+		return new FeedHandlerResult(handler.state.feed, handler.state.alternateUrls);
+	}
+
+	private static TypeGetter.Type getType(Feed feed, byte[] content, int length) throws IOException,
+			XmlPullParserException, UnsupportedFeedtypeException {
+		try (Reader reader = new XmlStreamReader(new ByteArrayInputStream(content, 0, length))) {
+			return new TypeGetter().getType(feed, reader);
+		}
+	}
 }
@@ -27,68 +27,24 @@ public class TypeGetter {
 	private static final String RSS_ROOT = "rss";
 
 	public Type getType(Feed feed) throws UnsupportedFeedtypeException {
-		XmlPullParserFactory factory;
 		if (feed.getFile_url() != null) {
 			Reader reader = null;
 			try {
-				factory = XmlPullParserFactory.newInstance();
-				factory.setNamespaceAware(true);
-				XmlPullParser xpp = factory.newPullParser();
 				reader = createReader(feed);
-				xpp.setInput(reader);
-				int eventType = xpp.getEventType();
-
-				while (eventType != XmlPullParser.END_DOCUMENT) {
-					if (eventType == XmlPullParser.START_TAG) {
-						String tag = xpp.getName();
-						switch (tag) {
-							case ATOM_ROOT:
-								feed.setType(Feed.TYPE_ATOM1);
-								Log.d(TAG, "Recognized type Atom");
-
-								String strLang = xpp.getAttributeValue("http://www.w3.org/XML/1998/namespace", "lang");
-								if (strLang != null) {
-									feed.setLanguage(strLang);
-								}
-
-								return Type.ATOM;
-							case RSS_ROOT:
-								String strVersion = xpp.getAttributeValue(null, "version");
-								if (strVersion == null) {
-									feed.setType(Feed.TYPE_RSS2);
-									Log.d(TAG, "Assuming type RSS 2.0");
-									return Type.RSS20;
-								} else if (strVersion.equals("2.0")) {
-									feed.setType(Feed.TYPE_RSS2);
-									Log.d(TAG, "Recognized type RSS 2.0");
-									return Type.RSS20;
-								} else if (strVersion.equals("0.91") || strVersion.equals("0.92")) {
-									Log.d(TAG, "Recognized type RSS 0.91/0.92");
-									return Type.RSS091;
-								}
-								throw new UnsupportedFeedtypeException("Unsupported rss version");
-							default:
-								Log.d(TAG, "Type is invalid");
-								throw new UnsupportedFeedtypeException(Type.INVALID, tag);
-						}
-					} else {
-						eventType = xpp.next();
-					}
-				}
+				return getType(feed, reader);
 			} catch (XmlPullParserException e) {
 				e.printStackTrace();
-                // XML document might actually be a HTML document -> try to parse as HTML
-                String rootElement = null;
-                try {
-                    if (Jsoup.parse(new File(feed.getFile_url()), null) != null) {
-                        rootElement = "html";
-                    }
-                } catch (IOException e1) {
-                    e1.printStackTrace();
-                }
-                throw new UnsupportedFeedtypeException(Type.INVALID, rootElement);
-
-            } catch (IOException e) {
+				// XML document might actually be a HTML document -> try to parse as HTML
+				String rootElement = null;
+				try {
+					if (Jsoup.parse(new File(feed.getFile_url()), null) != null) {
+						rootElement = "html";
+					}
+				} catch (IOException e1) {
+					e1.printStackTrace();
+				}
+				throw new UnsupportedFeedtypeException(Type.INVALID, rootElement);
+			} catch (IOException e) {
 				e.printStackTrace();
 			} finally {
 				if(reader != null) {
@@ -104,6 +60,61 @@ public class TypeGetter {
 		throw new UnsupportedFeedtypeException(Type.INVALID);
 	}
 
+	/**
+	 * Determines the type by reading until the root element. The reader does not
+	 * need to contain the complete document, a prefix that includes the root element is enough.
+	 *
+	 * @throws XmlPullParserException if the content is not well-formed XML up to the root element,
+	 *                                for example because it is a HTML document or the prefix is too short.
+	 */
+	public Type getType(Feed feed, Reader reader) throws UnsupportedFeedtypeException,
+			XmlPullParserException, IOException {
+		XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		XmlPullParser xpp = factory.newPullParser();
+		xpp.setInput(reader);
+		int eventType = xpp.getEventType();
+		while (eventType != XmlPullParser.END_DOCUMENT) {
+			if (eventType == XmlPullParser.START_TAG) {
+				String tag = xpp.getName();
+				switch (tag) {
+					case ATOM_ROOT:
+						feed.setType(Feed.TYPE_ATOM1);
+						Log.d(TAG, "Recognized type Atom");
+
+						String strLang = xpp.getAttributeValue("http://www.w3.org/XML/1998/namespace", "lang");
+						if (strLang != null) {
+							feed.setLanguage(strLang);
+						}
+
+						return Type.ATOM;
+					case RSS_ROOT:
+						String strVersion = xpp.getAttributeValue(null, "version");
+						if (strVersion == null) {
+							feed.setType(Feed.TYPE_RSS2);
+							Log.d(TAG, "Assuming type RSS 2.0");
+							return Type.RSS20;
+						} else if (strVersion.equals("2.0")) {
+							feed.setType(Feed.TYPE_RSS2);
+							Log.d(TAG, "Recognized type RSS 2.0");
+							return Type.RSS20;
+						} else if (strVersion.equals("0.91") || strVersion.equals("0.92")) {
+							Log.d(TAG, "Recognized type RSS 0.91/0.92");
+							return Type.RSS091;
+						}
+						throw new UnsupportedFeedtypeException("Unsupported rss version");
+					default:
+						Log.d(TAG, "Type is invalid");
+						throw new UnsupportedFeedtypeException(Type.INVALID, tag);
+				}
+			} else {
+				eventType = xpp.next();
+			}
+		}
+		Log.d(TAG, "Type is invalid");
+		throw new UnsupportedFeedtypeException(Type.INVALID);
+	}
+
 	private Reader createReader(Feed feed) {
 		Reader reader;
 		try {
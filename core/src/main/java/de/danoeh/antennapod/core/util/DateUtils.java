@@ -3,6 +3,8 @@ package de.danoeh.antennapod.core.util;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import org.apache.commons.lang3.StringUtils;
 
 import java.text.DateFormat;
@@ -24,10 +26,41 @@ public class DateUtils {
     private static final String TAG = "DateUtils";
     private static final TimeZone defaultTimezone = TimeZone.getTimeZone("GMT");
 
+    private static final String[] MONTHS = {
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+    private static final String[] MONTH_NAMES = {
+            "january", "february", "march", "april", "may", "june",
+            "july", "august", "september", "october", "november", "december"
+    };
+    private static final String[] ZONE_NAMES = {
+            "Z", "UT", "UTC", "GMT", "EST", "EDT", "CST", "CDT", "MST", "MDT", "PST", "PDT", "CET", "CEST"
+    };
+    private static final int[] ZONE_OFFSETS_MINUTES = {
+            0, 0, 0, 0, -300, -240, -360, -300, -420, -360, -480, -420, 60, 120
+    };
+    private static final int INVALID_ZONE = Integer.MIN_VALUE;
+
     public static Date parse(final String input) {
         if (input == null) {
             throw new IllegalArgumentException("Date must not be null");
         }
+        String trimmed = input.trim();
+        Date result = parseIso8601(trimmed);
+        if (result == null) {
+            result = parseRfc822(trimmed);
+        }
+        if (result != null) {
+            return result;
+        }
+        return parseUsingPatterns(input);
+    }
+
+    /**
+     * Slow path of {@link #parse(String)} that tries a list of SimpleDateFormat patterns.
+     */
+    @VisibleForTesting
+    static Date parseUsingPatterns(final String input) {
         String date = input.trim().replace('/', '-').replaceAll("( ){2,}+", " ");
 
         // remove colon from timezone to avoid differences between Android and Java SimpleDateFormat
@@ -122,6 +155,240 @@ public class DateUtils {
         return null;
     }
 
+    /**
+     * Parses dates like "2015-03-28T13:31:04.963+01:00" without using SimpleDateFormat.
+     * Digits after milliseconds are discarded. Dates without time zone are interpreted as GMT.
+     *
+     * @return The date or null if the string does not have this format.
+     */
+    private static Date parseIso8601(String date) {
+        final int length = date.length();
+        if (length < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return null;
+        }
+        int year = parseNumber(date, 0, 4);
+        int month = parseNumber(date, 5, 7);
+        int day = parseNumber(date, 8, 10);
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+        int i = 10;
+        if (i < length && date.charAt(i) == 'T') {
+            if (length < i + 9 || date.charAt(i + 3) != ':' || date.charAt(i + 6) != ':') {
+                return null;
+            }
+            hour = parseNumber(date, i + 1, i + 3);
+            minute = parseNumber(date, i + 4, i + 6);
+            second = parseNumber(date, i + 7, i + 9);
+            i += 9;
+            if (i < length && date.charAt(i) == '.') {
+                int end = skipDigits(date, i + 1);
+                if (end == i + 1) {
+                    return null;
+                }
+                for (int j = i + 1; j < i + 4; j++) {
+                    millis = 10 * millis + (j < end ? date.charAt(j) - '0' : 0);
+                }
+                i = end;
+            }
+        }
+        int offsetMinutes = 0;
+        if (i < length) {
+            if (date.charAt(i) == ' ') {
+                i++;
+            }
+            offsetMinutes = parseZone(date, i);
+        }
+        return toDate(year, month, day, hour, minute, second, millis, offsetMinutes);
+    }
+
+    /**
+     * Parses dates like "Sat, 28 Mar 2015 01:31:04 +0100" without using SimpleDateFormat.
+     * The day of week is optional and ignored. Dates without time zone are interpreted as GMT.
+     *
+     * @return The date or null if the string does not have this format.
+     */
+    private static Date parseRfc822(String date) {
+        final int length = date.length();
+        int i = 0;
+        if (i < length && Character.isLetter(date.charAt(i))) {
+            i = skipLetters(date, i);
+            if (i == length || date.charAt(i) != ',') {
+                return null;
+            }
+            i = skipSpaces(date, i + 1);
+        }
+        int end = skipDigits(date, i);
+        if (end - i < 1 || end - i > 2) {
+            return null;
+        }
+        int day = parseNumber(date, i, end);
+
+        i = skipSpaces(date, end);
+        end = skipLetters(date, i);
+        if (i == 0 || date.charAt(i - 1) != ' ') {
+            return null;
+        }
+        int month = parseMonth(date, i, end);
+
+        i = skipSpaces(date, end);
+        end = skipDigits(date, i);
+        if (date.charAt(i - 1) != ' ' || end - i != 4) {
+            return null;
+        }
+        int year = parseNumber(date, i, end);
+
+        i = skipSpaces(date, end);
+        end = skipDigits(date, i);
+        if (date.charAt(i - 1) != ' ' || end - i < 1 || end - i > 2 || end == length || date.charAt(end) != ':') {
+            return null;
+        }
+        int hour = parseNumber(date, i, end);
+        i = end + 1;
+        end = skipDigits(date, i);
+        if (end - i != 2) {
+            return null;
+        }
+        int minute = parseNumber(date, i, end);
+        int second = 0;
+        if (end < length && date.charAt(end) == ':') {
+            i = end + 1;
+            end = skipDigits(date, i);
+            if (end - i != 2) {
+                return null;
+            }
+            second = parseNumber(date, i, end);
+        }
+
+        int offsetMinutes = 0;
+        i = skipSpaces(date, end);
+        if (i < length) {
+            if (i == end) {
+                return null;
+            }
+            offsetMinutes = parseZone(date, i);
+        }
+        return toDate(year, month, day, hour, minute, second, 0, offsetMinutes);
+    }
+
+    /**
+     * Parses a numeric time zone (+0100, +01:00) or one of {@link #ZONE_NAMES} that ends the string.
+     *
+     * @return The offset in minutes or {@link #INVALID_ZONE}.
+     */
+    private static int parseZone(String date, int start) {
+        final int length = date.length();
+        if (start < length && (date.charAt(start) == '+' || date.charAt(start) == '-')) {
+            int minutesStart = date.indexOf(':', start) == start + 3 ? start + 4 : start + 3;
+            if (length != minutesStart + 2) {
+                return INVALID_ZONE;
+            }
+            int hours = parseNumber(date, start + 1, start + 3);
+            int minutes = parseNumber(date, minutesStart, length);
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+                return INVALID_ZONE;
+            }
+            int offset = 60 * hours + minutes;
+            return date.charAt(start) == '-' ? -offset : offset;
+        }
+        for (int i = 0; i < ZONE_NAMES.length; i++) {
+            if (date.length() - start == ZONE_NAMES[i].length() && date.startsWith(ZONE_NAMES[i], start)) {
+                return ZONE_OFFSETS_MINUTES[i];
+            }
+        }
+        return INVALID_ZONE;
+    }
+
+    /**
+     * @return The month (1-12) or -1 if the string is not an English month name or abbreviation.
+     */
+    private static int parseMonth(String date, int start, int end) {
+        int length = end - start;
+        for (int i = 0; i < MONTHS.length; i++) {
+            if ((length == 3 && date.regionMatches(true, start, MONTHS[i], 0, 3))
+                    || (length == MONTH_NAMES[i].length() && date.regionMatches(true, start, MONTH_NAMES[i], 0, length))
+                    || (length == 4 && i == 8 && date.regionMatches(true, start, "sept", 0, 4))) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The value or -1 if the range is empty or contains anything else than digits.
+     */
+    private static int parseNumber(String date, int start, int end) {
+        if (start >= end || end > date.length()) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = 10 * result + (c - '0');
+        }
+        return result;
+    }
+
+    private static int skipDigits(String date, int start) {
+        int i = start;
+        while (i < date.length() && date.charAt(i) >= '0' && date.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipLetters(String date, int start) {
+        int i = start;
+        while (i < date.length() && Character.isLetter(date.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipSpaces(String date, int start) {
+        int i = start;
+        while (i < date.length() && date.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Converts the fields of a date in the Gregorian calendar to a Date object.
+     *
+     * @return The date or null if one of the fields is out of range.
+     */
+    private static Date toDate(int year, int month, int day, int hour, int minute, int second, int millis,
+                               int offsetMinutes) {
+        if (year < 1600 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59
+                || offsetMinutes == INVALID_ZONE) {
+            return null;
+        }
+        // Days since 1970-01-01, see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097L + dayOfEra - 719468;
+
+        long seconds = ((days * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second;
+        return new Date(seconds * 1000 + millis);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leapYear ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
 
     /**
      * Takes a string of the form [HH:]MM:SS[.mmm] and converts it to
@@ -0,0 +1,131 @@
+package de.danoeh.antennapod.core.util;
+
+/**
+ * Fast and memory efficient set of longs.
+ * Unlike {@link LongList#contains(long)}, lookups take constant time, so it can be used
+ * to check many IDs against a large set of IDs.
+ */
+public final class LongHashSet {
+    /**
+     * Marks unused slots. Database IDs are never 0, so the value is stored separately.
+     */
+    private static final long EMPTY = 0;
+
+    private long[] slots;
+    private int size;
+    private boolean containsEmpty;
+
+    /**
+     * Constructs an empty instance with a default initial capacity.
+     */
+    public LongHashSet() {
+        this(4);
+    }
+
+    /**
+     * Constructs an empty instance that can hold the given number of values without resizing.
+     *
+     * @param expectedSize {@code >= 0;} number of values that are going to be added
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be 0 or higher");
+        }
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    public static LongHashSet of(LongList values) {
+        LongHashSet result = new LongHashSet(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            result.add(values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the smallest power of two that keeps the load factor at or below 1/2.
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity < 2 * expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Adds the value to the set.
+     *
+     * @return true if the set did not contain the value yet
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !containsEmpty;
+            containsEmpty = true;
+            return added;
+        }
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if (2 * size > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    private void grow() {
+        long[] oldSlots = slots;
+        slots = new long[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (long value : oldSlots) {
+            if (value != EMPTY) {
+                int index = hash(value) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given value is contained in the set.
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     */
+    public int size() {
+        return containsEmpty ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
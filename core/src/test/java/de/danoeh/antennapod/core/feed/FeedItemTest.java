@@ -3,12 +3,17 @@ package de.danoeh.antennapod.core.feed;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import static de.danoeh.antennapod.core.feed.FeedItemMother.anyFeedItemWithImage;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class FeedItemTest {
 
@@ -56,6 +61,42 @@ public class FeedItemTest {
         assertEquals(changedDate.getTime(), original.getPubDate().getTime());
     }
 
+    @Test
+    public void testUpdateFromOther_changeTrackingUnchanged() {
+        changedFeedItem.setPubDate(original.getPubDate());
+        original.startChangeTracking();
+        original.updateFromOther(changedFeedItem);
+        assertFalse(original.isChanged(FeedItem.CHANGED_ATTRIBUTES));
+        assertFalse(original.isChanged(FeedItem.CHANGED_MEDIA));
+    }
+
+    @Test
+    public void testUpdateFromOther_changeTrackingTitleChanged() {
+        original.startChangeTracking();
+        changedFeedItem.setTitle("New title");
+        original.updateFromOther(changedFeedItem);
+        assertTrue(original.isChanged(FeedItem.CHANGED_ATTRIBUTES));
+        assertFalse(original.isChanged(FeedItem.CHANGED_MEDIA));
+
+        original.stopChangeTracking();
+        assertTrue(original.isChanged(FeedItem.CHANGED_MEDIA));
+    }
+
+    @Test
+    public void testUpdateFromOther_descriptionComparedByHash() {
+        original.setDescription(null);
+        original.setDescriptionHash(FeedItem.hashDescription(TEXT_LONG));
+        changedFeedItem.setDescription(TEXT_LONG);
+        original.startChangeTracking();
+        original.updateFromOther(changedFeedItem);
+        assertFalse(original.isChanged(FeedItem.CHANGED_DESCRIPTION));
+
+        changedFeedItem.setDescription(TEXT_SHORT);
+        original.updateFromOther(changedFeedItem);
+        assertTrue(original.isChanged(FeedItem.CHANGED_DESCRIPTION));
+        assertEquals(TEXT_SHORT, original.getDescription());
+    }
+
     /**
      * Test that a played item loses that state after being marked as new.
      */
@@ -123,6 +164,27 @@ public class FeedItemTest {
         testShownotes(TEXT_LONG, TEXT_SHORT);
     }
 
+    @Test
+    public void testChangedAfterSerialization() throws Exception {
+        FeedItem item = new FeedItem(0, "Item", "Item", "url", new Date(), FeedItem.PLAYED, null);
+        item.startChangeTracking();
+        assertFalse(item.isChanged(FeedItem.CHANGED_ATTRIBUTES));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(item);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        FeedItem copy = (FeedItem) in.readObject();
+        in.close();
+
+        assertEquals("Item", copy.getTitle());
+        assertTrue(copy.isChanged(FeedItem.CHANGED_ATTRIBUTES));
+        assertTrue(copy.isChanged(FeedItem.CHANGED_DESCRIPTION));
+        assertTrue(copy.isChanged(FeedItem.CHANGED_MEDIA));
+        assertTrue(copy.isChanged(FeedItem.CHANGED_CHAPTERS));
+    }
+
     /**
      * Checks if the shownotes equal TEXT_LONG, using the given `description` and `content:encoded`.
      *
@@ -0,0 +1,71 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Request;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConnectionCounterTest {
+
+    @Test
+    public void testCountConnections() {
+        ConnectionCounter counter = new ConnectionCounter();
+        Call call = createCall(Feed.FEEDFILETYPE_FEED);
+        Connection connection = mock(Connection.class);
+        InetSocketAddress address = InetSocketAddress.createUnresolved("example.com", 443);
+
+        EventListener newConnection = counter.create(call);
+        newConnection.connectStart(call, address, Proxy.NO_PROXY);
+        newConnection.secureConnectStart(call);
+        newConnection.connectionAcquired(call, connection);
+
+        EventListener reusedConnection = counter.create(call);
+        reusedConnection.connectionAcquired(call, connection);
+        reusedConnection = counter.create(call);
+        reusedConnection.connectionAcquired(call, connection);
+
+        assertEquals(1, counter.getNewConnections());
+        assertEquals(2, counter.getReusedConnections());
+        assertEquals(1, counter.getHandshakes());
+
+        counter.reset();
+        assertEquals(0, counter.getNewConnections());
+        assertEquals(0, counter.getReusedConnections());
+        assertEquals(0, counter.getHandshakes());
+    }
+
+    @Test
+    public void testOnlyCountFeedRequests() {
+        ConnectionCounter counter = new ConnectionCounter();
+        Connection connection = mock(Connection.class);
+
+        Call mediaCall = createCall(FeedMedia.FEEDFILETYPE_FEEDMEDIA);
+        counter.create(mediaCall).connectionAcquired(mediaCall, connection);
+        Call imageCall = mock(Call.class);
+        when(imageCall.request()).thenReturn(new Request.Builder().url("https://example.com/image.png").build());
+        counter.create(imageCall).connectionAcquired(imageCall, connection);
+
+        assertEquals(0, counter.getNewConnections());
+        assertEquals(0, counter.getReusedConnections());
+    }
+
+    private static Call createCall(int feedfileType) {
+        DownloadRequest downloadRequest = new DownloadRequest("destination", "https://example.com/file", "title", 0,
+                feedfileType, null, null, false, null, false);
+        Call call = mock(Call.class);
+        when(call.request()).thenReturn(new Request.Builder().url("https://example.com/file")
+                .tag(downloadRequest).build());
+        return call;
+    }
+}
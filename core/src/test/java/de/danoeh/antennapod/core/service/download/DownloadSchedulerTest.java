@@ -0,0 +1,172 @@
+package de.danoeh.antennapod.core.service.download;
+
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import de.danoeh.antennapod.core.ApplicationCallbacks;
+import de.danoeh.antennapod.core.ClientConfig;
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class DownloadSchedulerTest {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+    private DownloadScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        Application app = (Application) InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ClientConfig.applicationCallbacks = mock(ApplicationCallbacks.class);
+        when(ClientConfig.applicationCallbacks.getApplicationInstance()).thenReturn(app);
+    }
+
+    @After
+    public void tearDown() {
+        latch.countDown();
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testLaneOrder() throws Exception {
+        scheduler = new DownloadScheduler(1);
+        scheduler.submit(createDownloader("first", "a", FeedMedia.FEEDFILETYPE_FEEDMEDIA, false));
+        scheduler.submit(createDownloader("auto", "b", FeedMedia.FEEDFILETYPE_FEEDMEDIA, false));
+        scheduler.submit(createDownloader("feed", "c", Feed.FEEDFILETYPE_FEED, false));
+        scheduler.submit(createDownloader("user", "d", FeedMedia.FEEDFILETYPE_FEEDMEDIA, true));
+        scheduler.submit(createDownloader("user feed", "e", Feed.FEEDFILETYPE_FEED, true));
+        assertEquals(1, scheduler.getQueuedCount(DownloadScheduler.LANE_USER));
+        assertEquals(2, scheduler.getQueuedCount(DownloadScheduler.LANE_FEED_REFRESH));
+        assertEquals(1, scheduler.getQueuedCount(DownloadScheduler.LANE_AUTO_DOWNLOAD));
+
+        latch.countDown();
+        takeAll(5);
+        assertEquals(Arrays.asList("first", "feed", "user feed", "user", "auto"), started);
+    }
+
+    @Test
+    public void testHostLimit() throws Exception {
+        scheduler = new DownloadScheduler(10);
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit(createDownloader("same host " + i, "a", Feed.FEEDFILETYPE_FEED, false));
+        }
+        scheduler.submit(createDownloader("other host", "b", Feed.FEEDFILETYPE_FEED, false));
+        assertEquals(1, scheduler.getQueuedCount(DownloadScheduler.LANE_FEED_REFRESH));
+
+        latch.countDown();
+        takeAll(5);
+        assertEquals(5, started.size());
+    }
+
+    @Test
+    public void testSegmentsCountAgainstHostLimit() throws Exception {
+        scheduler = new DownloadScheduler(10);
+        CountDownLatch acquired = new CountDownLatch(1);
+        int[] granted = new int[1];
+        DownloadRequest request = new DownloadRequest("destination", "http://a/file", "segmented", 0,
+                FeedMedia.FEEDFILETYPE_FEEDMEDIA, null, null, false, null, true);
+        scheduler.submit(new BlockingDownloader(request) {
+            @Override
+            protected void download() {
+                granted[0] = acquireConnections(SegmentedDownload.NUM_SEGMENTS - 1);
+                acquired.countDown();
+                super.download();
+            }
+        });
+        acquired.await();
+        assertEquals(2, granted[0]);
+
+        scheduler.submit(createDownloader("same host", "a", Feed.FEEDFILETYPE_FEED, false));
+        scheduler.submit(createDownloader("other host", "b", Feed.FEEDFILETYPE_FEED, false));
+        assertEquals(1, scheduler.getQueuedCount(DownloadScheduler.LANE_FEED_REFRESH));
+
+        latch.countDown();
+        takeAll(3);
+        assertEquals(3, started.size());
+    }
+
+    @Test
+    public void testConcurrencyFollowsThroughput() throws Exception {
+        scheduler = new DownloadScheduler(4);
+        for (int i = 0; i < 6; i++) {
+            scheduler.submit(createDownloader("download " + i, "host" + i, FeedMedia.FEEDFILETYPE_FEEDMEDIA, false));
+        }
+        assertEquals(2, scheduler.getQueuedCount(DownloadScheduler.LANE_AUTO_DOWNLOAD));
+
+        scheduler.onThroughputMeasured(1000);
+        assertEquals(4, scheduler.getConcurrency());
+        scheduler.onThroughputMeasured(500);
+        assertEquals(3, scheduler.getConcurrency());
+        scheduler.onThroughputMeasured(800);
+        assertEquals(2, scheduler.getConcurrency());
+        scheduler.onThroughputMeasured(820);
+        assertEquals(2, scheduler.getConcurrency());
+        scheduler.onThroughputMeasured(500);
+        assertEquals(3, scheduler.getConcurrency());
+
+        latch.countDown();
+        takeAll(6);
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        scheduler = new DownloadScheduler(1);
+        scheduler.submit(createDownloader("running", "a", FeedMedia.FEEDFILETYPE_FEEDMEDIA, true));
+        scheduler.submit(createDownloader("waiting", "b", FeedMedia.FEEDFILETYPE_FEEDMEDIA, true));
+        scheduler.shutdown();
+
+        latch.countDown();
+        takeAll(1);
+        assertEquals(1, scheduler.getQueuedCount(DownloadScheduler.LANE_USER));
+        assertEquals(Collections.singletonList("running"), started);
+    }
+
+    private void takeAll(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            scheduler.take().get();
+        }
+    }
+
+    private Downloader createDownloader(String title, String host, int type, boolean initiatedByUser) {
+        DownloadRequest request = new DownloadRequest("destination", "http://" + host + "/file", title, 0, type,
+                null, null, false, null, initiatedByUser);
+        return new BlockingDownloader(request);
+    }
+
+    private class BlockingDownloader extends Downloader {
+        BlockingDownloader(@NonNull DownloadRequest request) {
+            super(request);
+        }
+
+        @Override
+        protected void download() {
+            started.add(request.getTitle());
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            result.setSuccessful();
+        }
+    }
+}
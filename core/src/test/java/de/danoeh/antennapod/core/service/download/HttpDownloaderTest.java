@@ -0,0 +1,142 @@
+package de.danoeh.antennapod.core.service.download;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+
+import de.danoeh.antennapod.core.ApplicationCallbacks;
+import de.danoeh.antennapod.core.ClientConfig;
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the feed requests of {@link HttpDownloader}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HttpDownloaderTest {
+    private static final String LAST_MODIFIED = "Sat, 01 Jan 2000 00:00:00 GMT";
+    private static final String ETAG = "\"abc\"";
+    private static final String FEED = "<?xml version='1.0' encoding='UTF-8' ?><rss version=\"2.0\">"
+            + "<channel><title>title</title></channel></rss>";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private File destination;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Application app = (Application) context;
+        ClientConfig.applicationCallbacks = mock(ApplicationCallbacks.class);
+        when(ClientConfig.applicationCallbacks.getApplicationInstance()).thenReturn(app);
+        ClientConfig.USER_AGENT = "AntennaPod/Test";
+        UserPreferences.init(context);
+        UserPreferences.setDataFolder(folder.newFolder("data").getAbsolutePath());
+        AntennapodHttpClient.setCacheDirectory(folder.newFolder("cache"));
+        AntennapodHttpClient.reinit();
+
+        destination = new File(folder.getRoot(), "feed.xml");
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void testConditionalHeaders() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304));
+        DownloadRequest request = createRequest().setLastModified(LAST_MODIFIED).setEtag(ETAG);
+
+        DownloadStatus status = new HttpDownloader(request).call().getResult();
+        assertTrue(status.isNotModified());
+
+        RecordedRequest recorded = server.takeRequest();
+        assertEquals(LAST_MODIFIED, recorded.getHeader("If-Modified-Since"));
+        assertEquals(ETAG, recorded.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testLegacyEtagInLastModified() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(304));
+        // Older versions stored the ETag in the Last-Modified field
+        DownloadRequest request = createRequest().setLastModified(ETAG);
+
+        DownloadStatus status = new HttpDownloader(request).call().getResult();
+        assertTrue(status.isNotModified());
+
+        RecordedRequest recorded = server.takeRequest();
+        assertNull(recorded.getHeader("If-Modified-Since"));
+        assertEquals(ETAG, recorded.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testNoConditionalHeaders() throws Exception {
+        server.enqueue(new MockResponse().setBody(FEED));
+        DownloadStatus status = new HttpDownloader(createRequest()).call().getResult();
+        assertTrue(status.isSuccessful());
+
+        RecordedRequest recorded = server.takeRequest();
+        assertNull(recorded.getHeader("If-Modified-Since"));
+        assertNull(recorded.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testSameContentNotModified() throws Exception {
+        server.enqueue(new MockResponse().setBody(FEED).setHeader("ETag", ETAG));
+        DownloadRequest request = createRequest();
+        DownloadStatus status = new HttpDownloader(request).call().getResult();
+        assertTrue(status.isSuccessful());
+        assertFalse(status.isNotModified());
+        assertTrue(destination.exists());
+        String contentHash = request.getContentHash();
+        assertNotNull(contentHash);
+        assertEquals(ETAG, request.getEtag());
+        assertTrue(destination.delete());
+
+        // The server ignores the ETag and sends the same content again
+        server.enqueue(new MockResponse().setBody(FEED));
+        request = createRequest().setEtag(ETAG).setContentHash(contentHash);
+        status = new HttpDownloader(request).call().getResult();
+        assertTrue(status.isNotModified());
+        assertFalse(destination.exists());
+
+        server.enqueue(new MockResponse().setBody(FEED.replace("title", "changed")));
+        request = createRequest().setContentHash(contentHash);
+        status = new HttpDownloader(request).call().getResult();
+        assertTrue(status.isSuccessful());
+        assertFalse(contentHash.equals(request.getContentHash()));
+    }
+
+    private DownloadRequest createRequest() {
+        return new DownloadRequest(destination.getAbsolutePath(), server.url("/feed.xml").toString(), "feed", 0,
+                Feed.FEEDFILETYPE_FEED, null, null, true, new Bundle(), false);
+    }
+}
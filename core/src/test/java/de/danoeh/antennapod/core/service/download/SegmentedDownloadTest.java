@@ -0,0 +1,252 @@
+package de.danoeh.antennapod.core.service.download;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.danoeh.antennapod.core.feed.FeedMedia;
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class SegmentedDownloadTest {
+    private static final long SIZE = 1000;
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private final List<String> requestedRanges = Collections.synchronizedList(new ArrayList<>());
+    private final byte[] content = new byte[(int) SIZE];
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File destination;
+    private File stateFile;
+
+    @Before
+    public void setUp() {
+        destination = new File(folder.getRoot(), "episode.mp3");
+        stateFile = new File(destination.getPath() + ".segments");
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        SegmentedDownload.tearDownTests();
+    }
+
+    @Test
+    public void testAllocate() throws IOException {
+        SegmentedDownload.create(destination, SIZE).allocate();
+        assertEquals(SIZE, destination.length());
+        assertTrue(stateFile.exists());
+
+        SegmentedDownload loaded = SegmentedDownload.load(destination);
+        assertNotNull(loaded);
+        assertEquals(SIZE, loaded.getSize());
+        assertEquals(0, loaded.getDownloadedBytes());
+        assertFalse(loaded.isComplete());
+    }
+
+    @Test
+    public void testLoadProgress() throws IOException {
+        SegmentedDownload.create(destination, SIZE).allocate();
+        FileUtils.writeStringToFile(stateFile, "1000\n0 500 500\n500 1000 700", "UTF-8");
+
+        SegmentedDownload loaded = SegmentedDownload.load(destination);
+        assertNotNull(loaded);
+        assertEquals(700, loaded.getDownloadedBytes());
+        assertFalse(loaded.isComplete());
+
+        FileUtils.writeStringToFile(stateFile, "1000\n0 500 500\n500 1000 1000", "UTF-8");
+        loaded = SegmentedDownload.load(destination);
+        assertNotNull(loaded);
+        assertTrue(loaded.isComplete());
+    }
+
+    @Test
+    public void testLoadWithoutState() throws IOException {
+        assertTrue(destination.createNewFile());
+        assertNull(SegmentedDownload.load(destination));
+    }
+
+    @Test
+    public void testLoadFileChanged() throws IOException {
+        SegmentedDownload.create(destination, SIZE).allocate();
+        RandomAccessFile file = new RandomAccessFile(destination, "rw");
+        file.setLength(SIZE / 2);
+        file.close();
+
+        assertNull(SegmentedDownload.load(destination));
+        assertFalse(stateFile.exists());
+    }
+
+    @Test
+    public void testLoadInvalidSegments() throws IOException {
+        SegmentedDownload.create(destination, SIZE).allocate();
+        FileUtils.writeStringToFile(stateFile, "1000\n0 500 500\n600 1000 600", "UTF-8");
+
+        assertNull(SegmentedDownload.load(destination));
+        assertFalse(stateFile.exists());
+    }
+
+    @Test
+    public void testDownload() throws IOException {
+        SegmentedDownload download = SegmentedDownload.create(destination, SIZE);
+        download.allocate();
+        download.download(createClient(206, SIZE), createRequest(), null, 4, createDownloader());
+
+        assertTrue(download.isComplete());
+        assertEquals(Arrays.asList("bytes=0-249", "bytes=250-499", "bytes=500-749", "bytes=750-999"),
+                sorted(requestedRanges));
+        assertArrayEquals(content, FileUtils.readFileToByteArray(destination));
+        SegmentedDownload loaded = SegmentedDownload.load(destination);
+        assertNotNull(loaded);
+        assertTrue(loaded.isComplete());
+    }
+
+    @Test
+    public void testDownloadRejectsWholeFile() throws IOException {
+        Response wholeFile = new Response.Builder()
+                .request(createRequest())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("")
+                .header("Accept-Ranges", "bytes")
+                .build();
+        long largeSize = 100 * 1024 * 1024;
+        assertTrue(SegmentedDownload.isSupported(wholeFile, largeSize));
+
+        SegmentedDownload download = SegmentedDownload.create(destination, SIZE);
+        download.allocate();
+        try {
+            download.download(createClient(200, SIZE), createRequest(), null, 4, createDownloader());
+            fail("Expected UnexpectedResponseException");
+        } catch (SegmentedDownload.UnexpectedResponseException e) {
+            // Restarts the download from the beginning
+            assertEquals(SegmentedDownload.HTTP_RANGE_NOT_SATISFIABLE, e.code);
+        }
+        assertFalse(download.isComplete());
+        // The next attempt must not use segments, or it would be answered with the whole file again
+        assertFalse(SegmentedDownload.isSupported(wholeFile, largeSize));
+    }
+
+    @Test
+    public void testDownloadRejectsChangedFile() throws IOException {
+        SegmentedDownload download = SegmentedDownload.create(destination, SIZE);
+        download.allocate();
+        try {
+            download.download(createClient(206, SIZE + 1), createRequest(), null, 4, createDownloader());
+            fail("Expected UnexpectedResponseException");
+        } catch (SegmentedDownload.UnexpectedResponseException e) {
+            assertEquals(SegmentedDownload.HTTP_RANGE_NOT_SATISFIABLE, e.code);
+        }
+        assertFalse(download.isComplete());
+    }
+
+    @Test
+    public void testResumeDownload() throws IOException {
+        SegmentedDownload.create(destination, SIZE).allocate();
+        byte[] partial = content.clone();
+        Arrays.fill(partial, 400, 500, (byte) 0);
+        Arrays.fill(partial, 750, 1000, (byte) 0);
+        FileUtils.writeByteArrayToFile(destination, partial);
+        FileUtils.writeStringToFile(stateFile, "1000\n0 250 250\n250 500 400\n500 750 750\n750 1000 750", "UTF-8");
+
+        SegmentedDownload download = SegmentedDownload.load(destination);
+        assertNotNull(download);
+        download.download(createClient(206, SIZE), createRequest(), null, 4, createDownloader());
+
+        assertTrue(download.isComplete());
+        assertEquals(Arrays.asList("bytes=400-499", "bytes=750-999"), sorted(requestedRanges));
+        assertArrayEquals(content, FileUtils.readFileToByteArray(destination));
+    }
+
+    /**
+     * Creates a client that answers range requests for the content with the given status code.
+     *
+     * @param fileSize The size of the file that the server announces in the Content-Range header.
+     */
+    private OkHttpClient createClient(int code, long fileSize) {
+        OkHttpClient client = mock(OkHttpClient.class);
+        when(client.newCall(any())).thenAnswer(invocation -> {
+            Request request = invocation.getArgument(0);
+            String range = request.header("Range");
+            requestedRanges.add(range);
+            Matcher matcher = RANGE.matcher(range);
+            assertTrue(matcher.matches());
+            int start = Integer.parseInt(matcher.group(1));
+            int end = Integer.parseInt(matcher.group(2)) + 1;
+
+            Response.Builder response = new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(code)
+                    .message("");
+            if (code == 206) {
+                response.header("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + fileSize)
+                        .body(ResponseBody.create(MediaType.parse("audio/mpeg"),
+                                Arrays.copyOfRange(content, start, end)));
+            } else {
+                response.body(ResponseBody.create(MediaType.parse("audio/mpeg"), content));
+            }
+            Call call = mock(Call.class);
+            doReturn(response.build()).when(call).execute();
+            return call;
+        });
+        return client;
+    }
+
+    private Request createRequest() {
+        return new Request.Builder().url("http://example.com/episode.mp3").build();
+    }
+
+    private Downloader createDownloader() {
+        DownloadRequest request = new DownloadRequest(destination.getPath(), "http://example.com/episode.mp3",
+                "episode", 0, FeedMedia.FEEDFILETYPE_FEEDMEDIA, null, null, false, null, false);
+        return new Downloader(request) {
+            @Override
+            protected void download() {
+            }
+        };
+    }
+
+    private static List<String> sorted(List<String> ranges) {
+        List<String> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,139 @@
+package de.danoeh.antennapod.core.service.download.handler;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import de.danoeh.antennapod.core.ApplicationCallbacks;
+import de.danoeh.antennapod.core.ClientConfig;
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.preferences.PlaybackPreferences;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+import de.danoeh.antennapod.core.service.download.DownloadRequest;
+import de.danoeh.antennapod.core.storage.DBReader;
+import de.danoeh.antennapod.core.storage.DBTasks;
+import de.danoeh.antennapod.core.storage.DBWriter;
+import de.danoeh.antennapod.core.storage.PodDBAdapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link FeedSyncTask}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedSyncTaskTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+        PlaybackPreferences.init(context);
+
+        Application app = (Application) context;
+        ClientConfig.applicationCallbacks = mock(ApplicationCallbacks.class);
+        when(ClientConfig.applicationCallbacks.getApplicationInstance()).thenReturn(app);
+
+        // create new database
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.close();
+    }
+
+    @After
+    public void tearDown() {
+        DBWriter.tearDownTests();
+        PodDBAdapter.tearDownTests();
+    }
+
+    @Test
+    public void testSyncAllNewAndExistingFeeds() throws IOException {
+        Feed first = saveFeed("http://example.com/first", "first", "first-0");
+        Feed second = saveFeed("http://example.com/second", "second", "second-0");
+        long firstItemId = first.getItems().get(0).getId();
+
+        List<FeedSyncTask> tasks = new ArrayList<>();
+        tasks.add(createTask("http://example.com/first", first.getId(), "first", "first-0", "first-1"));
+        tasks.add(createTask("http://example.com/new", 0, "new", "new-0", "new-1", "new-2"));
+        tasks.add(createTask("http://example.com/second", second.getId(), "second", "second-0"));
+        for (FeedSyncTask task : tasks) {
+            assertTrue(task.parse());
+        }
+        FeedSyncTask.syncAll(context, tasks);
+
+        assertEquals(first.getId(), tasks.get(0).getSavedFeed().getId());
+        assertEquals(second.getId(), tasks.get(2).getSavedFeed().getId());
+        long newFeedId = tasks.get(1).getSavedFeed().getId();
+        assertTrue(newFeedId != 0);
+        assertEquals(3, DBReader.getFeedList().size());
+
+        Feed firstFromDb = DBReader.getFeed(first.getId());
+        assertNotNull(firstFromDb);
+        assertEquals(2, firstFromDb.getItems().size());
+        for (FeedItem item : firstFromDb.getItems()) {
+            if ("first-0".equals(item.getItemIdentifier())) {
+                assertEquals(firstItemId, item.getId());
+            }
+        }
+        Feed newFromDb = DBReader.getFeed(newFeedId);
+        assertNotNull(newFromDb);
+        assertEquals("new", newFromDb.getTitle());
+        assertEquals(3, newFromDb.getItems().size());
+        Feed secondFromDb = DBReader.getFeed(second.getId());
+        assertNotNull(secondFromDb);
+        assertEquals(1, secondFromDb.getItems().size());
+    }
+
+    private Feed saveFeed(String url, String title, String guid) {
+        Feed feed = new Feed(url, null, title);
+        feed.setItems(new ArrayList<>());
+        feed.getItems().add(new FeedItem(0, guid, guid, "link", new Date(), FeedItem.UNPLAYED, feed));
+        return DBTasks.updateFeed(context, feed, false);
+    }
+
+    /**
+     * Creates a task for a downloaded RSS feed with an item for every given guid.
+     */
+    private FeedSyncTask createTask(String url, long feedId, String title, String... guids) throws IOException {
+        StringBuilder rss = new StringBuilder("<?xml version='1.0' encoding='UTF-8' ?><rss version=\"2.0\">"
+                + "<channel><title>" + title + "</title><link>http://example.com</link>");
+        for (String guid : guids) {
+            rss.append("<item><title>").append(guid).append("</title><guid>").append(guid)
+                    .append("</guid><pubDate>01 Jan 70 01:00:00 +0100</pubDate></item>");
+        }
+        rss.append("</channel></rss>");
+        File file = folder.newFile(title + ".xml");
+        FileUtils.writeStringToFile(file, rss.toString(), "UTF-8");
+
+        DownloadRequest request = new DownloadRequest(file.getAbsolutePath(), url, title, feedId,
+                Feed.FEEDFILETYPE_FEED, null, null, true, new Bundle(), false);
+        return new FeedSyncTask(context, request);
+    }
+}
@@ -3,13 +3,16 @@ package de.danoeh.antennapod.core.storage;
 import android.app.Application;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.SystemClock;
 import androidx.preference.PreferenceManager;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import androidx.test.platform.app.InstrumentationRegistry;
 
@@ -28,6 +31,8 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 import static de.danoeh.antennapod.core.storage.DbTestUtils.saveFeedlist;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -41,6 +46,8 @@ import static org.mockito.Mockito.when;
 public class DbCleanupTests {
 
     static final int EPISODE_CACHE_SIZE = 5;
+    private static final long TIMEOUT = 5L;
+    private static final long MEGABYTE = 1024 * 1024;
     private int cleanupAlgorithm;
 
     Context context;
@@ -124,6 +131,133 @@ public class DbCleanupTests {
         }
     }
 
+    @Test
+    public void testPerformAutoCleanupStorageLimit() throws IOException {
+        final int numItems = EPISODE_CACHE_SIZE * 2;
+        // Smaller than the number of episodes, so that both limits have to be applied
+        final int storageLimit = EPISODE_CACHE_SIZE - 2;
+        setStorageLimit(storageLimit);
+
+        Feed feed = new Feed("url", null, "title");
+        List<FeedItem> items = new ArrayList<>();
+        feed.setItems(items);
+        List<File> files = new ArrayList<>();
+        populateItems(numItems, feed, items, files, FeedItem.PLAYED, false, false);
+        setDownloadedSize(items, MEGABYTE);
+        assertEquals(numItems * MEGABYTE, DBReader.getDownloadedEpisodesSize());
+
+        DBTasks.performAutoCleanup(context);
+        for (int i = 0; i < files.size(); i++) {
+            if (i < storageLimit) {
+                assertTrue(files.get(i).exists());
+            } else {
+                assertFalse(files.get(i).exists());
+            }
+        }
+        assertEquals(storageLimit * MEGABYTE, DBReader.getDownloadedEpisodesSize());
+    }
+
+    @Test
+    public void testItemsWithinStorageLimit() throws IOException {
+        setStorageLimit(4);
+        Feed feed = new Feed("url", null, "title");
+        List<FeedItem> items = new ArrayList<>();
+        feed.setItems(items);
+        List<File> files = new ArrayList<>();
+        populateItems(2, feed, items, files, FeedItem.PLAYED, false, false);
+        setDownloadedSize(items, MEGABYTE);
+
+        FeedItem tooLarge = createCandidate(feed, 4 * MEGABYTE + 1);
+        FeedItem unknownSize = createCandidate(feed, 0);
+        FeedItem fitting = createCandidate(feed, 2 * MEGABYTE);
+        FeedItem[] itemsToDownload = AutomaticDownloadAlgorithm.getItemsWithinStorageLimit(context,
+                Arrays.asList(tooLarge, unknownSize, fitting), 4 * MEGABYTE);
+
+        // The unknown size is estimated with the average of the downloaded episodes
+        assertArrayEquals(new FeedItem[] {unknownSize, fitting}, itemsToDownload);
+        // Only the room for the planned 3 MB is made, not for the skipped episode
+        assertEquals(MEGABYTE, DBReader.getDownloadedEpisodesSize());
+        assertTrue(files.get(0).exists() != files.get(1).exists());
+    }
+
+    private void setStorageLimit(int megabytes) {
+        PreferenceManager.getDefaultSharedPreferences(context.getApplicationContext()).edit()
+                .putString(UserPreferences.PREF_EPISODE_CACHE_STORAGE, Integer.toString(megabytes))
+                .commit();
+    }
+
+    private void setDownloadedSize(List<FeedItem> items, long size) {
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        for (FeedItem item : items) {
+            item.getMedia().setDownloadedSize(size);
+            adapter.setMedia(item.getMedia());
+        }
+        adapter.close();
+    }
+
+    private FeedItem createCandidate(Feed feed, long size) {
+        FeedItem item = new FeedItem(0, "candidate", "id", "link", new Date(), FeedItem.NEW, feed);
+        item.setMedia(new FeedMedia(0, item, 1, 0, size, "m", null, "url", false, null, 0, 0));
+        return item;
+    }
+
+    @Test
+    public void testReclaimableItemsMatchCleanup() throws IOException {
+        assertReclaimableItemsMatchCleanup(false);
+    }
+
+    @Test
+    public void testReclaimableItemsMatchCleanupInQueue() throws IOException {
+        assertReclaimableItemsMatchCleanup(true);
+    }
+
+    /**
+     * The counted number of reclaimable episodes must match the number of episodes that a cleanup deletes,
+     * and the cached count must be dropped by the cleanup.
+     */
+    private void assertReclaimableItemsMatchCleanup(boolean addToQueue) throws IOException {
+        final int numItems = EPISODE_CACHE_SIZE * 2;
+
+        Feed feed = new Feed("url", null, "title");
+        List<FeedItem> items = new ArrayList<>();
+        feed.setItems(items);
+        List<File> files = new ArrayList<>();
+        populateItems(numItems, feed, items, files, FeedItem.PLAYED, addToQueue, false);
+
+        EpisodeCleanupAlgorithm algorithm = UserPreferences.getEpisodeCleanupAlgorithm();
+        int reclaimableItems = algorithm.getReclaimableItems();
+        assertEquals(reclaimableItems, UserPreferences.getEpisodeCleanupAlgorithm().getReclaimableItems());
+        assertEquals(reclaimableItems, algorithm.performCleanup(context, numItems));
+        assertEquals(0, UserPreferences.getEpisodeCleanupAlgorithm().getReclaimableItems());
+    }
+
+    /**
+     * Completing the playback of an episode can make it reclaimable, so it must drop the cached count.
+     */
+    @Test
+    public void testReclaimableItemsAfterPlaybackCompleted() throws Exception {
+        final int numItems = EPISODE_CACHE_SIZE * 2;
+
+        Feed feed = new Feed("url", null, "title");
+        List<FeedItem> items = new ArrayList<>();
+        feed.setItems(items);
+        List<File> files = new ArrayList<>();
+        populateItems(numItems, feed, items, files, FeedItem.PLAYED, false, false);
+
+        EpisodeCleanupAlgorithm algorithm = UserPreferences.getEpisodeCleanupAlgorithm();
+        algorithm.getReclaimableItems();
+        DBWriter.clearPlaybackHistory().get(TIMEOUT, TimeUnit.SECONDS);
+        assertEquals(algorithm.countReclaimableItems(System.currentTimeMillis()), algorithm.getReclaimableItems());
+
+        FeedMedia media = items.get(0).getMedia();
+        DBWriter.addItemToPlaybackHistory(media).get(TIMEOUT, TimeUnit.SECONDS);
+        while (System.currentTimeMillis() <= media.getPlaybackCompletionDate().getTime()) {
+            SystemClock.sleep(1);
+        }
+        assertEquals(algorithm.countReclaimableItems(System.currentTimeMillis()), algorithm.getReclaimableItems());
+    }
+
     @SuppressWarnings("SameParameterValue")
     void populateItems(final int numItems, Feed feed, List<FeedItem> items,
                        List<File> files, int itemState, boolean addToQueue,
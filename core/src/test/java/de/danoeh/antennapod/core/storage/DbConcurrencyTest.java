@@ -0,0 +1,178 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads the navigation drawer data while feeds are being saved on another thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DbConcurrencyTest {
+    private static final String TAG = "DbConcurrencyTest";
+    private static final int NUM_FEEDS = 10;
+    private static final int NUM_ITEMS = 500;
+    private static final long TIMEOUT = 60L;
+    /**
+     * Reads have to finish in this time while a write transaction is open.
+     */
+    private static final long MAX_READ_LATENCY_MS = 1000L;
+
+    private ExecutorService writer;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.close();
+        writer = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        writer.shutdownNow();
+        writer.awaitTermination(TIMEOUT, TimeUnit.SECONDS);
+        PodDBAdapter.tearDownTests();
+        DBWriter.tearDownTests();
+    }
+
+    @Test
+    public void testReadsDuringFeedUpdates() throws Exception {
+        Future<?> updates = writer.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            for (int i = 0; i < NUM_FEEDS; i++) {
+                adapter.setCompleteFeed(createFeed(i));
+            }
+            adapter.close();
+        });
+
+        ArrayList<Long> latencies = new ArrayList<>();
+        NavDrawerData data;
+        do {
+            long start = System.nanoTime();
+            data = DBReader.getNavDrawerData();
+            latencies.add(System.nanoTime() - start);
+            // A feed and its episodes are saved in one transaction, so a read never sees half of a feed
+            assertEquals(0, data.numNewItems % NUM_ITEMS);
+        } while (!updates.isDone());
+        updates.get(TIMEOUT, TimeUnit.SECONDS);
+
+        data = DBReader.getNavDrawerData();
+        assertEquals(NUM_FEEDS, data.items.size());
+        assertEquals(NUM_FEEDS * NUM_ITEMS, data.numNewItems);
+
+        long[] sorted = new long[latencies.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        assertTrue(sorted.length > 0);
+        Log.d(TAG, "Reads: " + sorted.length
+                + ", p50: " + toMillis(percentile(sorted, 50)) + " ms"
+                + ", p95: " + toMillis(percentile(sorted, 95)) + " ms"
+                + ", p99: " + toMillis(percentile(sorted, 99)) + " ms"
+                + ", max: " + toMillis(sorted[sorted.length - 1]) + " ms");
+    }
+
+    @Test
+    public void testReadsNotBlockedByWriteTransaction() throws Exception {
+        CountDownLatch inTransaction = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Feed feed = createFeed(0);
+        FeedItem blockingItem = new FeedItem(0, "blocking item", "blocking id", "link", new Date(),
+                FeedItem.NEW, feed) {
+            @Override
+            public String getTitle() {
+                // Called by setCompleteFeed while it holds the write transaction
+                inTransaction.countDown();
+                try {
+                    release.await(TIMEOUT, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTitle();
+            }
+        };
+        feed.getItems().add(blockingItem);
+
+        Future<?> update = writer.submit(() -> {
+            PodDBAdapter adapter = PodDBAdapter.getInstance();
+            adapter.open();
+            adapter.setCompleteFeed(feed);
+            adapter.close();
+        });
+        try {
+            assertTrue(inTransaction.await(TIMEOUT, TimeUnit.SECONDS));
+            ExecutorService reader = Executors.newSingleThreadExecutor();
+            try {
+                for (int i = 0; i < 10; i++) {
+                    long start = System.nanoTime();
+                    NavDrawerData data = reader.submit(DBReader::getNavDrawerData)
+                            .get(MAX_READ_LATENCY_MS, TimeUnit.MILLISECONDS);
+                    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < MAX_READ_LATENCY_MS);
+                    assertEquals(0, data.items.size());
+                }
+            } finally {
+                reader.shutdownNow();
+            }
+            assertFalse(update.isDone());
+        } finally {
+            release.countDown();
+        }
+        update.get(TIMEOUT, TimeUnit.SECONDS);
+        assertEquals(1, DBReader.getNavDrawerData().items.size());
+    }
+
+    private static Feed createFeed(int index) {
+        Feed feed = new Feed(0, null, "feed " + index, "link" + index, "descr", null, null,
+                null, null, "id" + index, null, null, "url" + index, false);
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < NUM_ITEMS; i++) {
+            FeedItem item = new FeedItem(0, "item " + i, "id" + i, "link" + i, new Date(),
+                    FeedItem.NEW, feed);
+            item.setMedia(new FeedMedia(item, "url" + i, 1, "audio/mp3"));
+            feed.getItems().add(item);
+        }
+        return feed;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
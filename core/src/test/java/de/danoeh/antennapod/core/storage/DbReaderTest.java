@@ -10,6 +10,7 @@ import java.util.Random;
 import androidx.test.platform.app.InstrumentationRegistry;
 import de.danoeh.antennapod.core.feed.Feed;
 import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedItemFilter;
 import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.util.LongList;
@@ -24,6 +25,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -127,6 +129,43 @@ public class DbReaderTest {
         }
     }
 
+    @Test
+    public void testLoadTagsOfFeedItemList() {
+        List<FeedItem> items = saveFeedlist(1, 10, false).get(0).getItems();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setQueue(items.subList(0, 5));
+        adapter.addFavoriteItem(items.get(4));
+        adapter.addFavoriteItem(items.get(5));
+        adapter.close();
+
+        List<FeedItem> savedItems = DBReader.getRecentlyPublishedEpisodes(0, 20, new FeedItemFilter(""));
+        assertEquals(items.size(), savedItems.size());
+        for (FeedItem item : savedItems) {
+            int index = items.indexOf(item);
+            assertEquals(index < 5, item.isTagged(FeedItem.TAG_QUEUE));
+            assertEquals(index == 4 || index == 5, item.isTagged(FeedItem.TAG_FAVORITE));
+        }
+    }
+
+    @Test
+    public void testLoadFeedDataOfFeedItemListAfterFeedChange() {
+        Feed feed = saveFeedlist(1, 2, false).get(0);
+        List<FeedItem> items = DBReader.getRecentlyPublishedEpisodes(0, 10, new FeedItemFilter(""));
+        assertEquals(2, items.size());
+        assertSame(items.get(0).getFeed(), items.get(1).getFeed());
+        assertSame(items.get(0).getFeed(),
+                DBReader.getRecentlyPublishedEpisodes(0, 10, new FeedItemFilter("")).get(0).getFeed());
+
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setFeedCustomTitle(feed.getId(), "Custom title");
+        adapter.close();
+
+        items = DBReader.getRecentlyPublishedEpisodes(0, 10, new FeedItemFilter(""));
+        assertEquals("Custom title", items.get(0).getFeed().getTitle());
+    }
+
     @Test
     public void testGetFeedItemList() {
         final int numFeeds = 1;
@@ -417,4 +456,107 @@ public class DbReaderTest {
         assertTrue(item2.hasChapters());
         assertEquals(item1.getChapters(), item2.getChapters());
     }
+
+    @Test
+    public void testGetRecentlyPublishedEpisodesPaged() {
+        final int numItems = 25;
+        final int pageSize = 4;
+        // All items are published at the same time, so the pages are separated by the item ID only
+        saveFeedlist(2, numItems, true);
+        List<FeedItem> expected = DBReader.getRecentlyPublishedEpisodes(0, Integer.MAX_VALUE,
+                FeedItemFilter.unfiltered());
+        assertEquals(2 * numItems, expected.size());
+
+        List<FeedItem> paged = new ArrayList<>();
+        List<FeedItem> page = DBReader.getRecentlyPublishedEpisodes(null, pageSize, FeedItemFilter.unfiltered());
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= pageSize);
+            paged.addAll(page);
+            page = DBReader.getRecentlyPublishedEpisodes(PageToken.after(page.get(page.size() - 1)),
+                    pageSize, FeedItemFilter.unfiltered());
+        }
+        assertEquals(expected.size(), paged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), paged.get(i).getId());
+        }
+    }
+
+    @Test
+    public void testGetNewItemsListPaged() {
+        final int numItems = 10;
+        Feed feed = saveFeedlist(1, numItems, false).get(0);
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = feed.getItems().get(i);
+            item.setNew();
+            item.setPubDate(new Date(i / 2));
+            adapter.setSingleFeedItem(item);
+        }
+        adapter.close();
+
+        List<FeedItem> firstPage = DBReader.getNewItemsList(null, 3);
+        assertEquals(3, firstPage.size());
+        List<FeedItem> rest = DBReader.getNewItemsList(PageToken.after(firstPage.get(2)), numItems);
+        assertEquals(numItems - 3, rest.size());
+        List<FeedItem> all = DBReader.getNewItemsList(0, numItems);
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = i < 3 ? firstPage.get(i) : rest.get(i - 3);
+            assertEquals(all.get(i).getId(), item.getId());
+        }
+    }
+
+    @Test
+    public void testGetStatistics() {
+        List<Feed> feeds = saveFeedlist(2, 3, true);
+        saveFeedlist(1, 0, false);
+        List<FeedItem> items = feeds.get(0).getItems();
+        setPlaybackState(items.get(0), true, 60000, 0, 30000, 1000);
+        setPlaybackState(items.get(1), false, 120000, 10000, 10000, 0);
+        setPlaybackState(items.get(2), false, 180000, 0, 0, 0);
+
+        List<StatisticsItem> statistics = DBReader.getStatistics();
+        assertEquals(3, statistics.size());
+        StatisticsItem first = null;
+        StatisticsItem empty = null;
+        for (StatisticsItem item : statistics) {
+            if (item.feed.getId() == feeds.get(0).getId()) {
+                first = item;
+            } else if (item.episodes == 0) {
+                empty = item;
+            }
+        }
+        assertNotNull(first);
+        assertEquals(360, first.time);
+        assertEquals(40, first.timePlayed);
+        assertEquals(70, first.timePlayedCountAll);
+        assertEquals(3, first.episodes);
+        assertEquals(2, first.episodesStarted);
+        assertEquals(2, first.episodesStartedIncludingMarked);
+        assertEquals(1000, first.totalDownloadSize);
+        assertEquals(1, first.episodesDownloadCount);
+
+        assertNotNull(empty);
+        assertEquals(0, empty.time);
+        assertEquals(0, empty.totalDownloadSize);
+    }
+
+    private static void setPlaybackState(FeedItem item, boolean played, int duration, int position,
+                                         int playedDuration, long downloadedSize) {
+        item.setPlayed(played);
+        FeedMedia media = item.getMedia();
+        media.setDuration(duration);
+        media.setPosition(position);
+        media.setPlayedDuration(playedDuration);
+        if (downloadedSize > 0) {
+            media.setDownloaded(true);
+            media.setFile_url("file" + item.getId());
+            media.setDownloadedSize(downloadedSize);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setSingleFeedItem(item);
+        adapter.setMedia(media);
+        adapter.close();
+    }
 }
@@ -15,7 +15,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import de.danoeh.antennapod.core.ApplicationCallbacks;
 import de.danoeh.antennapod.core.ClientConfig;
@@ -31,6 +33,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -146,6 +149,40 @@ public class DbTasksTest {
         updatedFeedTest(feedFromDB, feedID, itemIDs, numItemsOld, numItemsNew);
     }
 
+    @Test
+    public void testUpdateFeedDescriptions() {
+        final Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < 2; i++) {
+            FeedItem item = new FeedItem(0, "item " + i, "id " + i, "link " + i,
+                    new Date(i), FeedItem.PLAYED, feed);
+            item.setDescription("description " + i);
+            feed.getItems().add(item);
+        }
+        DBTasks.updateFeed(context, feed, false);
+
+        final Feed updatedFeed = new Feed("url", null, "title");
+        updatedFeed.setItems(new ArrayList<>());
+        for (int i = 0; i < 2; i++) {
+            FeedItem item = new FeedItem(0, "item " + i, "id " + i, "link " + i,
+                    new Date(i), FeedItem.PLAYED, updatedFeed);
+            item.setDescription(i == 0 ? "description 0" : "changed description");
+            updatedFeed.getItems().add(item);
+        }
+        Feed newFeed = DBTasks.updateFeed(context, updatedFeed, false);
+
+        List<FeedItem> items = DBReader.getFeedItemList(newFeed);
+        assertEquals(2, items.size());
+        for (FeedItem item : items) {
+            // Descriptions are not loaded with the item list
+            assertNull(item.getDescription());
+            DBReader.loadDescriptionOfFeedItem(item);
+            String expected = item.getItemIdentifier().equals("id 0") ? "description 0" : "changed description";
+            assertEquals(expected, item.getDescription());
+            assertEquals(FeedItem.hashDescription(expected), item.getDescriptionHash());
+        }
+    }
+
     @Test
     public void testUpdateFeedMediaUrlResetState() {
         final Feed feed = new Feed("url", null, "title");
@@ -197,6 +234,54 @@ public class DbTasksTest {
         assertEquals(8, feedFromDB.getItems().size()); // 10 - 2 = 8 items
     }
 
+    /**
+     * Merges a large feed into an already stored copy of itself. Items that are still listed
+     * must be matched to their stored copies instead of being inserted again.
+     */
+    @Test
+    public void testUpdateFeedLargeFeed() {
+        final int numItems = 5000;
+        final int numChanged = 100;
+        final Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            feed.getItems().add(
+                    new FeedItem(0, "item " + i, "id " + i, "link " + i, new Date(i), FeedItem.PLAYED, feed));
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+
+        Feed refreshedFeed = new Feed("url", null, "title");
+        refreshedFeed.setItems(new ArrayList<>());
+        // drop the oldest items and add the same number of new ones
+        for (int i = numChanged; i < numItems + numChanged; i++) {
+            refreshedFeed.getItems().add(new FeedItem(0, "item " + i, "id " + i, "link " + i,
+                    new Date(i), FeedItem.UNPLAYED, refreshedFeed));
+        }
+
+        Feed newFeed = DBTasks.updateFeed(context, refreshedFeed, true);
+        assertEquals(feed.getId(), newFeed.getId());
+        assertEquals(numItems, newFeed.getItems().size());
+
+        Feed feedFromDB = DBReader.getFeed(newFeed.getId());
+        assertEquals(numItems, feedFromDB.getItems().size());
+        Map<String, Long> storedIds = new HashMap<>();
+        for (FeedItem item : feed.getItems()) {
+            storedIds.put(item.getItemIdentifier(), item.getId());
+        }
+        for (FeedItem item : feedFromDB.getItems()) {
+            int index = Integer.parseInt(item.getItemIdentifier().substring("id ".length()));
+            if (index < numItems) {
+                assertEquals(storedIds.get(item.getItemIdentifier()).longValue(), item.getId());
+                assertTrue(item.isPlayed());
+            } else {
+                assertFalse(storedIds.containsKey(item.getItemIdentifier()));
+            }
+        }
+    }
+
     @SuppressWarnings("SameParameterValue")
     private void updatedFeedTest(final Feed newFeed, long feedID, List<Long> itemIDs,
                                  int numItemsOld, int numItemsNew) {
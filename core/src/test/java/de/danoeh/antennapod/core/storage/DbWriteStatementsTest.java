@@ -0,0 +1,253 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedMedia;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Makes sure that the compiled statements of {@link PodDBAdapter} write the same rows
+ * as writing every row through ContentValues did.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DbWriteStatementsTest {
+    private static final int NUM_ITEMS = 10;
+
+    private static final String ITEMS_OF_FEED = "SELECT * FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+            + " WHERE " + PodDBAdapter.KEY_FEED + "=? ORDER BY " + PodDBAdapter.KEY_ID;
+    private static final String MEDIA_OF_FEED = "SELECT " + PodDBAdapter.TABLE_NAME_FEED_MEDIA + ".*"
+            + " FROM " + PodDBAdapter.TABLE_NAME_FEED_MEDIA + " INNER JOIN " + PodDBAdapter.TABLE_NAME_FEED_ITEMS
+            + " ON " + PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_FEEDITEM
+            + "=" + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_ID
+            + " WHERE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_FEED + "=?"
+            + " ORDER BY " + PodDBAdapter.TABLE_NAME_FEED_MEDIA + "." + PodDBAdapter.KEY_ID;
+    private static final String DESCRIPTIONS_OF_FEED = "SELECT " + PodDBAdapter.TABLE_NAME_FEED_ITEM_DESCRIPTIONS
+            + "." + PodDBAdapter.KEY_DESCRIPTION
+            + " FROM " + PodDBAdapter.TABLE_NAME_FEED_ITEM_DESCRIPTIONS + " INNER JOIN "
+            + PodDBAdapter.TABLE_NAME_FEED_ITEMS + " ON " + PodDBAdapter.TABLE_NAME_FEED_ITEM_DESCRIPTIONS + "."
+            + PodDBAdapter.KEY_ID + "=" + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_ID
+            + " WHERE " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_FEED + "=?"
+            + " ORDER BY " + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "." + PodDBAdapter.KEY_ID;
+
+    private PodDBAdapter adapter;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        db = SQLiteDatabase.openDatabase(context.getDatabasePath(PodDBAdapter.DATABASE_NAME).getAbsolutePath(),
+                null, SQLiteDatabase.OPEN_READWRITE);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        adapter.close();
+        PodDBAdapter.tearDownTests();
+        DBWriter.tearDownTests();
+    }
+
+    @Test
+    public void testInsertWritesSameRows() {
+        Feed statements = createFeed("statements");
+        Feed values = createFeed("values");
+        adapter.setCompleteFeed(statements);
+        insertWithContentValues(values);
+
+        assertSameRows(statements, values);
+    }
+
+    @Test
+    public void testUpdateWritesSameRows() {
+        Feed statements = createFeed("statements");
+        Feed values = createFeed("values");
+        adapter.setCompleteFeed(statements);
+        insertWithContentValues(values);
+
+        for (Feed feed : Arrays.asList(statements, values)) {
+            for (int i = 0; i < NUM_ITEMS; i++) {
+                FeedMedia media = feed.getItems().get(i).getMedia();
+                media.setPosition(i * 1000);
+                media.setDuration(i * 2000);
+                media.setPlayedDuration(i * 500);
+                media.setLastPlayedTime(i * 3000L);
+                media.setFile_url("file" + i);
+                media.setDownloaded(i % 2 == 0);
+            }
+        }
+        for (int i = 0; i < NUM_ITEMS; i++) {
+            FeedMedia media = statements.getItems().get(i).getMedia();
+            adapter.setMedia(media);
+            adapter.setFeedMediaPlaybackInformation(media);
+            adapter.setFeedItemRead(i % 3 - 1, media.getItem().getId(), media.getId(), i % 3 == 1);
+
+            media = values.getItems().get(i).getMedia();
+            db.update(PodDBAdapter.TABLE_NAME_FEED_MEDIA, mediaValues(media), PodDBAdapter.KEY_ID + "=?",
+                    new String[] {String.valueOf(media.getId())});
+            ContentValues playbackValues = new ContentValues();
+            playbackValues.put(PodDBAdapter.KEY_POSITION, media.getPosition());
+            playbackValues.put(PodDBAdapter.KEY_DURATION, media.getDuration());
+            playbackValues.put(PodDBAdapter.KEY_PLAYED_DURATION, media.getPlayedDuration());
+            playbackValues.put(PodDBAdapter.KEY_LAST_PLAYED_TIME, media.getLastPlayedTime());
+            db.update(PodDBAdapter.TABLE_NAME_FEED_MEDIA, playbackValues, PodDBAdapter.KEY_ID + "=?",
+                    new String[] {String.valueOf(media.getId())});
+            ContentValues readValues = new ContentValues();
+            readValues.put(PodDBAdapter.KEY_READ, i % 3 - 1);
+            db.update(PodDBAdapter.TABLE_NAME_FEED_ITEMS, readValues, PodDBAdapter.KEY_ID + "=?",
+                    new String[] {String.valueOf(media.getItem().getId())});
+            if (i % 3 == 1) {
+                ContentValues positionValues = new ContentValues();
+                positionValues.put(PodDBAdapter.KEY_POSITION, 0);
+                db.update(PodDBAdapter.TABLE_NAME_FEED_MEDIA, positionValues, PodDBAdapter.KEY_ID + "=?",
+                        new String[] {String.valueOf(media.getId())});
+            }
+        }
+
+        assertSameRows(statements, values);
+    }
+
+    private void assertSameRows(Feed expected, Feed actual) {
+        assertEquals(readRows(ITEMS_OF_FEED, expected, PodDBAdapter.KEY_ID, PodDBAdapter.KEY_FEED),
+                readRows(ITEMS_OF_FEED, actual, PodDBAdapter.KEY_ID, PodDBAdapter.KEY_FEED));
+        assertEquals(readRows(MEDIA_OF_FEED, expected, PodDBAdapter.KEY_ID, PodDBAdapter.KEY_FEEDITEM),
+                readRows(MEDIA_OF_FEED, actual, PodDBAdapter.KEY_ID, PodDBAdapter.KEY_FEEDITEM));
+        assertEquals(readRows(DESCRIPTIONS_OF_FEED, expected), readRows(DESCRIPTIONS_OF_FEED, actual));
+    }
+
+    /**
+     * Reads the rows of a feed, with the type and value of every column except the given ones.
+     * The IDs differ between the feeds that are compared, so they have to be left out.
+     */
+    private List<String> readRows(String query, Feed feed, String... ignoredColumns) {
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(query, new String[] {String.valueOf(feed.getId())})) {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    if (Arrays.asList(ignoredColumns).contains(cursor.getColumnName(i))) {
+                        continue;
+                    }
+                    row.append(cursor.getColumnName(i)).append('=').append(cursor.getType(i)).append(':')
+                            .append(cursor.getString(i)).append(", ");
+                }
+                rows.add(row.toString());
+            }
+        }
+        assertTrue("No rows of feed " + feed.getTitle(), rows.size() > 0);
+        return rows;
+    }
+
+    /**
+     * Inserts the items and media of the feed the way PodDBAdapter did before it reused compiled statements.
+     */
+    private void insertWithContentValues(Feed feed) {
+        ContentValues values = new ContentValues();
+        values.put(PodDBAdapter.KEY_TITLE, feed.getFeedTitle());
+        values.put(PodDBAdapter.KEY_DOWNLOAD_URL, feed.getDownload_url());
+        feed.setId(db.insert(PodDBAdapter.TABLE_NAME_FEEDS, null, values));
+        for (FeedItem item : feed.getItems()) {
+            item.setDescriptionHash(FeedItem.hashDescription(item.getDescription()));
+            values = new ContentValues();
+            values.put(PodDBAdapter.KEY_TITLE, item.getTitle());
+            values.put(PodDBAdapter.KEY_LINK, item.getLink());
+            values.put(PodDBAdapter.KEY_PUBDATE, item.getPubDate().getTime());
+            values.put(PodDBAdapter.KEY_PAYMENT_LINK, item.getPaymentLink());
+            values.put(PodDBAdapter.KEY_FEED, item.getFeed().getId());
+            if (item.isNew()) {
+                values.put(PodDBAdapter.KEY_READ, FeedItem.NEW);
+            } else if (item.isPlayed()) {
+                values.put(PodDBAdapter.KEY_READ, FeedItem.PLAYED);
+            } else {
+                values.put(PodDBAdapter.KEY_READ, FeedItem.UNPLAYED);
+            }
+            values.put(PodDBAdapter.KEY_HAS_CHAPTERS, item.getChapters() != null || item.hasChapters());
+            values.put(PodDBAdapter.KEY_ITEM_IDENTIFIER, item.getItemIdentifier());
+            values.put(PodDBAdapter.KEY_AUTO_DOWNLOAD, item.getAutoDownload());
+            values.put(PodDBAdapter.KEY_IMAGE_URL, item.getImageUrl());
+            values.put(PodDBAdapter.KEY_DESCRIPTION_HASH, item.getDescriptionHash());
+            item.setId(db.insert(PodDBAdapter.TABLE_NAME_FEED_ITEMS, null, values));
+
+            values = new ContentValues();
+            values.put(PodDBAdapter.KEY_ID, item.getId());
+            values.put(PodDBAdapter.KEY_DESCRIPTION, item.getDescription());
+            db.insertWithOnConflict(PodDBAdapter.TABLE_NAME_FEED_ITEM_DESCRIPTIONS, null, values,
+                    SQLiteDatabase.CONFLICT_IGNORE);
+
+            FeedMedia media = item.getMedia();
+            media.setId(db.insert(PodDBAdapter.TABLE_NAME_FEED_MEDIA, null, mediaValues(media)));
+        }
+    }
+
+    private static ContentValues mediaValues(FeedMedia media) {
+        ContentValues values = new ContentValues();
+        values.put(PodDBAdapter.KEY_DURATION, media.getDuration());
+        values.put(PodDBAdapter.KEY_POSITION, media.getPosition());
+        values.put(PodDBAdapter.KEY_SIZE, media.getSize());
+        values.put(PodDBAdapter.KEY_MIME_TYPE, media.getMime_type());
+        values.put(PodDBAdapter.KEY_DOWNLOAD_URL, media.getDownload_url());
+        values.put(PodDBAdapter.KEY_DOWNLOADED, media.isDownloaded());
+        values.put(PodDBAdapter.KEY_FILE_URL, media.getFile_url());
+        values.put(PodDBAdapter.KEY_HAS_EMBEDDED_PICTURE, media.hasEmbeddedPicture());
+        values.put(PodDBAdapter.KEY_LAST_PLAYED_TIME, media.getLastPlayedTime());
+        values.put(PodDBAdapter.KEY_DOWNLOADED_SIZE, media.getDownloadedSize());
+        if (media.getPlaybackCompletionDate() != null) {
+            values.put(PodDBAdapter.KEY_PLAYBACK_COMPLETION_DATE, media.getPlaybackCompletionDate().getTime());
+        } else {
+            values.put(PodDBAdapter.KEY_PLAYBACK_COMPLETION_DATE, 0);
+        }
+        values.put(PodDBAdapter.KEY_FEEDITEM, media.getItem().getId());
+        return values;
+    }
+
+    /**
+     * Creates a feed whose episodes cover null and non-null values of the columns that are bound.
+     */
+    private static Feed createFeed(String title) {
+        Feed feed = new Feed(0, null, title, "link", "descr", null, null,
+                null, null, title, null, null, "url " + title, false);
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < NUM_ITEMS; i++) {
+            FeedItem item = new FeedItem(0, "item " + i, "id" + i, i % 2 == 0 ? "link" + i : null,
+                    new Date(i * 60000L), i % 3 - 1, feed);
+            item.setDescriptionIfLonger("Description of item " + i);
+            item.setPaymentLink(i % 2 == 1 ? "payment" + i : null);
+            item.setImageUrl(i % 3 == 0 ? "image" + i : null);
+            item.setAutoDownload(i % 2 == 0);
+            FeedMedia media = new FeedMedia(item, "url" + i, i * 100, i % 2 == 0 ? "audio/mp3" : null);
+            media.setHasEmbeddedPicture(i % 2 == 1);
+            if (i % 4 == 0) {
+                media.setPlaybackCompletionDate(new Date(i * 1000L));
+            }
+            item.setMedia(media);
+            feed.getItems().add(item);
+        }
+        return feed;
+    }
+}
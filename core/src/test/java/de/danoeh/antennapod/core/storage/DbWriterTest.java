@@ -19,9 +19,11 @@ import org.robolectric.RobolectricTestRunner;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Random;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -33,7 +35,9 @@ import de.danoeh.antennapod.core.feed.FeedMedia;
 import de.danoeh.antennapod.core.preferences.PlaybackPreferences;
 import de.danoeh.antennapod.core.preferences.UserPreferences;
 import de.danoeh.antennapod.core.util.FeedItemUtil;
+import de.danoeh.antennapod.core.util.LongList;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
@@ -751,6 +755,54 @@ public class DbWriterTest {
         }
     }
 
+    @Test
+    public void testQueuePositions() throws Exception {
+        final int numItems = 20;
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "title " + i, "id " + i, "link " + i,
+                    new Date(), FeedItem.PLAYED, feed);
+            feed.getItems().add(item);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.setQueue(feed.getItems().subList(0, 5));
+        adapter.close();
+
+        List<Long> expected = new ArrayList<>();
+        for (FeedItem item : feed.getItems().subList(0, 5)) {
+            expected.add(item.getId());
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int operation = random.nextInt(3);
+            if (operation == 0 && expected.size() < numItems) {
+                FeedItem item = feed.getItems().get(random.nextInt(numItems));
+                if (!expected.contains(item.getId())) {
+                    int index = random.nextInt(expected.size() + 1);
+                    DBWriter.addQueueItemAt(context, item.getId(), index, false).get(TIMEOUT, TimeUnit.SECONDS);
+                    expected.add(index, item.getId());
+                }
+            } else if (operation == 1 && expected.size() > 1) {
+                // Moving to the same place repeatedly uses up the gap between two positions
+                int from = random.nextInt(expected.size());
+                int to = random.nextBoolean() ? 1 : random.nextInt(expected.size());
+                DBWriter.moveQueueItem(from, to, false).get(TIMEOUT, TimeUnit.SECONDS);
+                expected.add(to, expected.remove(from));
+            } else if (operation == 2 && !expected.isEmpty()) {
+                long itemId = expected.remove(random.nextInt(expected.size()));
+                DBWriter.removeQueueItem(context, false, itemId).get(TIMEOUT, TimeUnit.SECONDS);
+            }
+            LongList queueIds = DBReader.getQueueIDList();
+            assertEquals(expected.size(), queueIds.size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertEquals((long) expected.get(j), queueIds.get(j));
+            }
+        }
+    }
+
     @Test
     public void testMarkFeedRead() throws Exception {
         final int numItems = 10;
@@ -779,6 +831,53 @@ public class DbWriterTest {
         }
     }
 
+    @Test
+    public void testFeedCountersFollowWrites() throws Exception {
+        final int numItems = 6;
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "title " + i, "id " + i, "link " + i,
+                    new Date(i), i % 2 == 0 ? FeedItem.NEW : FeedItem.UNPLAYED, feed);
+            FeedMedia media = new FeedMedia(0, item, 1, 1, 1, "mime_type",
+                    i < 2 ? "file" + i : null, "download_url" + i, i < 2, null, 0, 0);
+            item.setMedia(media);
+            feed.getItems().add(item);
+        }
+        withPodDB(adapter -> adapter.setCompleteFeed(feed));
+        final long feedId = feed.getId();
+
+        withPodDB(adapter -> {
+            assertEquals(3, adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_NEW, feedId).get(feedId));
+            assertEquals(3, adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_UNPLAYED, feedId).get(feedId));
+            assertEquals(2, adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_DOWNLOADED, feedId).get(feedId));
+            assertEquals(3, adapter.getNumberOfNewItems());
+            assertEquals(Long.valueOf(numItems - 1), adapter.getMostRecentItemDates().get(feedId));
+        });
+
+        DBWriter.markItemPlayed(FeedItem.PLAYED, feed.getItems().get(0).getId(), feed.getItems().get(1).getId())
+                .get(TIMEOUT, TimeUnit.SECONDS);
+        DBWriter.deleteFeedMediaOfItem(context, feed.getItems().get(0).getMedia().getId())
+                .get(TIMEOUT, TimeUnit.SECONDS);
+        withPodDB(adapter -> {
+            assertEquals(2, adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_NEW, feedId).get(feedId));
+            assertEquals(2, adapter.getFeedCounters(UserPreferences.FEED_COUNTER_SHOW_UNPLAYED, feedId).get(feedId));
+            assertEquals(2, adapter.getPlayedEpisodesCounters(feedId).get(feedId));
+            assertEquals(1, adapter.getNumberOfDownloadedEpisodes());
+        });
+
+        DBWriter.deleteFeedItems(context, feed.getItems().subList(numItems - 1, numItems))
+                .get(TIMEOUT, TimeUnit.SECONDS);
+        withPodDB(adapter -> assertEquals(Long.valueOf(numItems - 2), adapter.getMostRecentItemDates().get(feedId)));
+
+        DBWriter.deleteFeed(context, feedId).get(TIMEOUT, TimeUnit.SECONDS);
+        withPodDB(adapter -> {
+            assertEquals(0, adapter.getNumberOfNewItems());
+            assertEquals(0, adapter.getNumberOfDownloadedEpisodes());
+            assertTrue(adapter.getMostRecentItemDates().isEmpty());
+        });
+    }
+
     @Test
     public void testMarkAllItemsReadSameFeed() throws Exception {
         final int numItems = 10;
@@ -807,6 +906,50 @@ public class DbWriterTest {
         }
     }
 
+    @Test
+    public void testSetFeedItemsReturnsChangedIds() {
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            FeedItem item = new FeedItem(0, "title " + i, "id " + i, "link " + i,
+                    new Date(), i % 2 == 0 ? FeedItem.NEW : FeedItem.PLAYED, feed);
+            feed.getItems().add(item);
+        }
+        withPodDB(adapter -> adapter.setCompleteFeed(feed));
+
+        withPodDB(adapter -> {
+            long[] changedIds = adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED);
+            Arrays.sort(changedIds);
+            assertArrayEquals(new long[]{feed.getItems().get(0).getId(), feed.getItems().get(2).getId()}, changedIds);
+            assertEquals(0, adapter.setFeedItems(FeedItem.NEW, FeedItem.UNPLAYED).length);
+            assertEquals(2, adapter.setFeedItems(FeedItem.PLAYED, feed.getId()).length);
+        });
+    }
+
+    @Test
+    public void testMarkManyItemsPlayed() throws Exception {
+        final int numItems = 2000;
+        Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "title " + i, "id " + i, "link " + i,
+                    new Date(), FeedItem.NEW, feed);
+            feed.getItems().add(item);
+        }
+        withPodDB(adapter -> adapter.setCompleteFeed(feed));
+
+        long[] ids = new long[numItems - 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = feed.getItems().get(i).getId();
+        }
+        DBWriter.markItemPlayed(FeedItem.PLAYED, ids).get(TIMEOUT, TimeUnit.SECONDS);
+        List<FeedItem> loadedItems = DBReader.getFeedItemList(feed);
+        assertEquals(numItems, loadedItems.size());
+        for (FeedItem item : loadedItems) {
+            assertEquals(item.getId() != feed.getItems().get(numItems - 1).getId(), item.isPlayed());
+        }
+    }
+
     private static Feed createTestFeed(int numItems) {
         Feed feed = new Feed("url", null, "title");
         feed.setItems(new ArrayList<>());
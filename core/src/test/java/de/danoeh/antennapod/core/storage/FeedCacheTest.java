@@ -0,0 +1,157 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.feed.FeedItemFilter;
+import de.danoeh.antennapod.core.feed.FeedPreferences;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+
+import static de.danoeh.antennapod.core.storage.DbTestUtils.saveFeedlist;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link FeedCache}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedCacheTest {
+    private static final long TIMEOUT = 5L;
+
+    private FeedCache cache;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.close();
+        cache = FeedCache.getInstance();
+    }
+
+    @After
+    public void tearDown() {
+        PodDBAdapter.tearDownTests();
+        DBWriter.tearDownTests();
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        saveFeedlist(3, 0, false);
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+
+        List<Feed> feeds = DBReader.getFeedList();
+        assertEquals(3, feeds.size());
+        assertEquals(misses + 1, cache.getMissCount());
+        assertSame(feeds.get(0), DBReader.getFeedList().get(0));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void testReadsChangedFeedOnly() throws Exception {
+        List<Feed> feeds = saveFeedlist(3, 0, false);
+        List<Feed> cached = DBReader.getFeedList();
+
+        Feed feed = feeds.get(1);
+        DBWriter.setFeedCustomTitle(feed.getId(), "Custom title").get(TIMEOUT, TimeUnit.SECONDS);
+
+        List<Feed> updated = DBReader.getFeedList();
+        assertEquals(3, updated.size());
+        assertSame(cached.get(0), updated.get(0));
+        assertNotSame(cached.get(1), updated.get(1));
+        assertSame(cached.get(2), updated.get(2));
+        assertEquals("Custom title", updated.get(1).getTitle());
+    }
+
+    @Test
+    public void testFeedPreferences() throws Exception {
+        Feed feed = saveFeedlist(1, 0, false).get(0);
+        FeedPreferences preferences = DBReader.getFeedList().get(0).getPreferences();
+        assertTrue(preferences.getKeepUpdated());
+
+        preferences = DBReader.getFeed(feed.getId()).getPreferences();
+        preferences.setKeepUpdated(false);
+        DBWriter.setFeedPreferences(preferences).get(TIMEOUT, TimeUnit.SECONDS);
+        assertFalse(DBReader.getFeedList().get(0).getPreferences().getKeepUpdated());
+    }
+
+    @Test
+    public void testItemsGetCopiesOfFeeds() {
+        saveFeedlist(1, 2, false);
+        Feed cached = DBReader.getFeedList().get(0);
+
+        List<FeedItem> items = DBReader.getRecentlyPublishedEpisodes(0, 10, new FeedItemFilter(""));
+        assertEquals(2, items.size());
+        Feed feed = items.get(0).getFeed();
+        assertNotSame(cached, feed);
+        assertSame(feed, items.get(1).getFeed());
+        assertEquals(cached.getTitle(), feed.getTitle());
+
+        feed.setCustomTitle("Custom title");
+        feed.getPreferences().setKeepUpdated(false);
+        assertEquals(cached.getFeedTitle(), cached.getTitle());
+        assertTrue(cached.getPreferences().getKeepUpdated());
+    }
+
+    @Test
+    public void testAddAndRemoveFeeds() {
+        List<Feed> feeds = saveFeedlist(2, 0, false);
+        assertEquals(2, DBReader.getFeedList().size());
+
+        Feed added = new Feed(0, null, "A feed", "link", "descr", null, null, null, null, "id", null, null,
+                "url", false);
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(added);
+        adapter.removeFeed(feeds.get(0));
+        adapter.close();
+
+        List<Feed> updated = DBReader.getFeedList();
+        assertEquals(2, updated.size());
+        assertEquals(added.getId(), updated.get(0).getId());
+        assertEquals(feeds.get(1).getId(), updated.get(1).getId());
+        assertEquals(DBReader.loadFeedList().size(), updated.size());
+    }
+
+    @Test
+    public void testOrderAfterRename() {
+        List<Feed> feeds = saveFeedlist(3, 0, false);
+        DBReader.getFeedList();
+
+        Feed feed = feeds.get(0);
+        feed.setTitle("z feed");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+
+        List<Feed> updated = DBReader.getFeedList();
+        List<Feed> expected = DBReader.loadFeedList();
+        assertEquals(expected.size(), updated.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), updated.get(i).getId());
+        }
+        assertEquals(feed.getId(), updated.get(2).getId());
+    }
+}
@@ -0,0 +1,173 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItem;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for {@link FeedSearcher}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FeedSearcherTest {
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+
+        PodDBAdapter.init(context);
+        PodDBAdapter.deleteDatabase();
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.close();
+    }
+
+    @After
+    public void tearDown() {
+        PodDBAdapter.tearDownTests();
+        DBWriter.tearDownTests();
+    }
+
+    @Test
+    public void testSearchFeedItemsByPrefix() {
+        Feed feed = saveFeed("Feed", "Podcast about cooking",
+                "Pancakes", "How to make pancakes",
+                "Pasta", "Cooking pasta in salted water",
+                "Bread", "Baking bread");
+
+        List<FeedItem> results = FeedSearcher.searchFeedItems(context, "pan", 0);
+        assertEquals(1, results.size());
+        assertEquals("Pancakes", results.get(0).getTitle());
+
+        results = FeedSearcher.searchFeedItems(context, "SALT wat", 0);
+        assertEquals(1, results.size());
+        assertEquals("Pasta", results.get(0).getTitle());
+
+        results = FeedSearcher.searchFeedItems(context, "bread", feed.getId() + 1);
+        assertEquals(0, results.size());
+    }
+
+    @Test
+    public void testSearchFeedItemsTitleMatchesFirst() {
+        saveFeed("Feed", "Podcast",
+                "Baking", "Bread is baked, not cooked",
+                "Bread", "Something else",
+                "Pasta", "Cooking pasta");
+
+        List<FeedItem> results = FeedSearcher.searchFeedItems(context, "bread", 0);
+        assertEquals(2, results.size());
+        assertEquals("Bread", results.get(0).getTitle());
+        assertEquals("Baking", results.get(1).getTitle());
+    }
+
+    @Test
+    public void testSearchFeedItemsAfterUpdate() {
+        Feed feed = saveFeed("Feed", "Podcast", "Old title", "Old description");
+        FeedItem item = feed.getItems().get(0);
+        item.setTitle("New title");
+        item.setDescription("New description");
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setSingleFeedItem(item);
+        adapter.close();
+
+        assertEquals(0, FeedSearcher.searchFeedItems(context, "old", 0).size());
+        assertEquals(1, FeedSearcher.searchFeedItems(context, "new", 0).size());
+
+        adapter.open();
+        adapter.removeFeed(feed);
+        adapter.close();
+        assertEquals(0, FeedSearcher.searchFeedItems(context, "new", 0).size());
+    }
+
+    @Test
+    public void testSearchFeeds() {
+        saveFeed("Kitchen stories", "Podcast about cooking");
+        saveFeed("Garden", "Podcast about kitchen gardens");
+        saveFeed("Sports", "Podcast about football");
+
+        List<Feed> results = FeedSearcher.searchFeeds(context, "kitch");
+        assertEquals(2, results.size());
+        assertEquals("Kitchen stories", results.get(0).getTitle());
+        assertEquals("Garden", results.get(1).getTitle());
+    }
+
+    @Test
+    public void testSearchWithoutWords() {
+        saveFeed("Feed", "Podcast", "Question?", "Is this a question?");
+        assertEquals(1, FeedSearcher.searchFeedItems(context, "?", 0).size());
+    }
+
+    @Test
+    public void testSearchMatchesLike() {
+        final int numItems = 500;
+        final Feed feed = new Feed("url", null, "title");
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < numItems; i++) {
+            FeedItem item = new FeedItem(0, "item " + i, "id " + i, "link " + i, new Date(i), FeedItem.PLAYED, feed);
+            item.setDescription("<p>This is the description of episode number " + i
+                    + ". It contains show notes and links to https://example.com/" + i + "</p>");
+            feed.getItems().add(item);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+
+        final String[] queries = {"episode", "show notes", "example", "number 499", "nothing"};
+        int likeResults = 0;
+        for (String query : queries) {
+            try (Cursor cursor = adapter.searchItemsUsingLike(0, query)) {
+                likeResults += cursor.getCount();
+            }
+        }
+
+        int ftsResults = 0;
+        for (String query : queries) {
+            try (Cursor cursor = adapter.searchItems(0, query)) {
+                ftsResults += cursor.getCount();
+            }
+        }
+        adapter.close();
+
+        assertEquals(likeResults, ftsResults);
+        assertTrue(ftsResults > 0);
+    }
+
+    /**
+     * Saves a feed with items that are specified as pairs of title and description.
+     */
+    private static Feed saveFeed(String title, String description, String... items) {
+        Feed feed = new Feed(0, null, title, "link", description, null, null, null, "rss", title, null, "", "", true);
+        feed.setItems(new ArrayList<>());
+        for (int i = 0; i < items.length; i += 2) {
+            FeedItem item = new FeedItem(0, items[i], "id " + i, "link", new Date(i), FeedItem.UNPLAYED, feed);
+            item.setDescription(items[i + 1]);
+            feed.getItems().add(item);
+        }
+        PodDBAdapter adapter = PodDBAdapter.getInstance();
+        adapter.open();
+        adapter.setCompleteFeed(feed);
+        adapter.close();
+        return feed;
+    }
+}
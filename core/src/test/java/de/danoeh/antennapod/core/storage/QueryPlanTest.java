@@ -0,0 +1,194 @@
+package de.danoeh.antennapod.core.storage;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import de.danoeh.antennapod.core.feed.Feed;
+import de.danoeh.antennapod.core.feed.FeedItemFilter;
+import de.danoeh.antennapod.core.preferences.UserPreferences;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Makes sure that the queries that are run often do not read all episodes or media.
+ * Every step that reads episodes or media has to look up rows with an index or the rowid,
+ * or walk an index in the requested order of a query with a LIMIT.
+ * Walking a whole table, or a whole index without a LIMIT, is not fine.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanTest {
+    /**
+     * Matches the steps in the output of EXPLAIN QUERY PLAN that read episodes or media.
+     * Older SQLite versions write "SCAN TABLE x", newer ones write "SCAN x".
+     */
+    private static final Pattern READS_EPISODES = Pattern.compile(
+            "^(SCAN|SEARCH) (TABLE )?(" + PodDBAdapter.TABLE_NAME_FEED_ITEMS + "|"
+                    + PodDBAdapter.TABLE_NAME_FEED_MEDIA + ")\\b");
+    /**
+     * Matches the steps that only visit the rows selected by a constraint on an index or the rowid.
+     */
+    private static final Pattern INDEX_LOOKUP = Pattern.compile(
+            "^SEARCH |USING (COVERING )?INDEX \\w+ \\(\\w+=\\?");
+    /**
+     * Matches the steps that walk an index in the order of the ORDER BY clause.
+     * With a LIMIT, SQLite stops walking once it has found enough rows.
+     */
+    private static final Pattern ORDERED_INDEX_WALK = Pattern.compile(
+            "^SCAN (TABLE )?\\w+ USING (COVERING )?INDEX ");
+    private static final Pattern ORDERED_WITH_LIMIT = Pattern.compile(" ORDER BY .* LIMIT ");
+    private static final String QUERY_PREFIX = "SQLiteQuery: ";
+
+    private static final String[] FILTERS = {"", "unplayed", "played", "paused", "queued", "downloaded",
+        "not_downloaded", "is_favorite", "unplayed,downloaded"};
+
+    private PodDBAdapter adapter;
+    private SQLiteDatabase db;
+    private boolean recording = false;
+    private final List<String> queries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        UserPreferences.init(context);
+
+        PodDBAdapter.init(context);
+        PodDBAdapter.setCursorFactory((database, driver, editTable, query) -> {
+            if (recording) {
+                db = database;
+                queries.add(query.toString().substring(QUERY_PREFIX.length()));
+            }
+            return new SQLiteCursor(driver, editTable, query);
+        });
+        PodDBAdapter.deleteDatabase();
+        DbTestUtils.saveFeedlist(2, 10, true);
+        adapter = PodDBAdapter.getInstance();
+        adapter.open();
+    }
+
+    @After
+    public void tearDown() {
+        adapter.close();
+        PodDBAdapter.tearDownTests();
+        DBWriter.tearDownTests();
+    }
+
+    @Test
+    public void testEpisodeLists() {
+        assertNoFullScan("queue", () -> adapter.getQueueCursor().close());
+        assertNoFullScan("new items", () -> adapter.getNewItemsCursor(0, 150).close());
+        assertNoFullScan("new items page", () -> adapter.getNewItemsCursor(new PageToken(1, 1), 150).close());
+        assertNoFullScan("favorites", () -> adapter.getFavoritesCursor(0, 150).close());
+        assertNoFullScan("favorites page", () -> adapter.getFavoritesCursor(new PageToken(1, 1), 150).close());
+        for (String filter : FILTERS) {
+            FeedItemFilter itemFilter = new FeedItemFilter(filter);
+            // The playback position is not indexed, so SQLite may start with all media to find the paused ones
+            String[] allowedScans = itemFilter.showPaused ? new String[] {PodDBAdapter.TABLE_NAME_FEED_MEDIA}
+                    : new String[0];
+            assertNoFullScan("episodes " + filter,
+                    () -> adapter.getRecentlyPublishedItemsCursor(0, 150, itemFilter).close(), allowedScans);
+            assertNoFullScan("episodes page " + filter,
+                    () -> adapter.getRecentlyPublishedItemsCursor(new PageToken(1, 1), 150, itemFilter).close(),
+                    allowedScans);
+        }
+    }
+
+    @Test
+    public void testDownloadsAndPlayback() {
+        assertNoFullScan("downloaded items", () -> adapter.getDownloadedItemsCursor().close());
+        assertNoFullScan("played items", () -> adapter.getPlayedItemsCursor().close());
+        assertNoFullScan("playback history", () -> adapter.getCompletedMediaCursor(50).close());
+        assertNoFullScan("single media", () -> adapter.getSingleFeedMediaCursor(1).close());
+        assertNoFullScan("items by id", () -> adapter.getFeedItemCursor(new String[] {"1", "2"}).close());
+    }
+
+    @Test
+    public void testFeedItemsOfFeed() {
+        Feed feed = new Feed("url", null, "title");
+        feed.setId(1);
+        for (String filter : FILTERS) {
+            assertNoFullScan("items of feed " + filter,
+                    () -> adapter.getItemsOfFeedCursor(feed, new FeedItemFilter(filter)).close());
+        }
+    }
+
+    @Test
+    public void testCounters() {
+        for (int setting : new int[] {UserPreferences.FEED_COUNTER_SHOW_NEW_UNPLAYED_SUM,
+                UserPreferences.FEED_COUNTER_SHOW_NEW, UserPreferences.FEED_COUNTER_SHOW_UNPLAYED,
+                UserPreferences.FEED_COUNTER_SHOW_DOWNLOADED}) {
+            assertNoFullScan("feed counters " + setting, () -> adapter.getFeedCounters(setting));
+        }
+        assertNoFullScan("played counters", () -> adapter.getPlayedEpisodesCounters());
+        assertNoFullScan("most recent item dates", () -> adapter.getMostRecentItemDates());
+        assertNoFullScan("number of new items", () -> adapter.getNumberOfNewItems());
+        assertNoFullScan("number of downloaded episodes", () -> adapter.getNumberOfDownloadedEpisodes());
+    }
+
+    @Test
+    public void testSearch() {
+        assertNoFullScan("search items", () -> adapter.searchItems(0, "title").close());
+        assertNoFullScan("search items of feed", () -> adapter.searchItems(1, "title").close());
+        assertNoFullScan("search feeds", () -> adapter.searchFeeds("title").close());
+    }
+
+    /**
+     * @param allowedScans Tables that the query may read completely, because no index can select its rows
+     */
+    private void assertNoFullScan(String name, Runnable query, String... allowedScans) {
+        queries.clear();
+        recording = true;
+        try {
+            query.run();
+        } finally {
+            recording = false;
+        }
+        assertFalse("No query was recorded for " + name, queries.isEmpty());
+        for (String sql : queries) {
+            List<String> plan = explain(sql);
+            boolean limited = ORDERED_WITH_LIMIT.matcher(sql).find();
+            for (String step : plan) {
+                if (!READS_EPISODES.matcher(step).find() || INDEX_LOOKUP.matcher(step).find()
+                        || (limited && ORDERED_INDEX_WALK.matcher(step).find())
+                        || isAllowedScan(step, allowedScans)) {
+                    continue;
+                }
+                fail("Query for " + name + " scans a whole table or index: " + plan + "\n" + sql);
+            }
+        }
+    }
+
+    private static boolean isAllowedScan(String step, String[] allowedScans) {
+        for (String table : allowedScans) {
+            if (step.equals("SCAN " + table) || step.equals("SCAN TABLE " + table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> explain(String sql) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null)) {
+            int indexDetail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(indexDetail));
+            }
+        }
+        return plan;
+    }
+}
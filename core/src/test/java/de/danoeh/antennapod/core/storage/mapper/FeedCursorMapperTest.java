@@ -56,6 +56,8 @@ public class FeedCursorMapperTest {
             assertEquals("feed download url", feed.getDownload_url());
             assertTrue(feed.isDownloaded());
             assertEquals("feed last update", feed.getLastUpdate());
+            assertEquals("feed content hash", feed.getContentHash());
+            assertEquals("feed etag", feed.getEtag());
             assertEquals("feed type", feed.getType());
             assertEquals("feed identifier", feed.getFeedIdentifier());
             assertTrue(feed.isPaged());
@@ -86,6 +88,8 @@ public class FeedCursorMapperTest {
         values.put(PodDBAdapter.KEY_DOWNLOAD_URL, "feed download url");
         values.put(PodDBAdapter.KEY_DOWNLOADED, true);
         values.put(PodDBAdapter.KEY_LASTUPDATE, "feed last update");
+        values.put(PodDBAdapter.KEY_CONTENT_HASH, "feed content hash");
+        values.put(PodDBAdapter.KEY_ETAG, "feed etag");
         values.put(PodDBAdapter.KEY_TYPE, "feed type");
         values.put(PodDBAdapter.KEY_FEED_IDENTIFIER, "feed identifier");
 
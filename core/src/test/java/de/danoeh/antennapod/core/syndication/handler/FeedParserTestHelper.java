@@ -2,6 +2,7 @@ package de.danoeh.antennapod.core.syndication.handler;
 
 import androidx.annotation.NonNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 
 import de.danoeh.antennapod.core.feed.Feed;
@@ -32,4 +33,16 @@ public abstract class FeedParserTestHelper {
         handler.parseFeed(parsedFeed);
         return parsedFeed;
     }
+
+    /**
+     * Runs the feed parser on the given content without using a file.
+     */
+    @NonNull
+    static Feed runFeedParser(@NonNull byte[] content) throws Exception {
+        FeedHandler handler = new FeedHandler();
+        Feed parsedFeed = new Feed("http://example.com/feed", null);
+        parsedFeed.setDownloaded(true);
+        handler.parseFeed(parsedFeed, new ByteArrayInputStream(content));
+        return parsedFeed;
+    }
 }
@@ -1,5 +1,6 @@
 package de.danoeh.antennapod.core.syndication.handler;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
@@ -55,6 +56,39 @@ public class RssParserTest {
         }
     }
 
+    @Test
+    public void testRss2BasicFromStream() throws Exception {
+        File feedFile = FeedParserTestHelper.getFeedFile("feed-rss-testRss2Basic.xml");
+        Feed expected = FeedParserTestHelper.runFeedParser(feedFile);
+        Feed feed = FeedParserTestHelper.runFeedParser(FileUtils.readFileToByteArray(feedFile));
+        assertEquals(Feed.TYPE_RSS2, feed.getType());
+        assertEquals(expected.getTitle(), feed.getTitle());
+        assertEquals(expected.getLanguage(), feed.getLanguage());
+        assertEquals(expected.getItems().size(), feed.getItems().size());
+        for (int i = 0; i < feed.getItems().size(); i++) {
+            assertEquals(expected.getItems().get(i).getItemIdentifier(), feed.getItems().get(i).getItemIdentifier());
+            assertEquals(expected.getItems().get(i).getPubDate(), feed.getItems().get(i).getPubDate());
+        }
+    }
+
+    @Test
+    public void testRootElementAfterTypePrefixFromStream() throws Exception {
+        File feedFile = FeedParserTestHelper.getFeedFile("feed-rss-testRss2Basic.xml");
+        String content = FileUtils.readFileToString(feedFile, "UTF-8");
+        int rootStart = content.indexOf("<rss");
+        StringBuilder padding = new StringBuilder("<!--");
+        while (padding.length() < 32 * 1024) {
+            padding.append(" padding");
+        }
+        padding.append(" -->\n");
+        content = content.substring(0, rootStart) + padding + content.substring(rootStart);
+
+        Feed feed = FeedParserTestHelper.runFeedParser(content.getBytes("UTF-8"));
+        assertEquals(Feed.TYPE_RSS2, feed.getType());
+        assertEquals("title", feed.getTitle());
+        assertEquals(10, feed.getItems().size());
+    }
+
     @Test
     public void testImageWithWhitespace() throws Exception {
         File feedFile = FeedParserTestHelper.getFeedFile("feed-rss-testImageWithWhitespace.xml");
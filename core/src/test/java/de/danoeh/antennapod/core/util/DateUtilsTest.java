@@ -13,6 +13,29 @@ import static org.junit.Assert.assertEquals;
  * Unit test for {@link DateUtils}.
  */
 public class DateUtilsTest {
+    private static final String[] DATE_CORPUS = {
+            "2015-03-28T13:31:04.963870",
+            "2015-03-28T13:31:04.96",
+            "2015-03-28T13:31:04.9",
+            "2015-03-28T13:31:04.963870 +0700",
+            "2015-03-28T13:31:04.96 +0700",
+            "2015-03-28T13:31:04.9 +0700",
+            "Sat, 28 Mar 2015 01:31:04 EST",
+            "Sat, 28 Mar 2015 01:31 EST",
+            "Sat, 28 March 2015 08:16:12 -0400",
+            "Wed, 25 May 2011 12:33:00",
+            "Tue,  23 Mar   2010 01:06:26 -0500",
+            "2017-02-22T14:28:00.002-08:00",
+            "Sun, 29 Jan 2017 00:00:00 CEST",
+            "Sun, 29 Jan 2017 00:00:00 CET",
+            "Thu, 8 Oct 2014 09:00:00 GMT",
+            "Mon, 8 Sept 2014 00:00:00 GMT",
+            "Sun 01 Mar 2015 01:00:00 GMT-0400 (EDT)",
+            "01 Jan 70 01:00:00 +0100",
+            "2015-03-28",
+            "2015-03-28T13:31:04Z",
+            "Mon, 31 Feb 2014 00:00:00 GMT"
+    };
 
     @Test
     public void testParseDateWithMicroseconds() {
@@ -171,4 +194,12 @@ public class DateUtilsTest {
         final Date actual = DateUtils.parse("Sun 01 Mar 2015 01:00:00 GMT-0400 (EDT)");
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void testFastPathMatchesPatterns() {
+        for (String date : DATE_CORPUS) {
+            assertEquals(date, DateUtils.parseUsingPatterns(date), DateUtils.parse(date));
+        }
+    }
+
 }
@@ -0,0 +1,63 @@
+package de.danoeh.antennapod.core.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testEmptySet() {
+        LongHashSet set = new LongHashSet();
+        assertEquals(0, set.size());
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(42));
+    }
+
+    @Test
+    public void testAdd() {
+        LongHashSet set = new LongHashSet(0);
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(43));
+    }
+
+    @Test
+    public void testOfList() {
+        LongHashSet set = LongHashSet.of(LongList.of(3, 1, 2, 3));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(2));
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(4));
+    }
+
+    @Test
+    public void testManyValues() {
+        Random random = new Random(1);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet set = new LongHashSet();
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextInt(20000);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value = 0; value < 20000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}